@@ -0,0 +1,263 @@
+package benchmarks;
+
+import managers.InMemoryAppManager;
+import managers.history.InMemoryHistoryManager;
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+import utils.Managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Hot paths of InMemoryAppManager and InMemoryHistoryManager, parameterized by the number of tasks and by the number
+// of stories per epic. Reads and updates are timed per call on a filled manager. Adds and deletes change the size,
+// so they are timed as one batch per iteration on a manager rebuilt outside the measured time.
+// Usage: gradle jmh --args='AppManagerBenchmark -p size=1000,10000'
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppManagerBenchmark {
+    static final LocalDateTime START_TIME = LocalDateTime.of(2020, 1, 1, 0, 0);
+    static final Duration TASK_DURATION = Duration.ofMinutes(45);
+    private static final int BATCH = 1_000;
+    // The smallest manager has 10 epics: 1000 stories, 100 per epic
+    private static final int EPICS_BATCH = 10;
+
+    // Timed tasks in the hours of random slots, each leaving a free gap of a quarter of an hour after it
+    @State(Scope.Benchmark)
+    public static class Tasks {
+        @Param({"1000", "10000", "100000"})
+        int size;
+
+        InMemoryAppManager manager;
+        long[] ids;
+        int[] slots;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            manager = newManager();
+            final int[] shuffled = shuffled(size);
+            for (int slot : shuffled) manager.addTask(timedTask(slot));
+            ids = new long[size];
+            slots = new int[size];
+            for (int i = 0; i < size; i++) {
+                // Ids are given in the order of addition
+                ids[i] = i + 1;
+                slots[i] = shuffled[i];
+            }
+            next = 0;
+        }
+
+        int nextIndex() {
+            final int index = next;
+            next = index + 1 == size ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Stories {
+        @Param({"1000", "10000", "100000"})
+        int size;
+
+        @Param({"1", "10", "100"})
+        int fanOut;
+
+        InMemoryAppManager manager;
+        List<Epic> epics;
+        List<Story> stories;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            manager = newManager();
+            final int epicsCount = Math.max(1, size / fanOut);
+            epics = new ArrayList<>(epicsCount);
+            for (int i = 0; i < epicsCount; i++) epics.add(manager.addEpic(Epic.createEpic("Epic" + i)));
+            for (int i = 0; i < size; i++) manager.addStory(timedStory(i, epics.get(i % epicsCount)));
+            stories = new ArrayList<>(size);
+            for (Epic epic : manager.findAllEpics()) stories.addAll(epic.getStories());
+            Collections.shuffle(stories, new Random(42));
+            Collections.shuffle(epics, new Random(42));
+            next = 0;
+        }
+
+        Story nextStory() {
+            final Story story = stories.get(next);
+            next = next + 1 == size ? 0 : next + 1;
+            return story;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"1000", "10000", "100000"})
+        int size;
+
+        InMemoryHistoryManager historyManager;
+        Task[] views;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final List<Task> tasks = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) tasks.add(Task.createTask(i, "Task" + i, ""));
+            final Random random = new Random(42);
+            views = new Task[size];
+            for (int i = 0; i < size; i++) views[i] = tasks.get(random.nextInt(size));
+            historyManager = new InMemoryHistoryManager();
+            for (Task task : tasks) historyManager.add(task);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(BATCH)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public long addTask(Tasks state) {
+        long result = 0;
+        for (int i = 0; i < BATCH; i++) {
+            final int slot = state.slots[state.nextIndex()];
+            if (state.manager.addTask(Task.builder("Gap" + slot)
+                    .startTime(START_TIME.plusHours(slot).plusMinutes(50))
+                    .duration(Duration.ofMinutes(5))
+                    .build()) != null) result++;
+        }
+        return result;
+    }
+
+    // The rejected task changes nothing, so the manager stays the same from call to call
+    @Benchmark
+    public Task addTaskRejectedOverlap(Tasks state) {
+        final int slot = state.slots[state.nextIndex()];
+        return state.manager.addTask(Task.builder("Overlapping" + slot)
+                .startTime(START_TIME.plusHours(slot).plusMinutes(30))
+                .duration(TASK_DURATION)
+                .build());
+    }
+
+    @Benchmark
+    public Task findTask(Tasks state) {
+        return state.manager.findTask(state.ids[state.nextIndex()]);
+    }
+
+    // Every other update of a task moves it five minutes later within its slot, the next one moves it back
+    @Benchmark
+    public Task updateTask(Tasks state) {
+        final int index = state.nextIndex();
+        final int slot = state.slots[index];
+        final boolean moved = state.manager.getTasksRepository().find(state.ids[index]).getStartTime().getMinute() > 0;
+        return state.manager.updateTask(state.ids[index], Task.builder("Task" + slot)
+                .stateTask(moved ? StateTask.NEW : StateTask.IN_PROGRESS)
+                .startTime(START_TIME.plusHours(slot).plusMinutes(moved ? 0 : 5))
+                .duration(Duration.ofMinutes(40))
+                .build());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(BATCH)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public long deleteTask(Tasks state) {
+        long result = 0;
+        for (int i = 0; i < BATCH; i++) result += state.manager.deleteTask(state.ids[state.nextIndex()]).getId();
+        return result;
+    }
+
+    @Benchmark
+    public List<AbstractTask> getPrioritizedTasks(Tasks state) {
+        return state.manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(BATCH)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public long addStory(Stories state) {
+        long result = 0;
+        for (int i = 0; i < BATCH; i++) {
+            final Epic epic = state.epics.get(i % state.epics.size());
+            result += state.manager.addStory(Story.builder("Story" + (state.size + i), epic)
+                    .startTime(START_TIME.minusYears(50).plusHours(state.size + i))
+                    .duration(TASK_DURATION)
+                    .build()).getId();
+        }
+        return result;
+    }
+
+    // The state of a story flips between NEW and DONE, so the state of its epic is recomputed on every call
+    @Benchmark
+    public StateTask updateStoryState(Stories state) {
+        final Story story = state.nextStory();
+        final StateTask stateTask = story.getStateTask() == StateTask.DONE ? StateTask.NEW : StateTask.DONE;
+        final Story update = Story.createStory(story.getId(), story.getName(), story.getDescription(),
+                story.getEpic(), stateTask, story.getDuration(), story.getStartTime());
+        return state.manager.updateStory(story.getId(), update).getEpic().getStateTask();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(EPICS_BATCH)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public long deleteEpic(Stories state) {
+        long result = 0;
+        for (int i = 0; i < EPICS_BATCH; i++) {
+            result += state.manager.deleteEpic(state.epics.get(i).getId()).getStories().size();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void historyAdd(History state) {
+        state.historyManager.add(state.views[state.next]);
+        state.next = state.next + 1 == state.size ? 0 : state.next + 1;
+    }
+
+    @Benchmark
+    public List<AbstractTask> getHistory(History state) {
+        return state.historyManager.getHistory();
+    }
+
+    static InMemoryAppManager newManager() {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        return Managers.getDefault();
+    }
+
+    static Task timedTask(int slot) {
+        return Task.builder("Task" + slot)
+                .startTime(START_TIME.plusHours(slot))
+                .duration(TASK_DURATION)
+                .build();
+    }
+
+    static Story timedStory(int slot, Epic epic) {
+        return Story.builder("Story" + slot, epic)
+                .startTime(START_TIME.minusYears(50).plusHours(slot))
+                .duration(TASK_DURATION)
+                .build();
+    }
+
+    // The numbers from 0 to size - 1 in an order fixed by the seed
+    static int[] shuffled(int size) {
+        final List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) values.add(i);
+        Collections.shuffle(values, new Random(42));
+        final int[] result = new int[size];
+        for (int i = 0; i < size; i++) result[i] = values.get(i);
+        return result;
+    }
+}
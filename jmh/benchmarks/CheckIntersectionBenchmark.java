@@ -0,0 +1,55 @@
+package benchmarks;
+
+import managers.InMemoryAppManager;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Bulk load of timed tasks in random order into an empty manager: every insert and every rejected overlapping insert
+// runs checkIntersection, so the time of the load against its size shows how the check scales
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckIntersectionBenchmark {
+    @Param({"10000", "100000"})
+    int size;
+
+    private int[] slots;
+    private InMemoryAppManager manager;
+
+    @Setup(Level.Trial)
+    public void setUpSlots() {
+        slots = AppManagerBenchmark.shuffled(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpManager() {
+        manager = AppManagerBenchmark.newManager();
+    }
+
+    // Returns the number of rejected overlaps, which must be equal to the size
+    @Benchmark
+    public int load() {
+        int rejected = 0;
+        for (int slot : slots) {
+            final LocalDateTime startTime = AppManagerBenchmark.START_TIME.plusHours(slot);
+            manager.addTask(Task.builder("Task" + slot)
+                    .startTime(startTime)
+                    .duration(Duration.ofMinutes(45))
+                    .build());
+            if (manager.addTask(Task.builder("Overlapping" + slot)
+                    .startTime(startTime.plusMinutes(30))
+                    .duration(Duration.ofMinutes(45))
+                    .build()) == null) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+}
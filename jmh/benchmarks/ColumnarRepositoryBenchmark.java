@@ -0,0 +1,98 @@
+package benchmarks;
+
+import models.enums.StateTask;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+import repositories.tasks.ColumnarTasksRepository;
+import repositories.tasks.TasksRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// TasksRepository against ColumnarTasksRepository: the heap held per million tasks with their texts and times,
+// printed by the setup of the fork, the find of random ids and a scan for started tasks, through the views of the
+// columnar one. The fork runs with a fixed heap and a collector accounting it exactly.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xms2g", "-Xmx2g"})
+public class ColumnarRepositoryBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 9, 0);
+    private static final StateTask[] STATES = StateTask.values();
+
+    @State(Scope.Benchmark)
+    public static class Repository {
+        @Param({"1000000"})
+        int size;
+
+        @Param({"tasks", "columnar"})
+        String repository;
+
+        // Only the repository of the parameter is filled, the other one stays null
+        TasksRepository tasks;
+        ColumnarTasksRepository columnar;
+        long[] lookups;
+        LocalDateTime scanTime;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            lookups = RepositoryFootprintBenchmark.lookups(size);
+            scanTime = START.plusMinutes(size / 2);
+            final long before = RepositoryFootprintBenchmark.usedHeap();
+            if ("columnar".equals(repository)) {
+                columnar = filled(new ColumnarTasksRepository(), size);
+            } else {
+                tasks = filled(new TasksRepository(), size);
+            }
+            final long retained = RepositoryFootprintBenchmark.usedHeap() - before;
+            RepositoryFootprintBenchmark.printFootprint(repository, retained, size);
+        }
+
+        long nextId() {
+            next = (next + 1) % lookups.length;
+            return lookups[next];
+        }
+    }
+
+    // Bytes per task are megabytes per million tasks
+    @Benchmark
+    public Task find(Repository repository) {
+        final long id = repository.nextId();
+        return repository.columnar != null ? repository.columnar.find(id) : repository.tasks.find(id);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long scan(Repository repository) {
+        if (repository.columnar != null) {
+            final long[] result = new long[1];
+            repository.columnar.forEach(view -> {
+                if (view.getStateTask() == StateTask.IN_PROGRESS && view.startsBefore(repository.scanTime)) {
+                    result[0]++;
+                }
+            });
+            return result[0];
+        }
+        long result = 0;
+        for (Task task : repository.tasks.findAll()) {
+            if (task.getStateTask() == StateTask.IN_PROGRESS && task.getStartTime().isBefore(repository.scanTime)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // Tasks of distinct names sharing a few descriptions, built one by one so that only the repository keeps them
+    private static <R extends AbstractTasksRepository<Task>> R filled(R repository, int size) {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        for (int i = 0; i < size; i++) {
+            repository.add(Task.createTask(0, "Task" + i, "Описание задачи " + (i % 100), STATES[i % STATES.length],
+                    Duration.ofMinutes(15 + i % 4 * 15), START.plusMinutes(i)));
+        }
+        return repository;
+    }
+}
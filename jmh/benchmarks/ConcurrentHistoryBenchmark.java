@@ -0,0 +1,70 @@
+package benchmarks;
+
+import managers.ConcurrentAppManager;
+import managers.history.ConcurrentHistoryManager;
+import managers.history.HistoryManager;
+import managers.history.InMemoryHistoryManager;
+import managers.history.SynchronizedHistoryManager;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// findTask of the concurrent manager from several threads at once: every view is recorded in the history, which is
+// the only shared structure the readers write to. The number of readers is the number of JMH threads.
+// Usage: gradle jmh --args='ConcurrentHistoryBenchmark -t 8'
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentHistoryBenchmark {
+    private static final int VIEWS_PER_THREAD = 1 << 16;
+
+    @State(Scope.Benchmark)
+    public static class Manager {
+        @Param({"100000"})
+        int size;
+
+        @Param({"synchronized", "concurrent"})
+        String history;
+
+        ConcurrentAppManager manager;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final HistoryManager historyManager = "synchronized".equals(history)
+                    ? new SynchronizedHistoryManager(new InMemoryHistoryManager()) : new ConcurrentHistoryManager();
+            manager = new ConcurrentAppManager(64, historyManager);
+            final List<Task> tasks = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) tasks.add(Task.createTask("Task" + i));
+            manager.addTasks(tasks);
+        }
+    }
+
+    // Every reader views its own random ids
+    @State(Scope.Thread)
+    public static class Reader {
+        long[] views;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Manager manager) {
+            final Random random = new Random(Thread.currentThread().getId());
+            views = new long[VIEWS_PER_THREAD];
+            for (int i = 0; i < views.length; i++) views[i] = 1 + random.nextInt(manager.size);
+        }
+    }
+
+    @Benchmark
+    public Task findTask(Manager manager, Reader reader) {
+        reader.next = (reader.next + 1) & (VIEWS_PER_THREAD - 1);
+        return manager.manager.findTask(reader.views[reader.next]);
+    }
+}
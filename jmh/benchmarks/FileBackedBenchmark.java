@@ -0,0 +1,181 @@
+package benchmarks;
+
+import managers.FileBackedAppManager;
+import managers.persistence.DurabilityMode;
+import models.enums.StateTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+import utils.Managers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// FileBackedAppManager on a snapshot of tasks and of epics with ten stories each: the load and the save of the whole
+// file, findTask, and the changes in every durability mode. Every iteration starts from a fresh copy of the snapshot.
+// The changes are timed together with close(), so the deferred writes of the batching modes are paid for.
+// Usage: gradle jmh --args='FileBackedBenchmark -p size=1000 -p mode=journal-sync'
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileBackedBenchmark {
+    private static final int FAN_OUT = 10;
+    // Every operation of the sync CSV mode rewrites the whole file, so the batch is kept small
+    private static final int BATCH = 100;
+
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+        @Param({"1000", "10000", "100000"})
+        int size;
+
+        Path directory;
+        Path baseFile;
+        Path workFile;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("file-backed-benchmark");
+            baseFile = directory.resolve("base.csv");
+            workFile = directory.resolve("work.csv");
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            try (FileBackedAppManager manager = FileBackedAppManager.builder(baseFile)
+                    .durability(DurabilityMode.writeBehind(Duration.ofSeconds(1)))
+                    .build()) {
+                for (int slot = 0; slot < size; slot++) manager.addTask(AppManagerBenchmark.timedTask(slot));
+                final List<Epic> epics = new ArrayList<>();
+                for (int i = 0; i < Math.max(1, size / FAN_OUT); i++) {
+                    epics.add(manager.addEpic(Epic.createEpic("Epic" + i)));
+                }
+                for (int i = 0; i < size; i++) {
+                    manager.addStory(Story.createStory("Story" + i, epics.get(i % epics.size())));
+                }
+            }
+        }
+
+        // The journal and the history of the previous iteration go away with the copy
+        @Setup(Level.Iteration)
+        public void copy() throws IOException {
+            Files.copy(baseFile, workFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(FileBackedAppManager.journalPath(workFile));
+            Files.deleteIfExists(FileBackedAppManager.historyPath(workFile));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            for (Path path : new Path[] {baseFile, workFile}) {
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(FileBackedAppManager.journalPath(path));
+                Files.deleteIfExists(FileBackedAppManager.historyPath(path));
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // A manager opened on the copy of the snapshot, outside the measured time
+    @State(Scope.Benchmark)
+    public static class Opened {
+        @Param({"csv-sync", "csv-groupCommit", "csv-writeBehind", "journal-sync"})
+        String mode;
+
+        FileBackedAppManager manager;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp(Snapshot snapshot) {
+            final FileBackedAppManager.Builder builder = FileBackedAppManager.builder(snapshot.workFile);
+            switch (mode) {
+                case "csv-groupCommit":
+                    builder.durability(DurabilityMode.groupCommit(256, Duration.ofMillis(50)));
+                    break;
+                case "csv-writeBehind":
+                    builder.durability(DurabilityMode.writeBehind(Duration.ofMillis(200)));
+                    break;
+                case "journal-sync":
+                    builder.journaled(Integer.MAX_VALUE).durability(DurabilityMode.sync());
+                    break;
+                default:
+                    break;
+            }
+            manager = builder.build();
+            next = 0;
+        }
+
+        // Closing twice is harmless, the changes close the manager themselves
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            manager.close();
+        }
+    }
+
+    @Benchmark
+    public long load(Snapshot snapshot) {
+        try (FileBackedAppManager manager = Managers.getFileBacked(snapshot.workFile)) {
+            return manager.size();
+        }
+    }
+
+    @Benchmark
+    public long save(Opened opened) {
+        opened.manager.save();
+        return opened.manager.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Task findTask(Snapshot snapshot, Opened opened) {
+        opened.next = opened.next % snapshot.size + 1;
+        return opened.manager.findTask(opened.next);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long addTask(Snapshot snapshot, Opened opened) {
+        try (FileBackedAppManager manager = opened.manager) {
+            long result = 0;
+            for (int i = 0; i < BATCH; i++) {
+                result += manager.addTask(AppManagerBenchmark.timedTask(snapshot.size + i)).getId();
+            }
+            return result;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long updateTask(Opened opened) {
+        try (FileBackedAppManager manager = opened.manager) {
+            long result = 0;
+            for (int i = 1; i <= BATCH; i++) {
+                final Task update = Task.builder("Updated" + i)
+                        .stateTask(StateTask.DONE)
+                        .startTime(AppManagerBenchmark.START_TIME.plusHours(i - 1))
+                        .duration(AppManagerBenchmark.TASK_DURATION)
+                        .build();
+                if (manager.updateTask(i, update) != null) result++;
+            }
+            return result;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long deleteTask(Opened opened) {
+        try (FileBackedAppManager manager = opened.manager) {
+            long result = 0;
+            for (int i = 1; i <= BATCH; i++) result += manager.deleteTask(i).getId();
+            return result;
+        }
+    }
+}
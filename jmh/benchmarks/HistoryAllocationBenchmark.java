@@ -0,0 +1,77 @@
+package benchmarks;
+
+import managers.InMemoryAppManager;
+import managers.history.ArrayHistoryManager;
+import managers.history.BoundedHistoryManager;
+import managers.history.HistoryManager;
+import managers.history.InMemoryHistoryManager;
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import repositories.tasks.AbstractTasksRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// findTask and getHistory of the in-memory manager with every history implementation, on a warm manager whose
+// history is already full. The bytes allocated per operation are reported by the gc profiler as gc.alloc.rate.norm.
+// Usage: gradle jmh --args='HistoryAllocationBenchmark -prof gc'
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryAllocationBenchmark {
+    @Param({"100000"})
+    int size;
+
+    @Param({"linked", "array", "bounded"})
+    String history;
+
+    private InMemoryAppManager manager;
+    private long[] views;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final HistoryManager historyManager;
+        switch (history) {
+            case "array":
+                historyManager = new ArrayHistoryManager(size);
+                break;
+            case "bounded":
+                historyManager = new BoundedHistoryManager(size);
+                break;
+            default:
+                historyManager = new InMemoryHistoryManager();
+                break;
+        }
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        manager = new InMemoryAppManager(historyManager);
+        final List<Task> tasks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) tasks.add(Task.createTask("Task" + i));
+        manager.addTasks(tasks);
+
+        final Random random = new Random(42);
+        views = new long[size];
+        for (int i = 0; i < size; i++) views[i] = 1 + random.nextInt(size);
+        for (long id : views) manager.findTask(id);
+    }
+
+    @Benchmark
+    public Task findTask() {
+        next = next + 1 == size ? 0 : next + 1;
+        return manager.findTask(views[next]);
+    }
+
+    // The history is walked as well, a view that is not read would hide the cost of its iterator
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void getHistory(Blackhole blackhole) {
+        for (AbstractTask task : manager.getHistory()) blackhole.consume(task);
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import managers.ConcurrentAppManager;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+import web.HttpTaskServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// Closed-loop load on GET /tasks/task: every JMH thread is a client sending its next request once the previous one is
+// answered. The throughput counts every answer, the ok, overloaded (503) and errors counters split it; a small queue
+// shows the 503s of the overload filter.
+// Usage: gradle jmh --args='HttpTaskServerLoadBenchmark -p workers=1,4 -p queueCapacity=1024'
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class HttpTaskServerLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"2000"})
+        int tasks;
+
+        @Param({"1", "2", "4", "8"})
+        int workers;
+
+        @Param({"1024", "4"})
+        int queueCapacity;
+
+        HttpTaskServer server;
+        HttpClient client;
+        HttpRequest request;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final ConcurrentAppManager manager = new ConcurrentAppManager();
+            for (int i = 0; i < tasks; i++) manager.addTask(Task.createTask("Task" + i, "Description" + i));
+            server = HttpTaskServer.builder(manager)
+                    .port(0)
+                    .threads(workers)
+                    .queueCapacity(queueCapacity)
+                    .build();
+            server.start();
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + server.getAddress().getPort() + "/tasks/task")).GET().build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.stop();
+        }
+    }
+
+    // Answers of one client by their status, as rates like the throughput itself
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Responses {
+        public long ok;
+        public long overloaded;
+        public long errors;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            overloaded = 0;
+            errors = 0;
+        }
+    }
+
+    @Benchmark
+    public int get(Server server, Responses responses) throws InterruptedException {
+        try {
+            final int status = server.client.send(server.request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 200) {
+                responses.ok++;
+            } else if (status == 503) {
+                responses.overloaded++;
+            } else {
+                responses.errors++;
+            }
+            return status;
+        } catch (IOException e) {
+            responses.errors++;
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import web.taskSerializers.TaskSerializer;
+
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Reflective Gson against the shared Gson with the hand-written adapters on the same list of tasks.
+// On JDK 17+ the reflective path needs java.time opened to it, the fork is started so
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.time=ALL-UNNAMED")
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    private static final Type TASKS_TYPE = new TypeToken<Collection<Task>>() {
+    }.getType();
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"reflective", "adapters"})
+    String serializer;
+
+    private Gson gson;
+    private List<Task> tasks;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gson = "reflective".equals(serializer) ? new Gson() : TaskSerializer.GSON;
+        tasks = new ArrayList<>(size);
+        final LocalDateTime startTime = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < size; i++) {
+            tasks.add(Task.createTask(i + 1, "Task" + i, "Description" + i, null,
+                    i % 2 == 0 ? Duration.ofMinutes(45) : null, i % 2 == 0 ? startTime.plusHours(i) : null));
+        }
+        json = gson.toJson(tasks, TASKS_TYPE);
+    }
+
+    @Benchmark
+    public String write() {
+        final StringWriter writer = new StringWriter(json.length());
+        gson.toJson(tasks, TASKS_TYPE, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public Collection<Task> read() {
+        return gson.fromJson(json, TASKS_TYPE);
+    }
+}
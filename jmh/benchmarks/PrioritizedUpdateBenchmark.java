@@ -0,0 +1,155 @@
+package benchmarks;
+
+import managers.AppManager;
+import managers.ConcurrentAppManager;
+import managers.InMemoryAppManager;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+import utils.Managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Updates that move every task and story to another place of the prioritized list, timed as one pass over all of
+// them. The entities take the even hours and are moved to the shuffled odd ones, so no update is rejected and the
+// order is scrambled completely. After every pass the prioritized list is checked against the repositories.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PrioritizedUpdateBenchmark {
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final Duration TASK_DURATION = Duration.ofMinutes(45);
+
+    @State(Scope.Benchmark)
+    public static class Config {
+        @Param({"100000"})
+        int size;
+
+        @Param({"10"})
+        int fanOut;
+
+        @Param({"inMemory", "concurrent"})
+        String manager;
+
+        int[] targetSlots;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            targetSlots = AppManagerBenchmark.shuffled(size);
+            for (int i = 0; i < size; i++) targetSlots[i] = 2 * targetSlots[i] + 1;
+        }
+
+        AppManager newManager() {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            return "concurrent".equals(manager) ? new ConcurrentAppManager() : Managers.getDefault();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tasks {
+        AppManager manager;
+        List<Task> tasks;
+
+        @Setup(Level.Iteration)
+        public void setUp(Config config) {
+            manager = config.newManager();
+            final List<Task> timedTasks = new ArrayList<>(config.size);
+            for (int i = 0; i < config.size; i++) timedTasks.add(timedTask(2 * i));
+            tasks = manager.addTasks(timedTasks);
+        }
+
+        @TearDown(Level.Iteration)
+        public void check() {
+            checkPrioritizedList(manager);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Stories {
+        AppManager manager;
+        List<Epic> epics;
+        List<Story> stories;
+
+        @Setup(Level.Iteration)
+        public void setUp(Config config) {
+            manager = config.newManager();
+            final int epicsCount = Math.max(1, config.size / config.fanOut);
+            final List<Epic> newEpics = new ArrayList<>(epicsCount);
+            for (int i = 0; i < epicsCount; i++) newEpics.add(Epic.createEpic("Epic" + i));
+            manager.addEpics(newEpics);
+            epics = new ArrayList<>(manager.findAllEpics());
+            final List<Story> newStories = new ArrayList<>(config.size);
+            for (int i = 0; i < config.size; i++) newStories.add(timedStory(2 * i, epics.get(i % epicsCount)));
+            manager.addStories(newStories);
+            stories = new ArrayList<>(config.size);
+            for (Epic epic : manager.findAllEpics()) stories.addAll(epic.getStories());
+        }
+
+        @TearDown(Level.Iteration)
+        public void check() {
+            checkPrioritizedList(manager);
+        }
+    }
+
+    @Benchmark
+    public long updateTaskReorder(Config config, Tasks tasks) {
+        long result = 0;
+        for (int i = 0; i < tasks.tasks.size(); i++) {
+            final Task task = tasks.tasks.get(i);
+            if (tasks.manager.updateTask(task.getId(), timedTask(config.targetSlots[i])) != null) result++;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long updateStoryReorder(Config config, Stories stories) {
+        return updateStories(config, stories, false);
+    }
+
+    @Benchmark
+    public long updateStoryMoveEpic(Config config, Stories stories) {
+        return updateStories(config, stories, true);
+    }
+
+    private static long updateStories(Config config, Stories stories, boolean moveEpic) {
+        final List<Epic> epics = stories.epics;
+        long result = 0;
+        for (int i = 0; i < stories.stories.size(); i++) {
+            final Story story = stories.stories.get(i);
+            final Epic epic = moveEpic ? epics.get((int) ((story.getEpic().getId() + 1) % epics.size()))
+                    : story.getEpic();
+            if (stories.manager.updateStory(story.getId(), timedStory(config.targetSlots[i], epic)) != null) result++;
+        }
+        return result;
+    }
+
+    private static void checkPrioritizedList(AppManager manager) {
+        if (manager instanceof ConcurrentAppManager) {
+            ((ConcurrentAppManager) manager).checkPrioritizedList();
+        } else {
+            ((InMemoryAppManager) manager).checkPrioritizedList();
+        }
+    }
+
+    private static Task timedTask(int slot) {
+        return Task.builder("Task" + slot)
+                .startTime(START_TIME.plusHours(slot))
+                .duration(TASK_DURATION)
+                .build();
+    }
+
+    private static Story timedStory(int slot, Epic epic) {
+        return Story.builder("Story" + slot, epic)
+                .startTime(START_TIME.plusHours(slot))
+                .duration(TASK_DURATION)
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package benchmarks;
+
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+import repositories.tasks.TasksRepository;
+import utils.collections.ConcurrentLongMap;
+import utils.collections.LongMap;
+import utils.collections.LongObjectHashMap;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Maps of the repositories keyed by task ids: get latency on random ids and the heap the map itself holds per million
+// tasks, printed by the setup of the fork. The heap is the used heap after a full GC with and without the map, the
+// tasks being shared by both, so the fork runs with a fixed heap and a collector accounting it exactly.
+// Usage: gradle jmh --args='RepositoryFootprintBenchmark -p map=HashMap,LongObjectHashMap'
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xms2g", "-Xmx2g"})
+public class RepositoryFootprintBenchmark {
+    private static final int LOOKUPS = 1 << 20;
+
+    private interface IdMap {
+        void put(long id, Task task);
+
+        Task get(long id);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tasks {
+        @Param({"1000000"})
+        int size;
+
+        Task[] tasks;
+        long[] lookups;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            tasks = new Task[size];
+            for (int i = 0; i < size; i++) tasks[i] = Task.createTask(i + 1, Task.createTask("Task" + (i + 1)));
+            lookups = lookups(size);
+        }
+
+        long nextId() {
+            next = (next + 1) & (LOOKUPS - 1);
+            return lookups[next];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Maps {
+        @Param({"HashMap", "LinkedHashMap", "ConcurrentLongMap", "LongObjectHashMap"})
+        String map;
+
+        IdMap idMap;
+
+        // The heap is measured first, while nothing else is left on it
+        @Setup(Level.Trial)
+        public void setUp(Tasks tasks) {
+            final long before = usedHeap();
+            idMap = newMap(map);
+            for (Task task : tasks.tasks) idMap.put(task.getId(), task);
+            printFootprint(map, usedHeap() - before, tasks.size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+        @Param({"plain", "concurrent"})
+        String repository;
+
+        TasksRepository tasksRepository;
+
+        @Setup(Level.Trial)
+        public void setUp(Tasks tasks) {
+            tasksRepository = "plain".equals(repository) ? new TasksRepository() : TasksRepository.createConcurrent();
+            tasksRepository.restoreAll(Arrays.asList(tasks.tasks));
+        }
+    }
+
+    // Bytes per task are megabytes per million tasks
+    @Benchmark
+    public Task mapGet(Tasks tasks, Maps maps) {
+        return maps.idMap.get(tasks.nextId());
+    }
+
+    @Benchmark
+    public Task repositoryFind(Tasks tasks, Repositories repositories) {
+        return repositories.tasksRepository.find(tasks.nextId());
+    }
+
+    private static IdMap newMap(String name) {
+        switch (name) {
+            case "HashMap":
+                return boxed(new HashMap<>());
+            case "LinkedHashMap":
+                return boxed(new LinkedHashMap<>());
+            case "ConcurrentLongMap":
+                return primitive(new ConcurrentLongMap<>());
+            case "LongObjectHashMap":
+                return primitive(new LongObjectHashMap<>());
+            default:
+                throw new IllegalArgumentException("Неизвестная таблица: " + name);
+        }
+    }
+
+    private static IdMap boxed(Map<Long, Task> map) {
+        return new IdMap() {
+            @Override
+            public void put(long id, Task task) {
+                map.put(id, task);
+            }
+
+            @Override
+            public Task get(long id) {
+                return map.get(id);
+            }
+        };
+    }
+
+    private static IdMap primitive(LongMap<Task> map) {
+        return new IdMap() {
+            @Override
+            public void put(long id, Task task) {
+                map.put(id, task);
+            }
+
+            @Override
+            public Task get(long id) {
+                return map.get(id);
+            }
+        };
+    }
+
+    // Random ids from 1 to size, as many as LOOKUPS
+    static long[] lookups(int size) {
+        final Random random = new Random(42);
+        final long[] lookups = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) lookups[i] = 1 + random.nextInt(size);
+        return lookups;
+    }
+
+    // Bytes per task are megabytes per million tasks
+    static void printFootprint(String name, long retainedBytes, int size) {
+        System.out.printf(Locale.ROOT, "%n%s: %.1f MB per million tasks%n", name, (double) retainedBytes / size);
+    }
+
+    // Runtime does not allocate on the first call, unlike the memory MXBean, which would skew the first reading
+    static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import managers.FileBackedAppManager;
+import managers.persistence.DurabilityMode;
+import managers.persistence.SnapshotFormat;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+import repositories.tasks.AbstractTasksRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Restart time of FileBackedAppManager from the CSV and the binary snapshot of the same data. Every hundredth task
+// is an epic followed by stories, half of the rest is scheduled. The snapshot of a million tasks needs a heap of
+// about 2 GB, the fork is given it
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SnapshotLoadBenchmark {
+    private static final int STORIES_PER_EPIC = 30;
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"csv", "binary"})
+    String format;
+
+    private Path directory;
+    private Path csvPath;
+    private Path binaryPath;
+    private FileBackedAppManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshots");
+        csvPath = directory.resolve("tasks.csv");
+        binaryPath = directory.resolve("tasks.bin");
+        generate(csvPath, size);
+        if ("binary".equals(format)) FileBackedAppManager.convert(csvPath, binaryPath, SnapshotFormat.BINARY);
+    }
+
+    // The garbage of the previous restart is collected outside the measured time
+    @Setup(Level.Iteration)
+    public void collectGarbage() {
+        System.gc();
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        manager.close();
+        manager = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (Path path : new Path[] {csvPath, binaryPath}) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(FileBackedAppManager.historyPath(path));
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long restart() {
+        manager = FileBackedAppManager.getInstance("binary".equals(format) ? binaryPath : csvPath);
+        return manager.getTasksRepository().size() + manager.getHistoryManager().getHistory().size();
+    }
+
+    private static void generate(Path path, int size) {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        final LocalDateTime startTime = LocalDateTime.of(2020, 1, 1, 0, 0);
+        final FileBackedAppManager manager = FileBackedAppManager.builder(path)
+                .durability(DurabilityMode.groupCommit(Integer.MAX_VALUE, Duration.ofDays(1)))
+                .build();
+        Epic epic = null;
+        for (int i = 0; i < size; i++) {
+            final String description = "Description " + i % 1000;
+            final Duration duration = i % 2 == 0 ? Duration.ofMinutes(5) : null;
+            final LocalDateTime taskStart = i % 2 == 0 ? startTime.plusMinutes(10L * i) : null;
+            if (i % 100 == 0) {
+                epic = manager.addEpic(Epic.createEpic("Epic" + i, description));
+            } else if (i % 100 <= STORIES_PER_EPIC) {
+                manager.addStory(Story.createStory(0, "Story" + i, description, epic, null, duration, taskStart));
+            } else {
+                manager.addTask(Task.createTask(0, "Task" + i, description, null, duration, taskStart));
+            }
+            if (i % 1000 == 999) manager.findTask(i + 1);
+        }
+        manager.close();
+    }
+}
@@ -0,0 +1,7 @@
+package exceptions;
+
+public class ManagerIntersectionException extends RuntimeException {
+    public ManagerIntersectionException() {
+        super("Задачи пересекаются по времени выполнения.");
+    }
+}
@@ -1,16 +1,31 @@
 package managers;
 
+import models.enums.StateTask;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
 import models.tasks.Story;
 import models.tasks.Task;
 import repositories.tasks.AbstractTasksRepository;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
 
 public interface AppManager {
     Collection<Task> findAllTasks();
 
+    // Pages are ordered by id and cost O(log n + limit). A page after a cursor id stays stable while other
+    // tasks are added and deleted between the requests, a page by offset may shift
+    List<Task> findTasks(int offset, int limit);
+
+    List<Task> findTasksAfter(long cursor, int limit);
+
+    // Filtered by state through secondary indexes, ordered by id like the pages above
+    List<Task> findTasks(StateTask stateTask, int offset, int limit);
+
+    List<Task> findTasksAfter(StateTask stateTask, long cursor, int limit);
+
     Task findTask(long id);
 
     Task addTask(Task task);
@@ -21,9 +36,24 @@ public interface AppManager {
 
     void deleteAllTasks();
 
+    // Batch operations are atomic: a batch with an unknown id or an intersection in time changes nothing
+    List<Task> addTasks(Collection<Task> tasks);
+
+    List<Task> updateTasks(Collection<Task> tasks);
+
+    List<Task> deleteTasks(Collection<Long> ids);
+
 
     Collection<Epic> findAllEpics();
 
+    List<Epic> findEpics(int offset, int limit);
+
+    List<Epic> findEpicsAfter(long cursor, int limit);
+
+    List<Epic> findEpics(StateTask stateTask, int offset, int limit);
+
+    List<Epic> findEpicsAfter(StateTask stateTask, long cursor, int limit);
+
     Epic findEpic(long id);
 
     Epic addEpic(Epic epic);
@@ -34,11 +64,30 @@ public interface AppManager {
 
     void deleteAllEpics();
 
+    List<Epic> addEpics(Collection<Epic> epics);
+
+    List<Epic> updateEpics(Collection<Epic> epics);
+
+    List<Epic> deleteEpics(Collection<Long> ids);
+
 
     Collection<Story> findAllStories(Epic epic);
 
     Collection<Story> findAllStories(long epicId);
 
+    List<Story> findStories(long epicId, int offset, int limit);
+
+    List<Story> findStoriesAfter(long epicId, long cursor, int limit);
+
+    // Stories of all epics
+    List<Story> findStories(StateTask stateTask, int offset, int limit);
+
+    List<Story> findStoriesAfter(StateTask stateTask, long cursor, int limit);
+
+    List<Story> findStories(long epicId, StateTask stateTask, int offset, int limit);
+
+    List<Story> findStoriesAfter(long epicId, StateTask stateTask, long cursor, int limit);
+
     Story findStory(long id);
 
     Story addStory(Story story);
@@ -49,6 +98,21 @@ public interface AppManager {
 
     void deleteAllStories(Epic epic);
 
+    List<Story> addStories(Collection<Story> stories);
+
+    List<Story> updateStories(Collection<Story> stories);
+
+    List<Story> deleteStories(Collection<Long> ids);
+
+    // Tasks and stories starting within [from, to) as a view of the index sorted by start time, nothing is copied.
+    // A null bound leaves the range open, tasks without a start time are not on the timeline
+    NavigableSet<AbstractTask> findTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    List<AbstractTask> nextTasksAfter(LocalDateTime time, int limit);
+
+    // Viewed tasks, epics and stories of the session the current thread works for, see SessionHistoryManager
+    List<AbstractTask> getHistory();
+
     <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
                                                    Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass);
 
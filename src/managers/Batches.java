@@ -0,0 +1,29 @@
+package managers;
+
+import models.tasks.AbstractTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Checks shared by the batch operations of the managers
+final class Batches {
+    private Batches() {
+    }
+
+    static void checkDistinct(Collection<Long> ids) {
+        final Set<Long> distinctIds = new HashSet<>(ids.size() * 2);
+        for (Long id : ids) {
+            if (!distinctIds.add(id)) throw new IllegalArgumentException("Повторяющийся id в пакете: " + id);
+        }
+    }
+
+    static List<Long> idsOf(Collection<? extends AbstractTask> abstractTasks) {
+        final List<Long> ids = new ArrayList<>(abstractTasks.size());
+        for (AbstractTask abstractTask : abstractTasks) ids.add(abstractTask.getId());
+        checkDistinct(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,753 @@
+package managers;
+
+import exceptions.ManagerIntersectionException;
+import exceptions.ManagerWrongIdException;
+import managers.history.HistoryManager;
+import managers.history.ConcurrentHistoryManager;
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import repositories.indexes.TimeSlotIndex;
+import repositories.tasks.AbstractTasksRepository;
+import repositories.tasks.EpicsRepository;
+import repositories.tasks.TasksRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Thread-safe AppManager for a multi-threaded HttpTaskServer.
+// Lock order: stripe locks (by stripe index) first, then the timeline lock.
+// A batch holds every stripe and the single operations it is made of take the same locks again
+public class ConcurrentAppManager implements AppManager {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final TasksRepository tasksRepository;
+    private final EpicsRepository epicsRepository;
+    private final HistoryManager historyManager;
+    // Tasks and stories ordered by start time; the skip list lets readers go without a lock
+    private final ConcurrentSkipListSet<AbstractTask> tasksSortedByStartTime;
+    // Guards the overlap check together with the insert into the time slot index
+    private final Lock timelineLock;
+    private final TimeSlotIndex timeSlotIndex;
+    // A task or an epic with all its stories is guarded by the stripe of its id
+    private final ReadWriteLock[] stripes;
+
+    public ConcurrentAppManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public ConcurrentAppManager(int stripesCount) {
+        this(stripesCount, new ConcurrentHistoryManager());
+    }
+
+    // The history manager must be thread-safe, for example a SynchronizedHistoryManager
+    public ConcurrentAppManager(int stripesCount, HistoryManager historyManager) {
+        Objects.requireNonNull(historyManager, "historyManager must not be null");
+        if (stripesCount <= 0) throw new IllegalArgumentException("Количество блокировок должно быть больше нуля");
+        tasksRepository = TasksRepository.createConcurrent();
+        epicsRepository = EpicsRepository.createConcurrent();
+        this.historyManager = historyManager;
+        tasksSortedByStartTime = new ConcurrentSkipListSet<>(
+                Comparator.comparing(AbstractTask::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparingLong(AbstractTask::getId)
+        );
+        timelineLock = new ReentrantLock();
+        timeSlotIndex = new TimeSlotIndex();
+        int size = 1;
+        while (size < stripesCount) size <<= 1;
+        stripes = new ReadWriteLock[size];
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public Collection<Task> findAllTasks() {
+        return tasksRepository.findAll();
+    }
+
+    @Override
+    public List<Task> findTasks(int offset, int limit) {
+        return tasksRepository.findPage(offset, limit);
+    }
+
+    @Override
+    public List<Task> findTasksAfter(long cursor, int limit) {
+        return tasksRepository.findPageAfter(cursor, limit);
+    }
+
+    @Override
+    public List<Task> findTasks(StateTask stateTask, int offset, int limit) {
+        return tasksRepository.findPage(stateTask, offset, limit);
+    }
+
+    @Override
+    public List<Task> findTasksAfter(StateTask stateTask, long cursor, int limit) {
+        return tasksRepository.findPageAfter(stateTask, cursor, limit);
+    }
+
+    @Override
+    public Task findTask(long id) {
+        final Task task = tasksRepository.find(id);
+        if (task == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+        historyManager.add(task);
+        return copyOf(task);
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        if (task.getStartTime() == null) {
+            final Task result = tasksRepository.add(task);
+            tasksSortedByStartTime.add(result);
+            return result;
+        }
+        timelineLock.lock();
+        try {
+            if (timeSlotIndex.intersects(task)) return null;
+            final Task result = tasksRepository.add(task);
+            addToTimeline(result);
+            return result;
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    @Override
+    public Task updateTask(long id, Task task) {
+        final Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            final Task currentTask = tasksRepository.find(id);
+            if (currentTask == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+            timelineLock.lock();
+            try {
+                // The task being updated must not collide with its own current slot
+                timeSlotIndex.remove(id);
+                if (timeSlotIndex.intersects(task)) {
+                    timeSlotIndex.add(currentTask);
+                    return null;
+                }
+                // The sort key changes, so the entry is taken out before the update and put back after it
+                tasksSortedByStartTime.remove(currentTask);
+                final Task result = tasksRepository.update(id, task);
+                addToTimeline(result);
+                return result;
+            } finally {
+                timelineLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task deleteTask(long id) {
+        final Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            final Task task = tasksRepository.delete(id);
+            if (task == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+            historyManager.remove(id);
+            removeFromTimeline(task);
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        for (Task task : new ArrayList<>(tasksRepository.findAll())) {
+            final Lock lock = stripe(task.getId()).writeLock();
+            lock.lock();
+            try {
+                if (tasksRepository.delete(task.getId()) == null) continue;
+                historyManager.remove(task.getId());
+                removeFromTimeline(task);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> addTasks(Collection<Task> tasks) {
+        final List<Lock> locks = lockAllStripes();
+        timelineLock.lock();
+        try {
+            if (timeSlotIndex.intersects(tasks)) throw new ManagerIntersectionException();
+            final List<Task> result = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                result.add(addTask(task));
+            }
+            return result;
+        } finally {
+            timelineLock.unlock();
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public List<Task> updateTasks(Collection<Task> tasks) {
+        final List<Lock> locks = lockAllStripes();
+        timelineLock.lock();
+        try {
+            final List<Task> currentTasks = new ArrayList<>(tasks.size());
+            for (long id : Batches.idsOf(tasks)) {
+                final Task currentTask = tasksRepository.find(id);
+                if (currentTask == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+                currentTasks.add(currentTask);
+            }
+            for (Task currentTask : currentTasks) timeSlotIndex.remove(currentTask.getId());
+            final boolean intersects = timeSlotIndex.intersects(tasks);
+            for (Task currentTask : currentTasks) timeSlotIndex.add(currentTask);
+            if (intersects) throw new ManagerIntersectionException();
+            final List<Task> result = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                result.add(updateTask(task.getId(), task));
+            }
+            return result;
+        } finally {
+            timelineLock.unlock();
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public List<Task> deleteTasks(Collection<Long> ids) {
+        Batches.checkDistinct(ids);
+        final List<Lock> locks = lockAllStripes();
+        try {
+            for (long id : ids) {
+                if (tasksRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+            }
+            final List<Task> result = new ArrayList<>(ids.size());
+            for (long id : ids) {
+                result.add(deleteTask(id));
+            }
+            return result;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public Collection<Epic> findAllEpics() {
+        return copiesOf(epicsRepository.findAll());
+    }
+
+    @Override
+    public List<Epic> findEpics(int offset, int limit) {
+        return copiesOf(epicsRepository.findPage(offset, limit));
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(long cursor, int limit) {
+        return copiesOf(epicsRepository.findPageAfter(cursor, limit));
+    }
+
+    @Override
+    public List<Epic> findEpics(StateTask stateTask, int offset, int limit) {
+        return copiesOf(epicsRepository.findPage(stateTask, offset, limit));
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(StateTask stateTask, long cursor, int limit) {
+        return copiesOf(epicsRepository.findPageAfter(stateTask, cursor, limit));
+    }
+
+    @Override
+    public Epic findEpic(long id) {
+        final Epic epic = epicsRepository.find(id);
+        if (epic == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+        historyManager.add(epic);
+        return copyOf(epic);
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return epicsRepository.add(epic);
+    }
+
+    @Override
+    public Epic updateEpic(long id, Epic epic) {
+        final Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            final Epic currentEpic = epicsRepository.find(id);
+            if (currentEpic == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+            final List<Story> stories = new ArrayList<>(currentEpic.getStories());
+            timelineLock.lock();
+            try {
+                // The epic may hold new objects with the same ids after the update, so all its stories are taken
+                // out of the timeline and the ones it holds are put back
+                for (Story story : stories) removeFromTimeline(story);
+                final Epic result = epicsRepository.update(id, epic);
+                for (Story story : stories) {
+                    if (result.getStory(story.getId()) != story) historyManager.remove(story.getId());
+                }
+                for (Story story : result.getStories()) addToTimeline(story);
+                return result.copy();
+            } finally {
+                timelineLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Epic deleteEpic(long id) {
+        final Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            final Epic epic = epicsRepository.delete(id);
+            if (epic == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+            for (Story story : epic.getStories()) {
+                historyManager.remove(story.getId());
+                removeFromTimeline(story);
+            }
+            historyManager.remove(id);
+            return epic;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        for (Epic epic : new ArrayList<>(epicsRepository.findAll())) {
+            try {
+                deleteEpic(epic.getId());
+            } catch (ManagerWrongIdException ignored) {
+                // Already deleted by another thread
+            }
+        }
+    }
+
+    @Override
+    public List<Epic> addEpics(Collection<Epic> epics) {
+        final List<Epic> result = new ArrayList<>(epics.size());
+        for (Epic epic : epics) {
+            result.add(addEpic(epic));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Epic> updateEpics(Collection<Epic> epics) {
+        final List<Lock> locks = lockAllStripes();
+        try {
+            for (long id : Batches.idsOf(epics)) {
+                if (epicsRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+            }
+            final List<Epic> result = new ArrayList<>(epics.size());
+            for (Epic epic : epics) {
+                result.add(updateEpic(epic.getId(), epic));
+            }
+            return result;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public List<Epic> deleteEpics(Collection<Long> ids) {
+        Batches.checkDistinct(ids);
+        final List<Lock> locks = lockAllStripes();
+        try {
+            for (long id : ids) {
+                if (epicsRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+            }
+            final List<Epic> result = new ArrayList<>(ids.size());
+            for (long id : ids) {
+                result.add(deleteEpic(id));
+            }
+            return result;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public Collection<Story> findAllStories(Epic epic) {
+        return findAllStories(epic.getId());
+    }
+
+    @Override
+    public Collection<Story> findAllStories(long epicId) {
+        final Lock lock = stripe(epicId).readLock();
+        lock.lock();
+        try {
+            final Epic epic = epicsRepository.find(epicId);
+            if (epic == null) return Collections.emptyList();
+            return new ArrayList<>(epic.getStories());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Story> findStories(long epicId, int offset, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPage(epicId, offset, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public List<Story> findStoriesAfter(long epicId, long cursor, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPageAfter(epicId, cursor, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public List<Story> findStories(StateTask stateTask, int offset, int limit) {
+        return epicsRepository.findStoriesPage(stateTask, offset, limit);
+    }
+
+    @Override
+    public List<Story> findStoriesAfter(StateTask stateTask, long cursor, int limit) {
+        return epicsRepository.findStoriesPageAfter(stateTask, cursor, limit);
+    }
+
+    @Override
+    public List<Story> findStories(long epicId, StateTask stateTask, int offset, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPage(epicId, stateTask, offset, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public List<Story> findStoriesAfter(long epicId, StateTask stateTask, long cursor, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPageAfter(epicId, stateTask, cursor, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public Story findStory(long id) {
+        final Story story = epicsRepository.findStory(id);
+        if (story == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+        historyManager.add(story);
+        return copyOf(story);
+    }
+
+    @Override
+    public Story addStory(Story story) {
+        final long epicId = story.getEpic().getId();
+        final Lock lock = stripe(epicId).writeLock();
+        lock.lock();
+        try {
+            final Epic epic = epicsRepository.find(epicId);
+            if (epic == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+            if (story.getStartTime() == null) {
+                final Story result = epicsRepository.addStory(story, epic);
+                tasksSortedByStartTime.add(result);
+                return result;
+            }
+            timelineLock.lock();
+            try {
+                if (timeSlotIndex.intersects(story)) return null;
+                final Story result = epicsRepository.addStory(story, epic);
+                addToTimeline(result);
+                return result;
+            } finally {
+                timelineLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Story updateStory(long id, Story story) {
+        while (true) {
+            final Epic currentEpic = epicsRepository.findEpicByStory(id);
+            if (currentEpic == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+            final List<Lock> locks = lockEpics(currentEpic.getId(), story.getEpic().getId());
+            try {
+                // The story could be moved to another epic before the locks were taken
+                if (epicsRepository.findEpicByStory(id) != currentEpic) continue;
+                final Story currentStory = currentEpic.getStory(id);
+                timelineLock.lock();
+                try {
+                    timeSlotIndex.remove(id);
+                    if (timeSlotIndex.intersects(story)) {
+                        timeSlotIndex.add(currentStory);
+                        return null;
+                    }
+                    tasksSortedByStartTime.remove(currentStory);
+                    final Story result = epicsRepository.updateStory(id, story);
+                    if (result == null) {
+                        addToTimeline(currentStory);
+                        throw new ManagerWrongIdException(TypeTask.EPIC, story.getEpic().getId());
+                    }
+                    addToTimeline(result);
+                    return result;
+                } finally {
+                    timelineLock.unlock();
+                }
+            } finally {
+                unlock(locks);
+            }
+        }
+    }
+
+    @Override
+    public Story deleteStory(long id) {
+        while (true) {
+            final Epic currentEpic = epicsRepository.findEpicByStory(id);
+            if (currentEpic == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+            final Lock lock = stripe(currentEpic.getId()).writeLock();
+            lock.lock();
+            try {
+                if (epicsRepository.findEpicByStory(id) != currentEpic) continue;
+                final Story story = epicsRepository.deleteStory(id);
+                removeFromTimeline(story);
+                historyManager.remove(id);
+                return story;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteAllStories(Epic epic) {
+        final Lock lock = stripe(epic.getId()).writeLock();
+        lock.lock();
+        try {
+            final Epic currentEpic = epicsRepository.find(epic.getId());
+            if (currentEpic == null) throw new ManagerWrongIdException(TypeTask.EPIC, epic.getId());
+            for (Story story : currentEpic.getStories()) {
+                historyManager.remove(story.getId());
+                removeFromTimeline(story);
+            }
+            epicsRepository.clearStories(currentEpic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Story> addStories(Collection<Story> stories) {
+        final List<Lock> locks = lockAllStripes();
+        timelineLock.lock();
+        try {
+            for (Story story : stories) {
+                final long epicId = story.getEpic().getId();
+                if (epicsRepository.find(epicId) == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+            }
+            if (timeSlotIndex.intersects(stories)) throw new ManagerIntersectionException();
+            final List<Story> result = new ArrayList<>(stories.size());
+            for (Story story : stories) {
+                result.add(addStory(story));
+            }
+            return result;
+        } finally {
+            timelineLock.unlock();
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public List<Story> updateStories(Collection<Story> stories) {
+        final List<Lock> locks = lockAllStripes();
+        timelineLock.lock();
+        try {
+            final List<Story> currentStories = new ArrayList<>(stories.size());
+            for (long id : Batches.idsOf(stories)) {
+                final Story currentStory = epicsRepository.findStory(id);
+                if (currentStory == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+                currentStories.add(currentStory);
+            }
+            for (Story story : stories) {
+                final long epicId = story.getEpic().getId();
+                if (epicsRepository.find(epicId) == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+            }
+            for (Story currentStory : currentStories) timeSlotIndex.remove(currentStory.getId());
+            final boolean intersects = timeSlotIndex.intersects(stories);
+            for (Story currentStory : currentStories) timeSlotIndex.add(currentStory);
+            if (intersects) throw new ManagerIntersectionException();
+            final List<Story> result = new ArrayList<>(stories.size());
+            for (Story story : stories) {
+                result.add(updateStory(story.getId(), story));
+            }
+            return result;
+        } finally {
+            timelineLock.unlock();
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public List<Story> deleteStories(Collection<Long> ids) {
+        Batches.checkDistinct(ids);
+        final List<Lock> locks = lockAllStripes();
+        try {
+            for (long id : ids) {
+                if (epicsRepository.findStory(id) == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+            }
+            final List<Story> result = new ArrayList<>(ids.size());
+            for (long id : ids) {
+                result.add(deleteStory(id));
+            }
+            return result;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
+                                                          Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
+        if (EpicsRepository.class.equals(tasksRepositoryClass)) {
+            deleteAllEpics();
+            for (T epic : abstractTasks) addEpic((Epic) epic);
+        } else if (TasksRepository.class.equals(tasksRepositoryClass)) {
+            deleteAllTasks();
+            for (T task : abstractTasks) addTask((Task) task);
+        } else {
+            throw new IllegalArgumentException("Репозиотрия с таким именем класса " + tasksRepositoryClass + " не существует");
+        }
+    }
+
+    @Override
+    public long size() {
+        return epicsRepository.size() + epicsRepository.storiesSize() + tasksRepository.size();
+    }
+
+    @Override
+    public NavigableSet<AbstractTask> findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return Timeline.between(tasksSortedByStartTime, from, to);
+    }
+
+    @Override
+    public List<AbstractTask> nextTasksAfter(LocalDateTime time, int limit) {
+        return Timeline.next(tasksSortedByStartTime, time, limit);
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        return historyManager.getSessionHistory();
+    }
+
+    public List<AbstractTask> getPrioritizedTasks() {
+        return new ArrayList<>(tasksSortedByStartTime);
+    }
+
+    // Self-check of the prioritized list against the repositories, meant for a manager without writers running
+    public void checkPrioritizedList() {
+        Timeline.checkConsistency(tasksSortedByStartTime, tasksRepository.size() + epicsRepository.storiesSize());
+    }
+
+    public TasksRepository getTasksRepository() {
+        return tasksRepository;
+    }
+
+    public EpicsRepository getEpicsRepository() {
+        return epicsRepository;
+    }
+
+    public HistoryManager getHistoryManager() {
+        return historyManager;
+    }
+
+    // Tasks, stories and epics are handed out as copies taken under the stripe lock, so that they are not serialized
+    // while a writer changes them or the stories of an epic
+    private Task copyOf(Task task) {
+        final Lock lock = stripe(task.getId()).readLock();
+        lock.lock();
+        try {
+            return Task.createTask(task.getId(), task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A story is guarded by the stripe of its epic, which may change until the lock is taken
+    private Story copyOf(Story story) {
+        while (true) {
+            final long epicId = story.getEpic().getId();
+            final Lock lock = stripe(epicId).readLock();
+            lock.lock();
+            try {
+                if (story.getEpic().getId() != epicId) continue;
+                return Story.createStory(story.getId(), story);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Epic copyOf(Epic epic) {
+        final Lock lock = stripe(epic.getId()).readLock();
+        lock.lock();
+        try {
+            return epic.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Epic> copiesOf(Collection<Epic> epics) {
+        final List<Epic> copies = new ArrayList<>(epics.size());
+        for (Epic epic : epics) copies.add(copyOf(epic));
+        return copies;
+    }
+
+    private void addToTimeline(AbstractTask task) {
+        tasksSortedByStartTime.add(task);
+        timeSlotIndex.add(task);
+    }
+
+    private void removeFromTimeline(AbstractTask task) {
+        timelineLock.lock();
+        try {
+            tasksSortedByStartTime.remove(task);
+            timeSlotIndex.remove(task.getId());
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    private ReadWriteLock stripe(long id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private int stripeIndex(long id) {
+        final long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (stripes.length - 1);
+    }
+
+    private List<Lock> lockEpics(long firstEpicId, long secondEpicId) {
+        final int first = stripeIndex(firstEpicId);
+        final int second = stripeIndex(secondEpicId);
+        final List<Lock> locks = new ArrayList<>(2);
+        locks.add(stripes[Math.min(first, second)].writeLock());
+        if (first != second) locks.add(stripes[Math.max(first, second)].writeLock());
+        for (Lock lock : locks) lock.lock();
+        return locks;
+    }
+
+    private List<Lock> lockAllStripes() {
+        final List<Lock> locks = new ArrayList<>(stripes.length);
+        for (ReadWriteLock stripe : stripes) {
+            final Lock lock = stripe.writeLock();
+            lock.lock();
+            locks.add(lock);
+        }
+        return locks;
+    }
+
+    private static void unlock(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+    }
+}
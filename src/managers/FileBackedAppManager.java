@@ -2,6 +2,15 @@ package managers;
 
 import exceptions.ManagerSaveException;
 import managers.history.HistoryManager;
+import managers.history.InMemoryHistoryManager;
+import managers.persistence.BinarySnapshot;
+import managers.persistence.CsvSnapshotReader;
+import managers.persistence.CsvTokenizer;
+import managers.persistence.DurabilityMode;
+import managers.persistence.FlushStatistics;
+import managers.persistence.HistoryFile;
+import managers.persistence.SnapshotFormat;
+import managers.persistence.TaskJournal;
 import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.tasks.AbstractTask;
@@ -13,88 +22,516 @@ import repositories.tasks.CombinedTasksRepository;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 
 import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
-public class FileBackedAppManager extends InMemoryAppManager {
+public class FileBackedAppManager extends InMemoryAppManager implements AutoCloseable {
+    private static final String HEADER = "id,type,name,status,description,duration,startTime,epic";
+    private static final TypeTask[] TYPES = TypeTask.values();
+    private static final StateTask[] STATES = StateTask.values();
+    private static final TaskJournal.Operation[] OPERATIONS = TaskJournal.Operation.values();
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    public static final Duration DEFAULT_HISTORY_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
     private final Path path;
+    private final TaskJournal journal;
+    private final int compactionThreshold;
+    private final HistoryFile historyFile;
+    private final long historyFlushIntervalNanos;
+    private final DurabilityMode durabilityMode;
+    private final SnapshotFormat snapshotFormat;
+    private final FlushStatistics flushStatistics = new FlushStatistics();
+    private final ScheduledExecutorService flusher;
+    private final CsvTokenizer tokenizer = new CsvTokenizer();
     private CombinedTasksRepository combinedTasksRepository;
+    private boolean loading;
+    private boolean historyDirty;
+    private long lastHistoryFlush;
+    private int pendingOperations;
+    private long firstPendingOperation;
+
+    public static class Builder {
+        private final Path path;
+        private boolean journaled;
+        private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        private Duration historyFlushInterval = DEFAULT_HISTORY_FLUSH_INTERVAL;
+        private DurabilityMode durabilityMode = DurabilityMode.sync();
+        private SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+        private HistoryManager historyManager;
+
+        public Builder(Path path) {
+            this.path = Objects.requireNonNull(path, "path must not be null");
+        }
+
+        // For subclasses that keep their data elsewhere and override every hook that touches the file
+        protected Builder() {
+            this.path = null;
+        }
+
+        public Builder journaled() {
+            this.journaled = true;
+            return this;
+        }
+
+        public Builder journaled(int compactionThreshold) {
+            if (compactionThreshold < 1) {
+                throw new IllegalArgumentException("Порог компактификации журнала должен быть положительным");
+            }
+            this.compactionThreshold = compactionThreshold;
+            return journaled();
+        }
+
+        public Builder historyFlushInterval(Duration historyFlushInterval) {
+            this.historyFlushInterval = Objects.requireNonNull(historyFlushInterval,
+                    "historyFlushInterval must not be null");
+            return this;
+        }
+
+        public Builder durability(DurabilityMode durabilityMode) {
+            this.durabilityMode = Objects.requireNonNull(durabilityMode, "durabilityMode must not be null");
+            return this;
+        }
+
+        // The format of the written snapshots, a snapshot of the other format is still loaded
+        public Builder format(SnapshotFormat snapshotFormat) {
+            this.snapshotFormat = Objects.requireNonNull(snapshotFormat, "snapshotFormat must not be null");
+            return this;
+        }
+
+        // The history of the views, for example a BoundedHistoryManager to keep the history line short
+        public Builder historyManager(HistoryManager historyManager) {
+            this.historyManager = Objects.requireNonNull(historyManager, "historyManager must not be null");
+            return this;
+        }
 
-    private FileBackedAppManager(Path path) {
-        super();
-        this.path = path;
+        public FileBackedAppManager build() {
+            final FileBackedAppManager fileBackedAppManager = new FileBackedAppManager(this);
+            fileBackedAppManager.start();
+            return fileBackedAppManager;
+        }
+    }
+
+    protected FileBackedAppManager(Builder builder) {
+        super(builder.historyManager == null ? new InMemoryHistoryManager() : builder.historyManager);
+        if (builder.journaled && builder.path == null) {
+            throw new IllegalArgumentException("Журнал можно вести только рядом с файлом данных");
+        }
+        this.path = builder.path;
+        this.journal = builder.journaled ? new TaskJournal(journalPath(builder.path)) : null;
+        this.compactionThreshold = builder.compactionThreshold;
+        this.historyFile = builder.path == null ? null : new HistoryFile(historyPath(builder.path));
+        this.historyFlushIntervalNanos = builder.historyFlushInterval.toNanos();
+        this.lastHistoryFlush = System.nanoTime() - historyFlushIntervalNanos;
+        this.durabilityMode = builder.durabilityMode;
+        this.snapshotFormat = builder.snapshotFormat;
+        this.flusher = durabilityMode.isSync() ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "file-backed-flusher-"
+                    + (builder.path == null ? getClass().getSimpleName() : builder.path.getFileName()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder(Path path) {
+        return new Builder(path);
     }
 
     public static FileBackedAppManager getInstance(Path path) {
-        final FileBackedAppManager fileBackedAppManager = new FileBackedAppManager(path);
-        fileBackedAppManager.load();
-        return fileBackedAppManager;
+        return builder(path).build();
+    }
+
+    // Rewrites the snapshot at source, together with its journal and history, to target in the given format
+    public static void convert(Path source, Path target, SnapshotFormat snapshotFormat) {
+        if (Files.notExists(source)) throw new IllegalArgumentException("Файл " + source + " не найден");
+        final Builder builder = builder(source);
+        if (Files.exists(journalPath(source))) builder.journaled();
+        try (FileBackedAppManager fileBackedAppManager = builder.build()) {
+            fileBackedAppManager.writeSnapshot(target, snapshotFormat);
+        }
+    }
+
+    public static Path journalPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".log");
+    }
+
+    public static Path historyPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".history");
+    }
+
+    public synchronized void save() {
+        writeSnapshot();
+        // The snapshot already contains every journaled mutation and the current history
+        if (journal != null) journal.reset();
+        historyDirty = false;
+        pendingOperations = 0;
     }
 
-    public void save() {
-        final String HEADER = "id,type,name,status,description,duration,startTime,epic";
+    // Writes all data and the history to the storage
+    protected void writeSnapshot() {
+        writeSnapshot(path, snapshotFormat);
+        historyFile.delete();
+    }
+
+    private void writeSnapshot(Path path, SnapshotFormat snapshotFormat) {
         combinedTasksRepository = CombinedTasksRepository.getInstance(getEpicsRepository(), getTasksRepository());
-        try (BufferedWriter fileWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+        final Path snapshotPath = path.resolveSibling(path.getFileName() + ".tmp");
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            BinarySnapshot.write(snapshotPath, combinedTasksRepository.getAbstractTasks().values(),
+                    historyManager.getHistory());
+        } else {
+            writeCsv(snapshotPath);
+        }
+        try {
+            Files.move(snapshotPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время автосохранения!");
+        }
+    }
+
+    private void writeCsv(Path snapshotPath) {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter fileWriter = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
             fileWriter.write(HEADER);
             fileWriter.write(System.lineSeparator());
             LinkedHashMap<Long, AbstractTask> tasks = combinedTasksRepository.getAbstractTasks();
             for (Map.Entry<Long, AbstractTask> task : tasks.entrySet()) {
                 fileWriter.write(taskToString(task.getValue()));
+                fileWriter.write(System.lineSeparator());
             }
             fileWriter.write(System.lineSeparator());
             fileWriter.write(toString(super.historyManager));
+            fileWriter.flush();
+            channel.force(false);
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка во время автосохранения!");
         }
     }
 
+    public synchronized void flush() {
+        if (pendingOperations > 0) {
+            final int batchSize = pendingOperations;
+            final long start = System.nanoTime();
+            if (journal == null || journal.size() >= compactionThreshold) {
+                save();
+            } else {
+                journal.sync();
+                pendingOperations = 0;
+            }
+            flushStatistics.record(batchSize, System.nanoTime() - start);
+        }
+        flushHistory();
+    }
+
+    public synchronized void flushHistory() {
+        if (!historyDirty) return;
+        writeHistory();
+        historyDirty = false;
+        lastHistoryFlush = System.nanoTime();
+    }
+
+    // Writes only the history, the data in the storage stays as it is
+    protected void writeHistory() {
+        historyFile.write(historyManager.getHistory());
+    }
+
+    // Returns the history saved separately from the snapshot or null if there is none
+    protected String readHistory() {
+        return historyFile.read();
+    }
+
+    protected boolean isHistoryDirty() {
+        return historyDirty;
+    }
+
+    // Called for every persisted mutation with the type of the changed tasks
+    protected void dataChanged(TypeTask typeTask) {
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) flusher.shutdown();
+        synchronized (this) {
+            flush();
+            if (journal != null) journal.close();
+        }
+    }
+
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public FlushStatistics getFlushStatistics() {
+        return flushStatistics;
+    }
+
+    protected void start() {
+        load();
+        startFlusher();
+    }
+
+    private void startFlusher() {
+        if (flusher == null) return;
+        final long period = durabilityMode.getMaxDelay().toNanos();
+        flusher.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void flushExpired() {
+        try {
+            final long now = System.nanoTime();
+            if (pendingOperations > 0 && (durabilityMode.isWriteBehind()
+                    || now - firstPendingOperation >= durabilityMode.getMaxDelay().toNanos())) {
+                flush();
+            } else if (historyDirty && now - lastHistoryFlush >= historyFlushIntervalNanos) {
+                flushHistory();
+            }
+        } catch (RuntimeException e) {
+            // The operations stay pending and the next flush retries them
+            flushStatistics.recordFailure(e);
+        }
+    }
+
     private void clearData() {
         clearRepositories();
         clearHistory();
-        tasksSortedByStartTime.clear();
+        clearPrioritizedList();
     }
 
-    public void load() {
-        clearData();
-        List<String> lines;
+    public synchronized void load() {
+        flush();
+        loading = true;
         try {
-            if (Files.notExists(path)) Files.createFile(path);
-            lines = Files.readAllLines(path);
+            clearData();
+            readSnapshot();
+            if (journal != null) journal.replay(this::applyRecord);
+            loadHistory();
+        } finally {
+            loading = false;
+        }
+    }
+
+    // Restores the data and the history from the snapshot in the storage
+    protected void readSnapshot() {
+        try {
+            if (Files.notExists(path)) {
+                Files.createFile(path);
+                // Sidecar files are only meaningful on top of the snapshot they were written for
+                historyFile.delete();
+                if (journal != null) journal.reset();
+            }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка во время загрузки файлы!");
         }
 
-        if (lines.size() > 1) {
-            HashMap<Long, AbstractTask> newAbstractTasksByOldIds = new HashMap<>();
-            for (int i = 1; i < lines.size() - 1; i++) {
-                final String line = lines.get(i);
-                if (line.isBlank()) break;
-                final AbstractTask abstractTask = taskFromString(line, newAbstractTasksByOldIds);
-                final Long abstractTaskId = abstractTask.getId();
-                newAbstractTasksByOldIds.put(abstractTaskId, abstractTask);
-                final TypeTask typeTask = abstractTask.getTypeTask();
-                if (typeTask.isEpic()) {
-                    newAbstractTasksByOldIds.put(abstractTaskId, super.addEpic((Epic) abstractTask));
-                } else if (typeTask.isStory()) {
-                    newAbstractTasksByOldIds.put(abstractTaskId, super.addStory((Story) abstractTask));
-                } else {
-                    newAbstractTasksByOldIds.put(abstractTaskId, super.addTask((Task) abstractTask));
-                }
+        // Stories are parsed against placeholders of their epics and linked to the real ones by restoreAll
+        final Map<Long, Epic> epics = new ConcurrentHashMap<>();
+        final LongFunction<Epic> epicFinder = epicId -> epics.computeIfAbsent(epicId, id -> Epic.createEpic(id, ""));
+
+        if (BinarySnapshot.isBinary(path)) {
+            final List<AbstractTask> abstractTasks = new ArrayList<>();
+            final long[] history = BinarySnapshot.read(path, epicFinder, abstractTasks::add);
+            restoreAll(abstractTasks);
+            for (long id : history) {
+                addToHistory(id);
             }
+            return;
+        }
 
-            combinedTasksRepository = CombinedTasksRepository.getInstance(getEpicsRepository(), getTasksRepository());
+        final String historyLine;
+        try (CsvSnapshotReader reader = new CsvSnapshotReader(path)) {
+            restoreAll(reader.parseRecords(fields -> taskFromFields(fields, epicFinder)));
+            historyLine = reader.history();
+        }
+        if (historyLine != null && !historyLine.isBlank()) {
+            historyFromString(historyLine);
+        }
+    }
+
+    private void loadHistory() {
+        final String historyLine = readHistory();
+        if (historyLine != null) {
+            clearHistory();
+            if (!historyLine.isBlank()) historyFromString(historyLine);
+        }
+    }
+
+    protected void restore(AbstractTask abstractTask) {
+        final TypeTask typeTask = abstractTask.getTypeTask();
+        if (typeTask.isEpic()) {
+            restoreEpic((Epic) abstractTask);
+        } else if (typeTask.isStory()) {
+            restoreStory((Story) abstractTask);
+        } else {
+            restoreTask((Task) abstractTask);
+        }
+    }
+
+    // Replay is idempotent, as a crash between the move of a new snapshot into place and the reset of the journal
+    // leaves a journal that the snapshot already contains. Records carry whole tasks, so a record overwrites the task
+    // with its id or restores it, and deleting a missing task is skipped
+    private void applyRecord(String record) {
+        final CsvTokenizer fields = tokenizer.reset(record);
+        switch (fields.nextEnum(OPERATIONS)) {
+            case ADD:
+            case UPDATE:
+                applyUpdate(taskFromFields(fields, this::findOrPlaceholderEpic));
+                break;
+            case DELETE:
+                applyDelete(fields.nextEnum(TYPES), fields.nextLong());
+                break;
+            case DELETE_ALL:
+                final TypeTask typeTask = fields.nextEnum(TYPES);
+                applyDeleteAll(typeTask, fields.hasNext() ? fields.nextLong() : 0);
+                break;
+        }
+    }
+
+    private void applyUpdate(AbstractTask abstractTask) {
+        final TypeTask typeTask = abstractTask.getTypeTask();
+        if (typeTask.isEpic()) {
+            replaceEpic((Epic) abstractTask);
+        } else if (typeTask.isStory()) {
+            replaceStory((Story) abstractTask);
+        } else {
+            replaceTask((Task) abstractTask);
+        }
+    }
 
-            String historyLine = lines.get(lines.size() - 1);
-            if (!historyLine.isBlank()) {
-                historyFromString(historyLine, newAbstractTasksByOldIds);
+    private void applyDelete(TypeTask typeTask, long id) {
+        if (typeTask.isEpic()) {
+            if (epicsRepository.find(id) != null) super.deleteEpic(id);
+        } else if (typeTask.isStory()) {
+            if (epicsRepository.findStory(id) != null) super.deleteStory(id);
+        } else {
+            if (tasksRepository.find(id) != null) super.deleteTask(id);
+        }
+    }
+
+    private void applyDeleteAll(TypeTask typeTask, long epicId) {
+        if (typeTask.isEpic()) {
+            super.deleteAllEpics();
+        } else if (typeTask.isStory()) {
+            final Epic epic = epicsRepository.find(epicId);
+            if (epic != null) super.deleteAllStories(epic);
+        } else {
+            super.deleteAllTasks();
+        }
+    }
+
+    // A story of an epic deleted later in the journal refers to a placeholder and is skipped by replaceStory
+    private Epic findOrPlaceholderEpic(long epicId) {
+        final Epic epic = epicsRepository.find(epicId);
+        return epic == null ? Epic.createEpic(epicId, "") : epic;
+    }
+
+    private AbstractTask findAbstractTask(long id) {
+        AbstractTask abstractTask = tasksRepository.find(id);
+        if (abstractTask == null) abstractTask = epicsRepository.find(id);
+        if (abstractTask == null) abstractTask = epicsRepository.findStory(id);
+        return abstractTask;
+    }
+
+    private void persist(TaskJournal.Operation operation, AbstractTask abstractTask) {
+        if (loading) return;
+        journal(operation, taskToString(abstractTask));
+        dataChanged(abstractTask.getTypeTask());
+        operationsPersisted(1);
+    }
+
+    // A batch is journaled record by record but flushed at most once
+    private void persist(TaskJournal.Operation operation, Collection<? extends AbstractTask> abstractTasks) {
+        if (loading || abstractTasks.isEmpty()) return;
+        for (AbstractTask abstractTask : abstractTasks) {
+            journal(operation, taskToString(abstractTask));
+            dataChanged(abstractTask.getTypeTask());
+        }
+        operationsPersisted(abstractTasks.size());
+    }
+
+    private void persist(TaskJournal.Operation operation, TypeTask typeTask, long id) {
+        if (loading) return;
+        journal(operation, typeTask + "," + id);
+        dataChanged(typeTask);
+        operationsPersisted(1);
+    }
+
+    private void persist(TaskJournal.Operation operation, TypeTask typeTask, Collection<Long> ids) {
+        if (loading || ids.isEmpty()) return;
+        for (long id : ids) journal(operation, typeTask + "," + id);
+        dataChanged(typeTask);
+        operationsPersisted(ids.size());
+    }
+
+    private void persist(TaskJournal.Operation operation, TypeTask typeTask) {
+        if (loading) return;
+        journal(operation, typeTask.toString());
+        dataChanged(typeTask);
+        operationsPersisted(1);
+    }
+
+    // An epic record carries no stories and keeps the stored ones on replay, so the stories that the update put
+    // into the epics or dropped from them get records of their own. The whole update is flushed at most once
+    private void persistEpicUpdates(List<Epic> epics, Map<Long, Story> previousStories) {
+        if (loading || epics.isEmpty()) return;
+        int operations = 0;
+        for (Epic epic : epics) {
+            journal(TaskJournal.Operation.UPDATE, taskToString(epic));
+            operations++;
+            for (Story story : epic.getStories()) {
+                if (previousStories.remove(story.getId()) == story) continue;
+                journal(TaskJournal.Operation.UPDATE, taskToString(story));
+                operations++;
             }
         }
+        for (long id : previousStories.keySet()) {
+            journal(TaskJournal.Operation.DELETE, TypeTask.STORY + "," + id);
+            operations++;
+        }
+        dataChanged(TypeTask.EPIC);
+        operationsPersisted(operations);
+    }
+
+    private void putStories(long epicId, Map<Long, Story> stories) {
+        final Epic epic = epicsRepository.find(epicId);
+        if (epic == null) return;
+        for (Story story : epic.getStories()) stories.put(story.getId(), story);
+    }
+
+    private void journal(TaskJournal.Operation operation, String payload) {
+        if (journal != null) journal.append(operation, payload);
+    }
+
+    private void operationsPersisted(int operations) {
+        if (pendingOperations == 0) firstPendingOperation = System.nanoTime();
+        pendingOperations += operations;
+        if (durabilityMode.isSync()
+                || durabilityMode.isGroupCommit() && pendingOperations >= durabilityMode.getMaxBatchSize()) {
+            flush();
+        }
+    }
+
+    private void historyChanged() {
+        historyDirty = true;
+        if (System.nanoTime() - lastHistoryFlush >= historyFlushIntervalNanos) flushHistory();
     }
 
     private void clearRepositories() {
@@ -108,115 +545,309 @@ public class FileBackedAppManager extends InMemoryAppManager {
     }
 
     @Override
-    public <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
-                                                          Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
+    public synchronized <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
+                                                                       Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
         super.createRepository(abstractTasks, tasksRepositoryClass);
         save();
     }
 
+    // The whole collections are copied under the monitor: handlers of a multi-threaded server serialize the result
+    // outside of it. Every epic finder, the pages and findEpic included, hands out copies with their stories, which the
+    // serializer walks
+    @Override
+    public synchronized Collection<Task> findAllTasks() {
+        return new ArrayList<>(super.findAllTasks());
+    }
+
+    @Override
+    public synchronized Collection<Epic> findAllEpics() {
+        return copiesOf(super.findAllEpics());
+    }
+
+    @Override
+    public synchronized Collection<Story> findAllStories(Epic epic) {
+        return new ArrayList<>(super.findAllStories(epic));
+    }
+
+    @Override
+    public synchronized Collection<Story> findAllStories(long epicId) {
+        return new ArrayList<>(super.findAllStories(epicId));
+    }
+
+    @Override
+    public synchronized List<AbstractTask> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public synchronized long size() {
+        return super.size();
+    }
+
+    private static List<Epic> copiesOf(Collection<Epic> epics) {
+        final List<Epic> copies = new ArrayList<>(epics.size());
+        for (Epic epic : epics) copies.add(epic.copy());
+        return copies;
+    }
+
+    // Pages are read under the same monitor as the changes of the id indexes
+    @Override
+    public synchronized List<Task> findTasks(int offset, int limit) {
+        return super.findTasks(offset, limit);
+    }
+
+    @Override
+    public synchronized List<Task> findTasksAfter(long cursor, int limit) {
+        return super.findTasksAfter(cursor, limit);
+    }
+
+    @Override
+    public synchronized List<Task> findTasks(StateTask stateTask, int offset, int limit) {
+        return super.findTasks(stateTask, offset, limit);
+    }
+
+    @Override
+    public synchronized List<Task> findTasksAfter(StateTask stateTask, long cursor, int limit) {
+        return super.findTasksAfter(stateTask, cursor, limit);
+    }
+
     @Override
-    public Task findTask(long id) {
+    public synchronized Task findTask(long id) {
         Task task = super.findTask(id);
-        save();
+        historyChanged();
         return task;
     }
 
     @Override
-    public Task addTask(Task task) {
+    public synchronized Task addTask(Task task) {
         Task result = super.addTask(task);
-        save();
+        if (result != null) persist(TaskJournal.Operation.ADD, result);
         return result;
     }
 
     @Override
-    public Task updateTask(long id, Task task) {
+    public synchronized Task updateTask(long id, Task task) {
         Task result = super.updateTask(id, task);
-        save();
+        if (result != null) persist(TaskJournal.Operation.UPDATE, result);
         return result;
     }
 
     @Override
-    public Task deleteTask(long id) {
+    public synchronized Task deleteTask(long id) {
         Task task = super.deleteTask(id);
-        save();
+        persist(TaskJournal.Operation.DELETE, TypeTask.TASK, id);
         return task;
     }
 
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        persist(TaskJournal.Operation.DELETE_ALL, TypeTask.TASK);
+    }
+
+    @Override
+    public synchronized List<Task> addTasks(Collection<Task> tasks) {
+        final List<Task> result = super.addTasks(tasks);
+        persist(TaskJournal.Operation.ADD, result);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Task> updateTasks(Collection<Task> tasks) {
+        final List<Task> result = super.updateTasks(tasks);
+        persist(TaskJournal.Operation.UPDATE, result);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Task> deleteTasks(Collection<Long> ids) {
+        final List<Task> result = super.deleteTasks(ids);
+        persist(TaskJournal.Operation.DELETE, TypeTask.TASK, ids);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Epic> findEpics(int offset, int limit) {
+        return copiesOf(super.findEpics(offset, limit));
+    }
+
+    @Override
+    public synchronized List<Epic> findEpicsAfter(long cursor, int limit) {
+        return copiesOf(super.findEpicsAfter(cursor, limit));
+    }
+
+    @Override
+    public synchronized List<Epic> findEpics(StateTask stateTask, int offset, int limit) {
+        return copiesOf(super.findEpics(stateTask, offset, limit));
+    }
+
+    @Override
+    public synchronized List<Epic> findEpicsAfter(StateTask stateTask, long cursor, int limit) {
+        return copiesOf(super.findEpicsAfter(stateTask, cursor, limit));
     }
 
     @Override
-    public Epic findEpic(long id) {
+    public synchronized Epic findEpic(long id) {
         Epic epic = super.findEpic(id);
-        save();
-        return epic;
+        historyChanged();
+        return epic.copy();
     }
 
     @Override
-    public Epic addEpic(Epic epic) {
+    public synchronized Epic addEpic(Epic epic) {
         Epic result = super.addEpic(epic);
-        save();
+        persist(TaskJournal.Operation.ADD, result);
         return result;
     }
 
     @Override
-    public Epic updateEpic(long id, Epic epic) {
+    public synchronized Epic updateEpic(long id, Epic epic) {
+        final Map<Long, Story> stories = new HashMap<>();
+        putStories(id, stories);
         Epic result = super.updateEpic(id, epic);
-        save();
+        persistEpicUpdates(List.of(result), stories);
         return result;
     }
 
     @Override
-    public Epic deleteEpic(long id) {
+    public synchronized Epic deleteEpic(long id) {
         Epic result = super.deleteEpic(id);
-        save();
+        persist(TaskJournal.Operation.DELETE, TypeTask.EPIC, id);
         return result;
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        persist(TaskJournal.Operation.DELETE_ALL, TypeTask.EPIC);
+    }
+
+    @Override
+    public synchronized List<Epic> addEpics(Collection<Epic> epics) {
+        final List<Epic> result = super.addEpics(epics);
+        persist(TaskJournal.Operation.ADD, result);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Epic> updateEpics(Collection<Epic> epics) {
+        final Map<Long, Story> stories = new HashMap<>();
+        for (Epic epic : epics) putStories(epic.getId(), stories);
+        final List<Epic> result = super.updateEpics(epics);
+        persistEpicUpdates(result, stories);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Epic> deleteEpics(Collection<Long> ids) {
+        final List<Epic> result = super.deleteEpics(ids);
+        persist(TaskJournal.Operation.DELETE, TypeTask.EPIC, ids);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Story> findStories(long epicId, int offset, int limit) {
+        return super.findStories(epicId, offset, limit);
     }
 
     @Override
-    public Story findStory(long id) {
+    public synchronized List<Story> findStoriesAfter(long epicId, long cursor, int limit) {
+        return super.findStoriesAfter(epicId, cursor, limit);
+    }
+
+    @Override
+    public synchronized List<Story> findStories(StateTask stateTask, int offset, int limit) {
+        return super.findStories(stateTask, offset, limit);
+    }
+
+    @Override
+    public synchronized List<Story> findStoriesAfter(StateTask stateTask, long cursor, int limit) {
+        return super.findStoriesAfter(stateTask, cursor, limit);
+    }
+
+    @Override
+    public synchronized List<Story> findStories(long epicId, StateTask stateTask, int offset, int limit) {
+        return super.findStories(epicId, stateTask, offset, limit);
+    }
+
+    @Override
+    public synchronized List<Story> findStoriesAfter(long epicId, StateTask stateTask, long cursor, int limit) {
+        return super.findStoriesAfter(epicId, stateTask, cursor, limit);
+    }
+
+    // Only the range is copied: handlers serialize the result outside of the monitor
+    @Override
+    public synchronized NavigableSet<AbstractTask> findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableNavigableSet(new TreeSet<>(super.findTasksBetween(from, to)));
+    }
+
+    @Override
+    public synchronized List<AbstractTask> nextTasksAfter(LocalDateTime time, int limit) {
+        return super.nextTasksAfter(time, limit);
+    }
+
+    // A view of the history must not leave the monitor
+    @Override
+    public synchronized List<AbstractTask> getHistory() {
+        return new ArrayList<>(super.getHistory());
+    }
+
+    @Override
+    public synchronized Story findStory(long id) {
         Story story = super.findStory(id);
-        save();
+        historyChanged();
         return story;
     }
 
     @Override
-    public Story addStory(Story story) {
+    public synchronized Story addStory(Story story) {
         Story result = super.addStory(story);
-        save();
+        if (result != null) persist(TaskJournal.Operation.ADD, result);
         return result;
     }
 
     @Override
-    public Story updateStory(long id, Story story) {
+    public synchronized Story updateStory(long id, Story story) {
         Story result = super.updateStory(id, story);
-        save();
+        if (result != null) persist(TaskJournal.Operation.UPDATE, result);
         return result;
     }
 
     @Override
-    public Story deleteStory(long id) {
+    public synchronized Story deleteStory(long id) {
         Story result = super.deleteStory(id);
-        save();
+        persist(TaskJournal.Operation.DELETE, TypeTask.STORY, id);
         return result;
     }
 
     @Override
-    public void deleteAllStories(Epic epic) {
+    public synchronized void deleteAllStories(Epic epic) {
         super.deleteAllStories(epic);
-        save();
+        persist(TaskJournal.Operation.DELETE_ALL, TypeTask.STORY, epic.getId());
+    }
+
+    @Override
+    public synchronized List<Story> addStories(Collection<Story> stories) {
+        final List<Story> result = super.addStories(stories);
+        persist(TaskJournal.Operation.ADD, result);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Story> updateStories(Collection<Story> stories) {
+        final List<Story> result = super.updateStories(stories);
+        persist(TaskJournal.Operation.UPDATE, result);
+        return result;
+    }
+
+    @Override
+    public synchronized List<Story> deleteStories(Collection<Long> ids) {
+        final List<Story> result = super.deleteStories(ids);
+        persist(TaskJournal.Operation.DELETE, TypeTask.STORY, ids);
+        return result;
     }
 
-    private String toString(HistoryManager historyManager) {
+    protected String toString(HistoryManager historyManager) {
         StringBuilder sb = new StringBuilder();
 
         if (!historyManager.getHistory().isEmpty()) {
@@ -228,19 +859,22 @@ public class FileBackedAppManager extends InMemoryAppManager {
         return sb.toString();
     }
 
-    private List<AbstractTask> historyFromString(String value, HashMap<Long, AbstractTask> newAbstractTasksByOldIds) {
-        String[] ids = value.split(",");
-        if (ids.length != 0) {
-            for (String id : ids) {
-                super.historyManager.add(newAbstractTasksByOldIds.get(Long.parseLong(id)));
-            }
+    private List<AbstractTask> historyFromString(String value) {
+        final CsvTokenizer ids = tokenizer.reset(value);
+        while (ids.hasNext()) {
+            addToHistory(ids.nextLong());
         }
 
         return super.historyManager.getHistory();
     }
 
+    private void addToHistory(long id) {
+        final AbstractTask abstractTask = findAbstractTask(id);
+        if (abstractTask != null) super.historyManager.add(abstractTask);
+    }
+
 
-    private String taskToString(AbstractTask abstractTask) {
+    protected String taskToString(AbstractTask abstractTask) {
         StringBuilder sb = new StringBuilder();
         TypeTask typeTask;
         sb.append(abstractTask.getId())
@@ -266,40 +900,31 @@ public class FileBackedAppManager extends InMemoryAppManager {
             Story story = (Story) abstractTask;
             sb.append(story.getEpic().getId());
         }
-        return sb.append(System.lineSeparator()).toString();
+        return sb.toString();
     }
 
-    private AbstractTask taskFromString(String value, HashMap<Long, AbstractTask> newAbstractTasksByOldIds) {
-        String[] split = value.trim().split(",", 8);
-
-        if (split.length > 8 || split.length < 4) throw new IllegalArgumentException();
+    protected AbstractTask taskFromString(String value) {
+        return taskFromFields(tokenizer.reset(value), epicsRepository::find);
+    }
 
-        long id = Long.parseLong(split[0]);
-        TypeTask typeTask = TypeTask.valueOf(split[1]);
-        String name = split[2];
-        StateTask stateTask = StateTask.valueOf(split[3]);
-        String description = split[4];
-        String duration = split[5];
-        String startTime = split[6];
+    private static AbstractTask taskFromFields(CsvTokenizer fields, LongFunction<Epic> epics) {
+        final long id = fields.nextLong();
+        final TypeTask typeTask = fields.nextEnum(TYPES);
+        final String name = fields.nextString();
+        final StateTask stateTask = fields.nextEnum(STATES);
+        final String description = fields.nextString();
+        final Duration duration = fields.nextDuration();
+        final LocalDateTime startTime = fields.nextLocalDateTime();
 
         if (typeTask.isEpic()) {
-            return Epic.createEpic(id, name, stateTask, description,
-                    duration.isEmpty() ? null : Duration.parse(duration),
-                    startTime.isEmpty() ? null : LocalDateTime.parse(startTime, ISO_LOCAL_DATE_TIME));
+            return Epic.createEpic(id, name, stateTask, description, duration, startTime);
         }
 
         if (typeTask.isStory()) {
-            long epicId = Long.parseLong(split[7]);
-            return Story.createStory(id, name, description,
-                    super.findEpic(newAbstractTasksByOldIds.get(epicId).getId()),
-                    stateTask,
-                    duration.isEmpty() ? null : Duration.parse(duration),
-                    startTime.isEmpty() ? null : LocalDateTime.parse(startTime, ISO_LOCAL_DATE_TIME));
+            return Story.createStory(id, name, description, epics.apply(fields.nextLong()), stateTask,
+                    duration, startTime);
         }
 
-        return Task.createTask(id, name, description, stateTask,
-                duration.isEmpty() ? null : Duration.parse(duration),
-                startTime.isEmpty() ? null : LocalDateTime.parse(startTime, ISO_LOCAL_DATE_TIME));
+        return Task.createTask(id, name, description, stateTask, duration, startTime);
     }
 }
-
@@ -0,0 +1,159 @@
+package managers;
+
+import managers.history.HistoryManager;
+import managers.persistence.DurabilityMode;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import repositories.tasks.AbstractTasksRepository;
+import repositories.tasks.EpicsRepository;
+import web.kv.KVTaskClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+
+// Keeps tasks, epics, stories and the history under separate keys of KVServer and uploads only the changed ones
+public class HttpTaskManager extends FileBackedAppManager {
+    public static final String TASKS_KEY = "tasks";
+    public static final String EPICS_KEY = "epics";
+    public static final String STORIES_KEY = "stories";
+    public static final String HISTORY_KEY = "history";
+
+    private final KVTaskClient client;
+    private final Set<TypeTask> changedTypes = EnumSet.noneOf(TypeTask.class);
+
+    public static class Builder {
+        private final URI kvServerUrl;
+        private KVTaskClient client;
+        private DurabilityMode durabilityMode = DurabilityMode.sync();
+        private Duration historyFlushInterval = DEFAULT_HISTORY_FLUSH_INTERVAL;
+        private HistoryManager historyManager;
+
+        public Builder(URI kvServerUrl) {
+            this.kvServerUrl = Objects.requireNonNull(kvServerUrl, "kvServerUrl must not be null");
+        }
+
+        public Builder client(KVTaskClient client) {
+            this.client = Objects.requireNonNull(client, "client must not be null");
+            return this;
+        }
+
+        public Builder durability(DurabilityMode durabilityMode) {
+            this.durabilityMode = Objects.requireNonNull(durabilityMode, "durabilityMode must not be null");
+            return this;
+        }
+
+        public Builder historyFlushInterval(Duration historyFlushInterval) {
+            this.historyFlushInterval = Objects.requireNonNull(historyFlushInterval,
+                    "historyFlushInterval must not be null");
+            return this;
+        }
+
+        public Builder historyManager(HistoryManager historyManager) {
+            this.historyManager = Objects.requireNonNull(historyManager, "historyManager must not be null");
+            return this;
+        }
+
+        public HttpTaskManager build() {
+            final HttpTaskManager httpTaskManager = new HttpTaskManager(this);
+            httpTaskManager.start();
+            return httpTaskManager;
+        }
+    }
+
+    private static class StorageBuilder extends FileBackedAppManager.Builder {
+        private StorageBuilder(Builder builder) {
+            super();
+            durability(builder.durabilityMode);
+            historyFlushInterval(builder.historyFlushInterval);
+            if (builder.historyManager != null) historyManager(builder.historyManager);
+        }
+    }
+
+    protected HttpTaskManager(Builder builder) {
+        super(new StorageBuilder(builder));
+        this.client = builder.client == null ? new KVTaskClient(builder.kvServerUrl) : builder.client;
+    }
+
+    public static Builder builder(URI kvServerUrl) {
+        return new Builder(kvServerUrl);
+    }
+
+    public static HttpTaskManager getInstance(URI kvServerUrl) {
+        return builder(kvServerUrl).build();
+    }
+
+    public KVTaskClient getClient() {
+        return client;
+    }
+
+    @Override
+    public synchronized <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
+                                                                       Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
+        // The repository is replaced even when the collection is empty
+        dataChanged(EpicsRepository.class.equals(tasksRepositoryClass) ? TypeTask.EPIC : TypeTask.TASK);
+        super.createRepository(abstractTasks, tasksRepositoryClass);
+    }
+
+    @Override
+    protected void dataChanged(TypeTask typeTask) {
+        changedTypes.add(typeTask);
+        // Updating or deleting an epic may drop its stories
+        if (typeTask.isEpic()) changedTypes.add(TypeTask.STORY);
+    }
+
+    @Override
+    protected void writeSnapshot() {
+        final Map<String, String> values = new LinkedHashMap<>();
+        if (changedTypes.contains(TypeTask.EPIC)) values.put(EPICS_KEY, toLines(epicsRepository.findAll()));
+        if (changedTypes.contains(TypeTask.STORY)) {
+            final List<Story> stories = new ArrayList<>();
+            for (Epic epic : epicsRepository.findAll()) stories.addAll(epic.getStories());
+            values.put(STORIES_KEY, toLines(stories));
+        }
+        if (changedTypes.contains(TypeTask.TASK)) values.put(TASKS_KEY, toLines(tasksRepository.findAll()));
+        if (isHistoryDirty()) values.put(HISTORY_KEY, toString(historyManager));
+        client.putAll(values);
+        changedTypes.clear();
+    }
+
+    @Override
+    protected void readSnapshot() {
+        // Epics go first, stories are attached to them
+        final Map<String, String> values = client.loadAll(List.of(EPICS_KEY, STORIES_KEY, TASKS_KEY));
+        restoreAll(fromLines(values.get(EPICS_KEY)));
+        final List<AbstractTask> abstractTasks = fromLines(values.get(STORIES_KEY));
+        abstractTasks.addAll(fromLines(values.get(TASKS_KEY)));
+        restoreAll(abstractTasks);
+        changedTypes.clear();
+    }
+
+    @Override
+    protected void writeHistory() {
+        client.put(HISTORY_KEY, toString(historyManager));
+    }
+
+    @Override
+    protected String readHistory() {
+        return client.load(HISTORY_KEY);
+    }
+
+    private String toLines(Collection<? extends AbstractTask> abstractTasks) {
+        final StringBuilder sb = new StringBuilder();
+        for (AbstractTask abstractTask : abstractTasks) {
+            sb.append(taskToString(abstractTask)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private List<AbstractTask> fromLines(String value) {
+        final List<AbstractTask> abstractTasks = new ArrayList<>();
+        if (value == null) return abstractTasks;
+        for (String line : value.split("\n")) {
+            if (!line.isBlank()) abstractTasks.add(taskFromString(line));
+        }
+        return abstractTasks;
+    }
+}
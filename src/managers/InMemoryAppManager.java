@@ -1,15 +1,20 @@
 package managers;
 
+import exceptions.ManagerIntersectionException;
 import exceptions.ManagerWrongIdException;
+import managers.history.HistoryManager;
 import managers.history.InMemoryHistoryManager;
+import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
 import models.tasks.Story;
 import models.tasks.Task;
+import repositories.indexes.TimeSlotIndex;
 import repositories.tasks.AbstractTasksRepository;
 import repositories.tasks.EpicsRepository;
 import repositories.tasks.TasksRepository;
+import utils.collections.SortedBulkLoad;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -18,23 +23,49 @@ public class InMemoryAppManager implements AppManager {
 
     protected TasksRepository tasksRepository;
     protected EpicsRepository epicsRepository;
-    protected InMemoryHistoryManager historyManager;
+    protected HistoryManager historyManager;
     protected TreeSet<AbstractTask> tasksSortedByStartTime;
+    protected TimeSlotIndex timeSlotIndex;
 
     public InMemoryAppManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public InMemoryAppManager(HistoryManager historyManager) {
         tasksRepository = new TasksRepository();
         epicsRepository = new EpicsRepository();
-        historyManager = new InMemoryHistoryManager();
+        this.historyManager = Objects.requireNonNull(historyManager, "historyManager must not be null");
         tasksSortedByStartTime = new TreeSet<>(
                 Comparator.comparing(AbstractTask::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
                         .thenComparingLong(AbstractTask::getId)
         );
+        timeSlotIndex = new TimeSlotIndex();
     }
 
     public Collection<Task> findAllTasks() {
         return tasksRepository.findAll();
     }
 
+    @Override
+    public List<Task> findTasks(int offset, int limit) {
+        return tasksRepository.findPage(offset, limit);
+    }
+
+    @Override
+    public List<Task> findTasksAfter(long cursor, int limit) {
+        return tasksRepository.findPageAfter(cursor, limit);
+    }
+
+    @Override
+    public List<Task> findTasks(StateTask stateTask, int offset, int limit) {
+        return tasksRepository.findPage(stateTask, offset, limit);
+    }
+
+    @Override
+    public List<Task> findTasksAfter(StateTask stateTask, long cursor, int limit) {
+        return tasksRepository.findPageAfter(stateTask, cursor, limit);
+    }
+
     @Override
     public Task findTask(long id) {
         final Task task = tasksRepository.find(id);
@@ -45,17 +76,23 @@ public class InMemoryAppManager implements AppManager {
 
     @Override
     public Task addTask(Task task) {
-        if (checkIntersection(task)) return null;
-        final Task result = tasksRepository.add(task);
-        addToPrioritizedListTasks(result);
-        return result;
+        return insertTask(task);
     }
 
     @Override
     public Task updateTask(long id, Task task) {
-        if (checkIntersection(task)) return null;
+        final Task currentTask = tasksRepository.find(id);
+        if (currentTask == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+        // The task being updated must not collide with its own current slot
+        timeSlotIndex.remove(id);
+        if (checkIntersection(task)) {
+            timeSlotIndex.add(currentTask);
+            return null;
+        }
+        // The sort key changes, so the entry is taken out before the update and put back after it
+        tasksSortedByStartTime.remove(currentTask);
         final Task result = tasksRepository.update(id, task);
-        if (result == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+        addToPrioritizedListTasks(result);
         return result;
     }
 
@@ -64,7 +101,7 @@ public class InMemoryAppManager implements AppManager {
         final Task task = tasksRepository.delete(id);
         if (task == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
         historyManager.remove(id);
-        tasksSortedByStartTime.remove(task);
+        removeFromPrioritizedList(task);
         return task;
     }
 
@@ -72,16 +109,87 @@ public class InMemoryAppManager implements AppManager {
     public void deleteAllTasks() {
         for (Task task : tasksRepository.findAll()) {
             historyManager.remove(task.getId());
-            tasksSortedByStartTime.remove(task);
+            removeFromPrioritizedList(task);
         }
         tasksRepository.clear();
     }
 
+    @Override
+    public List<Task> addTasks(Collection<Task> tasks) {
+        if (timeSlotIndex.intersects(tasks)) throw new ManagerIntersectionException();
+        final List<Task> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            result.add(insertTask(task));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> updateTasks(Collection<Task> tasks) {
+        final List<Task> currentTasks = new ArrayList<>(tasks.size());
+        for (long id : Batches.idsOf(tasks)) {
+            final Task currentTask = tasksRepository.find(id);
+            if (currentTask == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+            currentTasks.add(currentTask);
+        }
+        // The updated tasks must not collide with their own current slots
+        for (Task currentTask : currentTasks) timeSlotIndex.remove(currentTask.getId());
+        if (timeSlotIndex.intersects(tasks)) {
+            for (Task currentTask : currentTasks) timeSlotIndex.add(currentTask);
+            throw new ManagerIntersectionException();
+        }
+        final List<Task> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            // The sort key changes, so the entry is taken out before the update and put back after it
+            tasksSortedByStartTime.remove(tasksRepository.find(task.getId()));
+            final Task updatedTask = tasksRepository.update(task.getId(), task);
+            addToPrioritizedListTasks(updatedTask);
+            result.add(updatedTask);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> deleteTasks(Collection<Long> ids) {
+        Batches.checkDistinct(ids);
+        for (long id : ids) {
+            if (tasksRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.TASK, id);
+        }
+        final List<Task> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            final Task task = tasksRepository.delete(id);
+            historyManager.remove(id);
+            removeFromPrioritizedList(task);
+            result.add(task);
+        }
+        return result;
+    }
+
     @Override
     public Collection<Epic> findAllEpics() {
         return epicsRepository.findAll();
     }
 
+    @Override
+    public List<Epic> findEpics(int offset, int limit) {
+        return epicsRepository.findPage(offset, limit);
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(long cursor, int limit) {
+        return epicsRepository.findPageAfter(cursor, limit);
+    }
+
+    @Override
+    public List<Epic> findEpics(StateTask stateTask, int offset, int limit) {
+        return epicsRepository.findPage(stateTask, offset, limit);
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(StateTask stateTask, long cursor, int limit) {
+        return epicsRepository.findPageAfter(stateTask, cursor, limit);
+    }
+
     @Override
     public Epic findEpic(long id) {
         Epic epic = epicsRepository.find(id);
@@ -97,9 +205,8 @@ public class InMemoryAppManager implements AppManager {
 
     @Override
     public Epic updateEpic(long id, Epic epic) {
-        final Epic result = epicsRepository.update(id, epic);
-        if (result == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
-        return result;
+        if (epicsRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+        return changeEpic(id, epic);
     }
 
     @Override
@@ -107,7 +214,8 @@ public class InMemoryAppManager implements AppManager {
         final Epic epic = epicsRepository.delete(id);
         if (epic == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
         for (Story story : epic.getStories()) {
-            deleteStory(story.getId());
+            historyManager.remove(story.getId());
+            removeFromPrioritizedList(story);
         }
         historyManager.remove(id);
         return epic;
@@ -118,13 +226,53 @@ public class InMemoryAppManager implements AppManager {
         for (Epic epic : epicsRepository.findAll()) {
             for (Story story : epic.getStories()) {
                 historyManager.remove(story.getId());
-                tasksSortedByStartTime.remove(story);
+                removeFromPrioritizedList(story);
             }
             historyManager.remove(epic.getId());
         }
         epicsRepository.clear();
     }
 
+    @Override
+    public List<Epic> addEpics(Collection<Epic> epics) {
+        final List<Epic> result = new ArrayList<>(epics.size());
+        for (Epic epic : epics) {
+            result.add(epicsRepository.add(epic));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Epic> updateEpics(Collection<Epic> epics) {
+        for (long id : Batches.idsOf(epics)) {
+            if (epicsRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+        }
+        final List<Epic> result = new ArrayList<>(epics.size());
+        for (Epic epic : epics) {
+            result.add(changeEpic(epic.getId(), epic));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Epic> deleteEpics(Collection<Long> ids) {
+        Batches.checkDistinct(ids);
+        for (long id : ids) {
+            if (epicsRepository.find(id) == null) throw new ManagerWrongIdException(TypeTask.EPIC, id);
+        }
+        final List<Epic> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            final Epic epic = epicsRepository.delete(id);
+            for (Story story : epic.getStories()) {
+                historyManager.remove(story.getId());
+                removeFromPrioritizedList(story);
+            }
+            historyManager.remove(id);
+            result.add(epic);
+        }
+        return result;
+    }
+
     @Override
     public Collection<Story> findAllStories(Epic epic) {
         return epicsRepository.findAllStories(epic);
@@ -135,6 +283,44 @@ public class InMemoryAppManager implements AppManager {
         return epicsRepository.find(epicId).getStories();
     }
 
+    @Override
+    public List<Story> findStories(long epicId, int offset, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPage(epicId, offset, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public List<Story> findStoriesAfter(long epicId, long cursor, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPageAfter(epicId, cursor, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public List<Story> findStories(StateTask stateTask, int offset, int limit) {
+        return epicsRepository.findStoriesPage(stateTask, offset, limit);
+    }
+
+    @Override
+    public List<Story> findStoriesAfter(StateTask stateTask, long cursor, int limit) {
+        return epicsRepository.findStoriesPageAfter(stateTask, cursor, limit);
+    }
+
+    @Override
+    public List<Story> findStories(long epicId, StateTask stateTask, int offset, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPage(epicId, stateTask, offset, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
+    @Override
+    public List<Story> findStoriesAfter(long epicId, StateTask stateTask, long cursor, int limit) {
+        final List<Story> stories = epicsRepository.findStoriesPageAfter(epicId, stateTask, cursor, limit);
+        if (stories == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        return stories;
+    }
+
     @Override
     public Story findStory(long id) {
         Story story = epicsRepository.findStory(id);
@@ -153,9 +339,21 @@ public class InMemoryAppManager implements AppManager {
 
     @Override
     public Story updateStory(long id, Story story) {
-        if (checkIntersection(story)) return null;
+        final Story currentStory = epicsRepository.findStory(id);
+        if (currentStory == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+        timeSlotIndex.remove(id);
+        if (checkIntersection(story)) {
+            timeSlotIndex.add(currentStory);
+            return null;
+        }
+        // A story moved to another epic is a new object, so the current one is taken out in any case
+        tasksSortedByStartTime.remove(currentStory);
         final Story result = epicsRepository.updateStory(id, story);
-        if (result == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+        if (result == null) {
+            addToPrioritizedListStories(currentStory);
+            throw new ManagerWrongIdException(TypeTask.EPIC, story.getEpic().getId());
+        }
+        addToPrioritizedListStories(result);
         return result;
     }
 
@@ -163,7 +361,7 @@ public class InMemoryAppManager implements AppManager {
     public Story deleteStory(long id) {
         final Story story = epicsRepository.deleteStory(id);
         if (story == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
-        tasksSortedByStartTime.remove(story);
+        removeFromPrioritizedList(story);
         historyManager.remove(id);
         return story;
     }
@@ -172,20 +370,79 @@ public class InMemoryAppManager implements AppManager {
     public void deleteAllStories(Epic epic) {
         for (Story story : epic.getStories()) {
             historyManager.remove(story.getId());
-            tasksSortedByStartTime.remove(story);
+            removeFromPrioritizedList(story);
         }
         epicsRepository.clearStories(epic);
     }
 
+    @Override
+    public List<Story> addStories(Collection<Story> stories) {
+        for (Story story : stories) {
+            final long epicId = story.getEpic().getId();
+            if (epicsRepository.find(epicId) == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        }
+        if (timeSlotIndex.intersects(stories)) throw new ManagerIntersectionException();
+        final List<Story> result = new ArrayList<>(stories.size());
+        for (Story story : stories) {
+            final Story addedStory = epicsRepository.addStory(story, epicsRepository.find(story.getEpic().getId()));
+            addToPrioritizedListStories(addedStory);
+            result.add(addedStory);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Story> updateStories(Collection<Story> stories) {
+        final List<Story> currentStories = new ArrayList<>(stories.size());
+        for (long id : Batches.idsOf(stories)) {
+            final Story currentStory = epicsRepository.findStory(id);
+            if (currentStory == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+            currentStories.add(currentStory);
+        }
+        for (Story story : stories) {
+            final long epicId = story.getEpic().getId();
+            if (epicsRepository.find(epicId) == null) throw new ManagerWrongIdException(TypeTask.EPIC, epicId);
+        }
+        for (Story currentStory : currentStories) timeSlotIndex.remove(currentStory.getId());
+        if (timeSlotIndex.intersects(stories)) {
+            for (Story currentStory : currentStories) timeSlotIndex.add(currentStory);
+            throw new ManagerIntersectionException();
+        }
+        final List<Story> result = new ArrayList<>(stories.size());
+        for (Story story : stories) {
+            tasksSortedByStartTime.remove(epicsRepository.findStory(story.getId()));
+            final Story updatedStory = epicsRepository.updateStory(story.getId(), story);
+            addToPrioritizedListStories(updatedStory);
+            result.add(updatedStory);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Story> deleteStories(Collection<Long> ids) {
+        Batches.checkDistinct(ids);
+        for (long id : ids) {
+            if (epicsRepository.findStory(id) == null) throw new ManagerWrongIdException(TypeTask.STORY, id);
+        }
+        final List<Story> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            final Story story = epicsRepository.deleteStory(id);
+            removeFromPrioritizedList(story);
+            historyManager.remove(id);
+            result.add(story);
+        }
+        return result;
+    }
+
     @Override
     public <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
                                                           Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
         if (EpicsRepository.class.equals(tasksRepositoryClass)) {
             epicsRepository = new EpicsRepository();
-            for (T epic : abstractTasks) addEpic((Epic) epic);
+            for (T epic : abstractTasks) epicsRepository.add((Epic) epic);
         } else if (TasksRepository.class.equals(tasksRepositoryClass)) {
             tasksRepository = new TasksRepository();
-            for (T task : abstractTasks) addTask((Task) task);
+            for (T task : abstractTasks) insertTask((Task) task);
         } else {
             throw new IllegalArgumentException("Репозиотрия с таким именем класса " + tasksRepositoryClass + " не существует");
         }
@@ -193,11 +450,22 @@ public class InMemoryAppManager implements AppManager {
 
     @Override
     public long size() {
-        long numberAllStories = 0;
-        for (Epic epic : epicsRepository.findAll()) {
-            numberAllStories += epic.getStories().size();
-        }
-        return epicsRepository.size() + numberAllStories + tasksRepository.size();
+        return epicsRepository.size() + epicsRepository.storiesSize() + tasksRepository.size();
+    }
+
+    @Override
+    public NavigableSet<AbstractTask> findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return Timeline.between(tasksSortedByStartTime, from, to);
+    }
+
+    @Override
+    public List<AbstractTask> nextTasksAfter(LocalDateTime time, int limit) {
+        return Timeline.next(tasksSortedByStartTime, time, limit);
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        return historyManager.getSessionHistory();
     }
 
     public List<AbstractTask> getPrioritizedTasks() {
@@ -205,38 +473,134 @@ public class InMemoryAppManager implements AppManager {
     }
 
 
+    void restoreTask(Task task) {
+        addToPrioritizedListTasks(tasksRepository.restore(task));
+    }
+
+    void restoreEpic(Epic epic) {
+        epicsRepository.restore(epic);
+    }
+
+    void restoreStory(Story story) {
+        final Story result = epicsRepository.restoreStory(story);
+        if (result != null) addToPrioritizedListStories(result);
+    }
+
+    // Puts a task in place of the current one with the same id, or restores it if there is none. The time slots are
+    // not checked: the change was checked when it was made
+    void replaceTask(Task task) {
+        final Task currentTask = tasksRepository.find(task.getId());
+        if (currentTask == null) {
+            restoreTask(task);
+            return;
+        }
+        removeFromPrioritizedList(currentTask);
+        addToPrioritizedListTasks(tasksRepository.update(task.getId(), task));
+    }
+
+    void replaceEpic(Epic epic) {
+        if (epicsRepository.find(epic.getId()) == null) {
+            restoreEpic(epic);
+        } else {
+            changeEpic(epic.getId(), epic);
+        }
+    }
+
+    // A story of a missing epic is skipped
+    void replaceStory(Story story) {
+        if (epicsRepository.find(story.getEpic().getId()) == null) return;
+        final Story currentStory = epicsRepository.findStory(story.getId());
+        if (currentStory == null) {
+            restoreStory(story);
+            return;
+        }
+        removeFromPrioritizedList(currentStory);
+        final Story result = epicsRepository.updateStory(story.getId(), story);
+        // An update within the epic keeps the state of the story
+        result.setStateTask(story.getStateTask());
+        addToPrioritizedListStories(result);
+    }
+
+    // Restores a whole snapshot with the original ids. Tasks and epics are put into the repositories first,
+    // then the stories are linked to their epics, and the prioritized list and the time slots are built
+    // from one sorted array
+    void restoreAll(List<AbstractTask> abstractTasks) {
+        final List<AbstractTask> prioritized = new ArrayList<>(abstractTasks.size());
+        final List<Epic> epics = new ArrayList<>();
+        final List<Task> tasks = new ArrayList<>();
+        for (AbstractTask abstractTask : abstractTasks) {
+            final TypeTask typeTask = abstractTask.getTypeTask();
+            if (typeTask.isEpic()) {
+                epics.add((Epic) abstractTask);
+            } else if (typeTask.isTask()) {
+                tasks.add((Task) abstractTask);
+            }
+        }
+        epicsRepository.restoreAll(epics);
+        tasksRepository.restoreAll(tasks);
+        prioritized.addAll(tasks);
+        for (AbstractTask abstractTask : abstractTasks) {
+            if (abstractTask.getTypeTask().isStory()) {
+                final Story story = epicsRepository.restoreStory((Story) abstractTask);
+                if (story != null) prioritized.add(story);
+            }
+        }
+
+        final AbstractTask[] sorted = prioritized.toArray(new AbstractTask[0]);
+        Arrays.parallelSort(sorted, tasksSortedByStartTime.comparator());
+        final List<AbstractTask> sortedList = Arrays.asList(sorted);
+        SortedBulkLoad.addAllSorted(tasksSortedByStartTime, sortedList);
+        timeSlotIndex.addAllSorted(sortedList);
+    }
+
+    // Self-check of the prioritized list against the repositories, throws IllegalStateException when it is broken
+    public void checkPrioritizedList() {
+        Timeline.checkConsistency(tasksSortedByStartTime, tasksRepository.size() + epicsRepository.storiesSize());
+    }
+
+    void clearPrioritizedList() {
+        tasksSortedByStartTime.clear();
+        timeSlotIndex.clear();
+    }
+
+    // Not overridable, so that createRepository and the batches do not persist every single task
+    private Task insertTask(Task task) {
+        if (checkIntersection(task)) return null;
+        final Task result = tasksRepository.add(task);
+        addToPrioritizedListTasks(result);
+        return result;
+    }
+
+    // Not overridable, so that updateEpics does not persist every single epic. Stories dropped or replaced by the
+    // update must not stay in the history and the prioritized list, the stories the epic holds now are put there anew
+    private Epic changeEpic(long id, Epic epic) {
+        final List<Story> stories = new ArrayList<>(epicsRepository.find(id).getStories());
+        for (Story story : stories) removeFromPrioritizedList(story);
+        final Epic result = epicsRepository.update(id, epic);
+        for (Story story : stories) {
+            if (result.getStory(story.getId()) != story) historyManager.remove(story.getId());
+        }
+        for (Story story : result.getStories()) addToPrioritizedListStories(story);
+        return result;
+    }
+
     private void addToPrioritizedListTasks(Task task) {
         tasksSortedByStartTime.add(task);
+        timeSlotIndex.add(task);
     }
 
     private void addToPrioritizedListStories(Story story) {
         tasksSortedByStartTime.add(story);
+        timeSlotIndex.add(story);
     }
 
-    private boolean checkIntersection(AbstractTask checkedTask) {
-        final TreeSet<AbstractTask> prioritizedTasks = tasksSortedByStartTime;
-        if (prioritizedTasks.size() > 0) {
-            final LocalDateTime startTimeCheckedTask = checkedTask.getStartTime();
-            final LocalDateTime endTimeCheckedTask = checkedTask.getEndTime();
-            if (startTimeCheckedTask != null) {
-                for (AbstractTask prioritizedTask : prioritizedTasks) {
-                    final LocalDateTime startTimePrioritizedTask = prioritizedTask.getStartTime();
-                    final LocalDateTime endTimePrioritizedTask = prioritizedTask.getEndTime();
-                    if (startTimePrioritizedTask != null && intersected(startTimeCheckedTask, endTimeCheckedTask,
-                            startTimePrioritizedTask, endTimePrioritizedTask)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    private void removeFromPrioritizedList(AbstractTask task) {
+        tasksSortedByStartTime.remove(task);
+        timeSlotIndex.remove(task.getId());
     }
 
-    private boolean intersected(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
-        if (start1.isAfter(start2) && start1.isBefore(end2)) {
-            return true;
-        }
-        return start2.isAfter(start1) && start2.isBefore(end1);
+    private boolean checkIntersection(AbstractTask checkedTask) {
+        return timeSlotIndex.intersects(checkedTask);
     }
 
     public TasksRepository getTasksRepository() {
@@ -247,7 +611,7 @@ public class InMemoryAppManager implements AppManager {
         return epicsRepository;
     }
 
-    public InMemoryHistoryManager getHistoryManager() {
+    public HistoryManager getHistoryManager() {
         return historyManager;
     }
 }
@@ -0,0 +1,67 @@
+package managers;
+
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+
+// Range queries over the tasks and stories sorted by start time and then by id.
+// A probe with the smallest id goes before every task with the same start time, a probe without a start time
+// goes before the tasks that are not on the timeline
+final class Timeline {
+    private static final AbstractTask END = probe(null);
+
+    private Timeline() {
+    }
+
+    // Tasks starting within [from, to), a null bound leaves the range open
+    static NavigableSet<AbstractTask> between(NavigableSet<AbstractTask> sorted, LocalDateTime from, LocalDateTime to) {
+        final AbstractTask upper = to == null ? END : probe(to);
+        final NavigableSet<AbstractTask> range = from == null ? sorted.headSet(upper, false)
+                : sorted.subSet(probe(from), true, upper, false);
+        return Collections.unmodifiableNavigableSet(range);
+    }
+
+    // The first tasks starting not earlier than the time
+    static List<AbstractTask> next(NavigableSet<AbstractTask> sorted, LocalDateTime time, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Размер страницы должен быть больше нуля: " + limit);
+        final List<AbstractTask> result = new ArrayList<>(Math.min(limit, 64));
+        for (AbstractTask abstractTask : between(sorted, time, null)) {
+            if (result.size() == limit) break;
+            result.add(abstractTask);
+        }
+        return result;
+    }
+
+    // Checks that every task is in order and can be found by its own key. A task whose start time was changed
+    // while it was in the set breaks one of the two
+    static void checkConsistency(NavigableSet<AbstractTask> sorted, int expectedSize) {
+        final Comparator<? super AbstractTask> comparator = sorted.comparator();
+        AbstractTask previous = null;
+        int size = 0;
+        for (AbstractTask abstractTask : sorted) {
+            if (previous != null && comparator.compare(previous, abstractTask) >= 0) {
+                throw new IllegalStateException("Нарушен порядок задач по времени начала: " + previous.getId()
+                        + " и " + abstractTask.getId());
+            }
+            if (!sorted.contains(abstractTask)) {
+                throw new IllegalStateException("Задача не находится по времени начала: " + abstractTask.getId());
+            }
+            previous = abstractTask;
+            size++;
+        }
+        if (size != expectedSize) {
+            throw new IllegalStateException("В списке по времени начала " + size + " задач вместо " + expectedSize);
+        }
+    }
+
+    private static AbstractTask probe(LocalDateTime startTime) {
+        return Task.createTask(Long.MIN_VALUE, "", "", StateTask.NEW, null, startTime);
+    }
+}
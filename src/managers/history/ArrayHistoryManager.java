@@ -0,0 +1,156 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+import utils.collections.LongIntHashMap;
+
+import java.util.*;
+
+// The same history as InMemoryHistoryManager without an allocation per view. The tasks sit in slots of parallel
+// arrays linked into a ring by slot numbers, slot 0 is the head of the ring; ids map to slots in a LongIntHashMap.
+// getHistory returns a read-only view of the ring, which follows the later changes; its iterator fails when the
+// history is changed during the iteration
+public class ArrayHistoryManager implements HistoryManager {
+    private static final int HEAD = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final LongIntHashMap slots;
+    private final HistoryView view = new HistoryView();
+    private AbstractTask[] tasks;
+    private int[] next;
+    private int[] prev;
+    // Removed slots are chained through next, HEAD ends the chain
+    private int freeSlot = HEAD;
+    private int usedSlots = 1;
+    private int modifications;
+
+    public ArrayHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayHistoryManager(int expectedSize) {
+        slots = new LongIntHashMap(expectedSize);
+        final int capacity = Math.max(expectedSize, DEFAULT_CAPACITY) + 1;
+        tasks = new AbstractTask[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+    }
+
+    @Override
+    public void add(AbstractTask task) {
+        final long id = task.getId();
+        int slot = slots.get(id);
+        if (slot == LongIntHashMap.NO_VALUE) {
+            slot = allocateSlot();
+            slots.put(id, slot);
+        } else if (prev[HEAD] != slot) {
+            unlink(slot);
+        } else {
+            // Already the latest view
+            tasks[slot] = task;
+            modifications++;
+            return;
+        }
+        tasks[slot] = task;
+        linkLast(slot);
+        modifications++;
+    }
+
+    @Override
+    public void remove(long id) {
+        final int slot = slots.remove(id);
+        if (slot == LongIntHashMap.NO_VALUE) return;
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        modifications++;
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        return view;
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        Arrays.fill(tasks, 0, usedSlots, null);
+        next[HEAD] = HEAD;
+        prev[HEAD] = HEAD;
+        freeSlot = HEAD;
+        usedSlots = 1;
+        modifications++;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != HEAD) {
+            final int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (usedSlots == tasks.length) {
+            final int capacity = tasks.length * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+        return usedSlots++;
+    }
+
+    private void linkLast(int slot) {
+        final int last = prev[HEAD];
+        prev[slot] = last;
+        next[slot] = HEAD;
+        next[last] = slot;
+        prev[HEAD] = slot;
+    }
+
+    private void unlink(int slot) {
+        next[prev[slot]] = next[slot];
+        prev[next[slot]] = prev[slot];
+    }
+
+    private class HistoryView extends AbstractList<AbstractTask> {
+        @Override
+        public AbstractTask get(int index) {
+            Objects.checkIndex(index, size());
+            // The ring is walked from the nearer end
+            int slot;
+            if (index < size() / 2) {
+                slot = next[HEAD];
+                for (int i = 0; i < index; i++) slot = next[slot];
+            } else {
+                slot = prev[HEAD];
+                for (int i = size() - 1; i > index; i--) slot = prev[slot];
+            }
+            return tasks[slot];
+        }
+
+        @Override
+        public int size() {
+            return slots.size();
+        }
+
+        @Override
+        public Iterator<AbstractTask> iterator() {
+            return new Iterator<>() {
+                private final int expectedModifications = modifications;
+                private int slot = next[HEAD];
+
+                @Override
+                public boolean hasNext() {
+                    return slot != HEAD;
+                }
+
+                @Override
+                public AbstractTask next() {
+                    if (modifications != expectedModifications) throw new ConcurrentModificationException();
+                    if (!hasNext()) throw new NoSuchElementException();
+                    final AbstractTask task = tasks[slot];
+                    slot = next[slot];
+                    return task;
+                }
+            };
+        }
+    }
+}
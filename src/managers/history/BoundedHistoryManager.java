@@ -0,0 +1,61 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// History of at most capacity views: a view moves the task to the end, the least recently viewed task is evicted
+public class BoundedHistoryManager implements HistoryManager {
+    private final int capacity;
+    private final LinkedHashMap<Long, AbstractTask> history;
+
+    public BoundedHistoryManager(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Размер истории должен быть больше нуля: " + capacity);
+        this.capacity = capacity;
+        this.history = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AbstractTask> eldest) {
+                if (size() <= BoundedHistoryManager.this.capacity) return false;
+                evicted(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    // Called for the least recently viewed task a view pushes out of the history
+    protected void evicted(AbstractTask task) {
+    }
+
+    @Override
+    public void add(AbstractTask task) {
+        final long id = task.getId();
+        history.remove(id);
+        history.put(id, task);
+    }
+
+    @Override
+    public void remove(long id) {
+        history.remove(id);
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        return new ArrayList<>(history.values());
+    }
+
+    @Override
+    public void clear() {
+        history.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return history.size();
+    }
+}
@@ -0,0 +1,193 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// History for many readers. A view never takes a lock and shares no counter with other threads: it is stamped with
+// the monotonic clock and goes to a lock-free buffer of the stripe of the current thread. The buffers are drained into
+// an ArrayHistoryManager in the order of the stamps by the executor once a buffer fills up, and by getHistory, remove
+// and clear before they do their job, so a thread always sees its own views in order. Views of other threads still
+// being published go with the next drain. remove and clear leave a stamp behind, and a late view stamped before it is
+// dropped, so a view racing with the removal of a task never brings the task back
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int DRAIN_THRESHOLD = 64;
+    // A view drains the buffers itself when the executor falls that far behind
+    private static final int MAX_PENDING = 16 * DRAIN_THRESHOLD;
+    // Pending counters of neighbouring stripes are kept on different cache lines
+    private static final int COUNTER_SPACING = 16;
+    // The clock may start anywhere, so the stamps are compared by their difference
+    private static final Comparator<View> BY_STAMP = (first, second) -> Long.compare(first.stamp - second.stamp, 0);
+
+    private final ConcurrentLinkedQueue<View>[] buffers;
+    private final AtomicIntegerArray pending;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final ArrayHistoryManager history = new ArrayHistoryManager();
+    private final List<View> drained = new ArrayList<>();
+    // Stamps of the removals by the id of the task, guarded by drainLock like the stamp of the last clear
+    private final Map<Long, Long> removals = new HashMap<>();
+    private long cleared;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Runnable drainTask = this::drainScheduled;
+
+    private static final class View {
+        private final long stamp;
+        private final AbstractTask task;
+
+        private View(long stamp, AbstractTask task) {
+            this.stamp = stamp;
+            this.task = task;
+        }
+    }
+
+    public ConcurrentHistoryManager() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ConcurrentHistoryManager(Executor executor) {
+        this(executor, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConcurrentHistoryManager(Executor executor, int stripesCount) {
+        this(executor, stripesCount, System::nanoTime);
+    }
+
+    ConcurrentHistoryManager(Executor executor, int stripesCount, LongSupplier clock) {
+        if (stripesCount <= 0) {
+            throw new IllegalArgumentException("Количество буферов должно быть больше нуля: " + stripesCount);
+        }
+        this.executor = Objects.requireNonNull(executor, "executor must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        cleared = clock.getAsLong();
+        int size = 1;
+        while (size < stripesCount) size <<= 1;
+        buffers = newBuffers(size);
+        for (int i = 0; i < size; i++) buffers[i] = new ConcurrentLinkedQueue<>();
+        pending = new AtomicIntegerArray(size * COUNTER_SPACING);
+    }
+
+    @Override
+    public void add(AbstractTask task) {
+        final int stripe = (int) mix(Thread.currentThread().getId()) & (buffers.length - 1);
+        // The view is counted as pending before it is stamped, see drainBuffers
+        final int pendingViews = pending.incrementAndGet(stripe * COUNTER_SPACING);
+        buffers[stripe].offer(new View(clock.getAsLong(), task));
+        if (pendingViews >= MAX_PENDING) {
+            if (drainLock.tryLock()) {
+                try {
+                    drainBuffers();
+                } finally {
+                    drainLock.unlock();
+                }
+            }
+        } else if (pendingViews >= DRAIN_THRESHOLD && drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // The views keep piling up until one of them drains the buffers itself
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        drainLock.lock();
+        try {
+            drainBuffers();
+            history.remove(id);
+            removals.put(id, clock.getAsLong());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        drainLock.lock();
+        try {
+            drainBuffers();
+            return new ArrayList<>(history.getHistory());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        drainLock.lock();
+        try {
+            drainBuffers();
+            history.clear();
+            removals.clear();
+            cleared = clock.getAsLong();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drainScheduled() {
+        drainLock.lock();
+        try {
+            drainBuffers();
+        } finally {
+            drainLock.unlock();
+            drainScheduled.set(false);
+        }
+    }
+
+    // Every stripe comes out as a run of views almost ordered by their stamps, threads sharing a stripe may publish
+    // out of order only slightly, so the stable sort mostly merges the runs of the stripes. A removal stamp is needed
+    // only while a view stamped before it may still come: once no stripe has a pending view after a drain, every view
+    // counted before the removals has been applied and the removals are forgotten
+    private void drainBuffers() {
+        boolean quiet = true;
+        for (int stripe = 0; stripe < buffers.length; stripe++) {
+            int count = 0;
+            for (View view; (view = buffers[stripe].poll()) != null; count++) drained.add(view);
+            final int left = count > 0
+                    ? pending.addAndGet(stripe * COUNTER_SPACING, -count)
+                    : pending.get(stripe * COUNTER_SPACING);
+            if (left != 0) quiet = false;
+        }
+        if (!drained.isEmpty()) {
+            drained.sort(BY_STAMP);
+            for (View view : drained) {
+                if (view.stamp - cleared < 0) continue;
+                if (!removals.isEmpty()) {
+                    final Long removed = removals.get(view.task.getId());
+                    if (removed != null && view.stamp - removed < 0) continue;
+                }
+                history.add(view.task);
+            }
+            drained.clear();
+        }
+        if (quiet) removals.clear();
+    }
+
+    // The array itself is raw, every stripe put into it holds views only
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ConcurrentLinkedQueue<View>[] newBuffers(int size) {
+        return new ConcurrentLinkedQueue[size];
+    }
+
+    private static long mix(long id) {
+        final long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
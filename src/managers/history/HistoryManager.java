@@ -11,5 +11,10 @@ public interface HistoryManager {
 
     List<AbstractTask> getHistory();
 
+    // The history seen by the session of the current thread, see SessionHistoryManager
+    default List<AbstractTask> getSessionHistory() {
+        return getHistory();
+    }
+
     void clear();
 }
@@ -0,0 +1,150 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+import utils.collections.LongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Bounded histories per session on top of the shared one. Every view goes to the shared history, which is the one
+// getHistory returns and the managers persist, and to the history of the session the current thread works for.
+// At most maxSessions histories are kept, the least recently used session is forgotten. Every id is indexed with the
+// histories of the sessions holding it, so a deleted task leaves only those. Thread-safe
+public class SessionHistoryManager implements HistoryManager {
+    private static final ThreadLocal<String> CURRENT_SESSION = new ThreadLocal<>();
+
+    private final int capacity;
+    private final int maxSessions;
+    private final BoundedHistoryManager sharedHistory;
+    private final LinkedHashMap<String, SessionHistory> sessionHistories;
+    private final LongObjectHashMap<Set<SessionHistory>> sessionsById = new LongObjectHashMap<>();
+
+    // Marks the current thread as working for the session until the scope is closed, a null session means none
+    public static final class Scope implements AutoCloseable {
+        private final String previousSession;
+
+        private Scope(String previousSession) {
+            this.previousSession = previousSession;
+        }
+
+        @Override
+        public void close() {
+            if (previousSession == null) {
+                CURRENT_SESSION.remove();
+            } else {
+                CURRENT_SESSION.set(previousSession);
+            }
+        }
+    }
+
+    public SessionHistoryManager(int capacity, int maxSessions) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("Количество сессий должно быть больше нуля: " + maxSessions);
+        }
+        this.capacity = capacity;
+        this.maxSessions = maxSessions;
+        this.sharedHistory = new BoundedHistoryManager(capacity);
+        this.sessionHistories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SessionHistory> eldest) {
+                if (size() <= SessionHistoryManager.this.maxSessions) return false;
+                for (AbstractTask task : eldest.getValue().getHistory()) unindex(task.getId(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public static Scope enter(String sessionId) {
+        final Scope scope = new Scope(CURRENT_SESSION.get());
+        if (sessionId == null) {
+            CURRENT_SESSION.remove();
+        } else {
+            CURRENT_SESSION.set(sessionId);
+        }
+        return scope;
+    }
+
+    public static String currentSession() {
+        return CURRENT_SESSION.get();
+    }
+
+    @Override
+    public synchronized void add(AbstractTask task) {
+        sharedHistory.add(task);
+        final String sessionId = CURRENT_SESSION.get();
+        if (sessionId != null) {
+            sessionHistories.computeIfAbsent(sessionId, id -> new SessionHistory()).add(task);
+        }
+    }
+
+    // A deleted task leaves every history
+    @Override
+    public synchronized void remove(long id) {
+        sharedHistory.remove(id);
+        final Set<SessionHistory> sessions = sessionsById.remove(id);
+        if (sessions != null) {
+            for (SessionHistory sessionHistory : sessions) sessionHistory.remove(id);
+        }
+    }
+
+    @Override
+    public synchronized List<AbstractTask> getHistory() {
+        return sharedHistory.getHistory();
+    }
+
+    @Override
+    public synchronized List<AbstractTask> getSessionHistory() {
+        final String sessionId = CURRENT_SESSION.get();
+        return sessionId == null ? sharedHistory.getHistory() : getHistory(sessionId);
+    }
+
+    public synchronized List<AbstractTask> getHistory(String sessionId) {
+        final SessionHistory sessionHistory = sessionHistories.get(Objects.requireNonNull(sessionId,
+                "sessionId must not be null"));
+        return sessionHistory == null ? new ArrayList<>() : sessionHistory.getHistory();
+    }
+
+    public synchronized int getSessionsCount() {
+        return sessionHistories.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        sharedHistory.clear();
+        sessionHistories.clear();
+        sessionsById.clear();
+    }
+
+    private void unindex(long id, SessionHistory sessionHistory) {
+        final Set<SessionHistory> sessions = sessionsById.get(id);
+        if (sessions != null && sessions.remove(sessionHistory) && sessions.isEmpty()) sessionsById.remove(id);
+    }
+
+    // Keeps the index of the ids in step with the views and the evictions of the session
+    private final class SessionHistory extends BoundedHistoryManager {
+        private SessionHistory() {
+            super(capacity);
+        }
+
+        @Override
+        public void add(AbstractTask task) {
+            super.add(task);
+            Set<SessionHistory> sessions = sessionsById.get(task.getId());
+            if (sessions == null) {
+                sessions = new HashSet<>();
+                sessionsById.put(task.getId(), sessions);
+            }
+            sessions.add(this);
+        }
+
+        @Override
+        protected void evicted(AbstractTask task) {
+            unindex(task.getId(), this);
+        }
+    }
+}
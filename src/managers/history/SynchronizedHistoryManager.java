@@ -0,0 +1,41 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager historyManager;
+
+    public SynchronizedHistoryManager(HistoryManager historyManager) {
+        this.historyManager = Objects.requireNonNull(historyManager, "historyManager must not be null");
+    }
+
+    @Override
+    public synchronized void add(AbstractTask task) {
+        historyManager.add(task);
+    }
+
+    @Override
+    public synchronized void remove(long id) {
+        historyManager.remove(id);
+    }
+
+    // The history may be a view like the one of ArrayHistoryManager, so it is copied under the lock
+    @Override
+    public synchronized List<AbstractTask> getHistory() {
+        return new ArrayList<>(historyManager.getHistory());
+    }
+
+    @Override
+    public synchronized List<AbstractTask> getSessionHistory() {
+        return new ArrayList<>(historyManager.getSessionHistory());
+    }
+
+    @Override
+    public synchronized void clear() {
+        historyManager.clear();
+    }
+}
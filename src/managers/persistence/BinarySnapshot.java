@@ -0,0 +1,302 @@
+package managers.persistence;
+
+import exceptions.ManagerSaveException;
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+// Compact snapshot of FileBackedAppManager.
+// Header (32 bytes, big-endian): magic, version, header size, number of strings, tasks and history entries,
+// reserved int and the offset of the first task record.
+// The string table follows: names and descriptions are stored once and referenced by index, 0 stands for null.
+// Every task record: type, state, flags, id as a varint delta from the previous id, name and description indexes,
+// duration and start time as zigzag varint seconds (nanos only when present), epic id for stories.
+// History ids close the file as varint deltas.
+public final class BinarySnapshot {
+    public static final int MAGIC = 0x54534E50; // "TSNP"
+    public static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_DURATION_NANOS = 1 << 1;
+    private static final int HAS_START_TIME = 1 << 2;
+    private static final int HAS_START_TIME_NANOS = 1 << 3;
+
+    private static final TypeTask[] TYPES = TypeTask.values();
+    private static final StateTask[] STATES = StateTask.values();
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isBinary(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) < 0) return false;
+            }
+            return magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время чтения файла!");
+        }
+    }
+
+    // Tasks must be ordered so that every epic precedes its stories
+    public static void write(Path path, Collection<AbstractTask> tasks, Collection<AbstractTask> history) {
+        final Map<String, Integer> strings = new HashMap<>();
+        final Output output = new Output(path);
+        try {
+            output.position(HEADER_SIZE);
+            for (AbstractTask task : tasks) {
+                output.writeString(strings, task.getName());
+                output.writeString(strings, task.getDescription());
+            }
+            final long recordsOffset = output.position();
+
+            long previousId = 0;
+            for (AbstractTask task : tasks) {
+                final Duration duration = task.getDuration();
+                final LocalDateTime startTime = task.getStartTime();
+                int flags = 0;
+                if (duration != null) flags |= duration.getNano() == 0 ? HAS_DURATION : HAS_DURATION | HAS_DURATION_NANOS;
+                if (startTime != null) {
+                    flags |= startTime.getNano() == 0 ? HAS_START_TIME : HAS_START_TIME | HAS_START_TIME_NANOS;
+                }
+                output.ensure(3 + MAX_VARINT_SIZE * 8);
+                output.buffer.put((byte) task.getTypeTask().ordinal());
+                output.buffer.put((byte) task.getStateTask().ordinal());
+                output.buffer.put((byte) flags);
+                output.writeVarLong(zigzag(task.getId() - previousId));
+                output.writeVarLong(indexOf(strings, task.getName()));
+                output.writeVarLong(indexOf(strings, task.getDescription()));
+                if ((flags & HAS_DURATION) != 0) output.writeVarLong(zigzag(duration.getSeconds()));
+                if ((flags & HAS_DURATION_NANOS) != 0) output.writeVarLong(duration.getNano());
+                if ((flags & HAS_START_TIME) != 0) output.writeVarLong(zigzag(startTime.toEpochSecond(ZoneOffset.UTC)));
+                if ((flags & HAS_START_TIME_NANOS) != 0) output.writeVarLong(startTime.getNano());
+                if (task.getTypeTask().isStory()) output.writeVarLong(((Story) task).getEpic().getId());
+                previousId = task.getId();
+            }
+
+            previousId = 0;
+            for (AbstractTask task : history) {
+                output.ensure(MAX_VARINT_SIZE);
+                output.writeVarLong(zigzag(task.getId() - previousId));
+                previousId = task.getId();
+            }
+            output.flush();
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) HEADER_SIZE)
+                    .putInt(strings.size())
+                    .putInt(tasks.size())
+                    .putInt(history.size())
+                    .putInt(0)
+                    .putLong(recordsOffset)
+                    .flip();
+            while (header.hasRemaining()) {
+                output.channel.write(header, header.position());
+            }
+            output.channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время автосохранения!");
+        } finally {
+            output.close();
+        }
+    }
+
+    // Maps the file into memory, passes every task to the consumer and returns the ids of the history.
+    // Stories are linked to the epics found by epics, so the consumer has to register an epic before its stories come
+    public static long[] read(Path path, LongFunction<Epic> epics, Consumer<AbstractTask> consumer) {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Файл " + path + " слишком велик для загрузки!");
+            }
+            // The mapping stays valid after the channel is closed and is released by the garbage collector
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время загрузки файлы!");
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) throw new ManagerSaveException("Файл " + path + " не является снимком!");
+            final short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new ManagerSaveException("Неподдерживаемая версия снимка: " + version);
+            }
+            final int headerSize = buffer.getShort();
+            final String[] strings = new String[buffer.getInt() + 1];
+            final int numberTasks = buffer.getInt();
+            final long[] history = new long[buffer.getInt()];
+            buffer.getInt();
+            final long recordsOffset = buffer.getLong();
+
+            buffer.position(headerSize);
+            byte[] bytes = new byte[256];
+            for (int i = 1; i < strings.length; i++) {
+                final int length = (int) readVarLong(buffer);
+                if (length > bytes.length) bytes = new byte[Math.max(length, bytes.length * 2)];
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            if (buffer.position() != recordsOffset) throw new ManagerSaveException("Файл " + path + " поврежден!");
+
+            long id = 0;
+            for (int i = 0; i < numberTasks; i++) {
+                final TypeTask typeTask = TYPES[buffer.get()];
+                final StateTask stateTask = STATES[buffer.get()];
+                final int flags = buffer.get();
+                id += unzigzag(readVarLong(buffer));
+                final String name = strings[(int) readVarLong(buffer)];
+                final String description = strings[(int) readVarLong(buffer)];
+                Duration duration = null;
+                if ((flags & HAS_DURATION) != 0) {
+                    final long seconds = unzigzag(readVarLong(buffer));
+                    duration = (flags & HAS_DURATION_NANOS) != 0
+                            ? Duration.ofSeconds(seconds, readVarLong(buffer)) : Duration.ofSeconds(seconds);
+                }
+                LocalDateTime startTime = null;
+                if ((flags & HAS_START_TIME) != 0) {
+                    final long epochSecond = unzigzag(readVarLong(buffer));
+                    final int nanos = (flags & HAS_START_TIME_NANOS) != 0 ? (int) readVarLong(buffer) : 0;
+                    startTime = LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+                }
+
+                if (typeTask.isEpic()) {
+                    consumer.accept(Epic.createEpic(id, name, stateTask, description, duration, startTime));
+                } else if (typeTask.isStory()) {
+                    final Epic epic = epics.apply(readVarLong(buffer));
+                    consumer.accept(Story.createStory(id, name, description, epic, stateTask, duration, startTime));
+                } else {
+                    consumer.accept(Task.createTask(id, name, description, stateTask, duration, startTime));
+                }
+            }
+
+            id = 0;
+            for (int i = 0; i < history.length; i++) {
+                history[i] = id += unzigzag(readVarLong(buffer));
+            }
+            return history;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new ManagerSaveException("Файл " + path + " поврежден!");
+        }
+    }
+
+    private static long indexOf(Map<String, Integer> strings, String value) {
+        return value == null ? 0 : strings.get(value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    // Buffered writer over the channel that keeps track of the file position
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long position;
+
+        private Output(Path path) {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка во время автосохранения!");
+            }
+        }
+
+        private long position() {
+            return position + buffer.position();
+        }
+
+        private void position(long position) throws IOException {
+            flush();
+            this.position = position;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void writeString(Map<String, Integer> strings, String value) throws IOException {
+            if (value == null || strings.containsKey(value)) return;
+            strings.put(value, strings.size() + 1);
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(MAX_VARINT_SIZE);
+            writeVarLong(bytes.length);
+            if (bytes.length > buffer.remaining()) {
+                flush();
+                if (bytes.length > buffer.capacity()) {
+                    write(ByteBuffer.wrap(bytes));
+                    return;
+                }
+            }
+            buffer.put(bytes);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                position += channel.write(source, position);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка во время автосохранения!");
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package managers.persistence;
+
+import exceptions.ManagerSaveException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+// Reads the CSV snapshot line by line: the header, the task records up to the blank line and the trailing
+// history record. Only the current line is kept in memory
+public class CsvSnapshotReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CHUNK_SIZE = 4096;
+
+    private final BufferedReader reader;
+    private final CsvTokenizer tokenizer = new CsvTokenizer();
+    private boolean headerSkipped;
+    private boolean recordsEnded;
+
+    public CsvSnapshotReader(Path path) {
+        try {
+            this.reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время загрузки файлы!");
+        }
+    }
+
+    // Moves to the next task record. Returns false once the blank line or the end of the file is reached
+    public boolean nextRecord() {
+        final String line = nextLine();
+        if (line == null) return false;
+        tokenizer.reset(line);
+        return true;
+    }
+
+    // Parses the remaining task records on the fork/join pool, a chunk of lines per task, and returns them
+    // in the order of the file. Only a few chunks are read ahead of the parsers.
+    // The parser is called from several threads, each with its own tokenizer
+    public <T> List<T> parseRecords(Function<CsvTokenizer, T> parser) {
+        final int maxChunksInFlight = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        final ArrayDeque<ForkJoinTask<List<T>>> chunks = new ArrayDeque<>();
+        final List<T> records = new ArrayList<>();
+        List<String> lines = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while ((line = nextLine()) != null) {
+            lines.add(line);
+            if (lines.size() == CHUNK_SIZE) {
+                chunks.add(new ParseChunk<>(lines, parser).fork());
+                lines = new ArrayList<>(CHUNK_SIZE);
+                if (chunks.size() >= maxChunksInFlight) records.addAll(chunks.poll().join());
+            }
+        }
+        if (!lines.isEmpty()) chunks.add(new ParseChunk<>(lines, parser).fork());
+        while (!chunks.isEmpty()) {
+            records.addAll(chunks.poll().join());
+        }
+        return records;
+    }
+
+    // Fields of the current task record
+    public CsvTokenizer record() {
+        return tokenizer;
+    }
+
+    // Skips the remaining task records. Returns the history record or null if the snapshot has none
+    public String history() {
+        while (nextRecord()) {
+            // The records were not read by the caller
+        }
+        return readLine();
+    }
+
+    private String nextLine() {
+        if (recordsEnded) return null;
+        String line = readLine();
+        if (!headerSkipped) {
+            headerSkipped = true;
+            if (line != null) line = readLine();
+        }
+        if (line == null || line.isBlank()) {
+            recordsEnded = true;
+            return null;
+        }
+        return line;
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время загрузки файлы!");
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время загрузки файлы!");
+        }
+    }
+
+    private static class ParseChunk<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> lines;
+        private final Function<CsvTokenizer, T> parser;
+
+        private ParseChunk(List<String> lines, Function<CsvTokenizer, T> parser) {
+            this.lines = lines;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<T> compute() {
+            final CsvTokenizer tokenizer = new CsvTokenizer();
+            final List<T> records = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                records.add(parser.apply(tokenizer.reset(line)));
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package managers.persistence;
+
+import utils.TimeParser;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Walks the comma separated fields of one line by index. Numbers, enums and dates are read in place,
+// only string fields are copied out of the line. One instance is reused for every line
+public final class CsvTokenizer {
+    private String line;
+    private int position;
+    private int end;
+
+    // Leading and trailing whitespace of the line is ignored
+    public CsvTokenizer reset(String line) {
+        int from = 0;
+        int to = line.length();
+        while (from < to && Character.isWhitespace(line.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(line.charAt(to - 1))) to--;
+        this.line = line;
+        this.position = from;
+        this.end = to;
+        return this;
+    }
+
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    public long nextLong() {
+        final int to = fieldEnd();
+        int i = position;
+        final boolean negative = i < to && line.charAt(i) == '-';
+        if (negative) i++;
+        if (i == to) throw numberFormat(to);
+        long result = 0;
+        for (; i < to; i++) {
+            final int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < (Long.MIN_VALUE + digit) / 10) throw numberFormat(to);
+            // Accumulated as a negative number to reach Long.MIN_VALUE
+            result = result * 10 - digit;
+        }
+        if (!negative) {
+            if (result == Long.MIN_VALUE) throw numberFormat(to);
+            result = -result;
+        }
+        skip(to);
+        return result;
+    }
+
+    public <E extends Enum<E>> E nextEnum(E[] values) {
+        final int to = fieldEnd();
+        final int length = to - position;
+        for (E value : values) {
+            final String name = value.name();
+            if (name.length() == length && line.startsWith(name, position)) {
+                skip(to);
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + line.substring(position, to));
+    }
+
+    public String nextString() {
+        final int to = fieldEnd();
+        final String result = line.substring(position, to);
+        skip(to);
+        return result;
+    }
+
+    // Empty field stands for null
+    public Duration nextDuration() {
+        final int to = fieldEnd();
+        final Duration result = to == position ? null : TimeParser.parseDuration(line, position, to);
+        skip(to);
+        return result;
+    }
+
+    // Empty field stands for null
+    public LocalDateTime nextLocalDateTime() {
+        final int to = fieldEnd();
+        final LocalDateTime result = to == position ? null : TimeParser.parseLocalDateTime(line, position, to);
+        skip(to);
+        return result;
+    }
+
+    private int fieldEnd() {
+        if (position > end) throw new IllegalArgumentException("Недостаточно полей в строке: " + line);
+        final int comma = line.indexOf(',', position);
+        return comma < 0 || comma > end ? end : comma;
+    }
+
+    // Moves behind the comma that ends the field, past the end when the field was the last one
+    private void skip(int fieldEnd) {
+        position = fieldEnd + 1;
+    }
+
+    private NumberFormatException numberFormat(int to) {
+        return new NumberFormatException("Некорректное число: " + line.substring(position, to));
+    }
+}
@@ -0,0 +1,78 @@
+package managers.persistence;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public final class DurabilityMode {
+    public enum Kind {
+        SYNC,
+        GROUP_COMMIT,
+        WRITE_BEHIND
+    }
+
+    private static final DurabilityMode SYNC = new DurabilityMode(Kind.SYNC, 1, Duration.ZERO);
+
+    private final Kind kind;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+
+    private DurabilityMode(Kind kind, int maxBatchSize, Duration maxDelay) {
+        this.kind = kind;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+    }
+
+    public static DurabilityMode sync() {
+        return SYNC;
+    }
+
+    public static DurabilityMode groupCommit(int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Размер пакета должен быть положительным");
+        return new DurabilityMode(Kind.GROUP_COMMIT, maxBatchSize, checkDelay(maxDelay));
+    }
+
+    public static DurabilityMode writeBehind(Duration flushInterval) {
+        return new DurabilityMode(Kind.WRITE_BEHIND, Integer.MAX_VALUE, checkDelay(flushInterval));
+    }
+
+    private static Duration checkDelay(Duration delay) {
+        Objects.requireNonNull(delay, "delay must not be null");
+        if (delay.isNegative() || delay.isZero()) {
+            throw new IllegalArgumentException("Интервал сброса должен быть положительным");
+        }
+        return delay;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public boolean isSync() {
+        return Kind.SYNC == kind;
+    }
+
+    public boolean isGroupCommit() {
+        return Kind.GROUP_COMMIT == kind;
+    }
+
+    public boolean isWriteBehind() {
+        return Kind.WRITE_BEHIND == kind;
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityMode{" +
+                "kind=" + kind +
+                ", maxBatchSize=" + maxBatchSize +
+                ", maxDelay=" + maxDelay +
+                '}';
+    }
+}
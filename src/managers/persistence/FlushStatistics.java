@@ -0,0 +1,97 @@
+package managers.persistence;
+
+import java.time.Duration;
+
+public class FlushStatistics {
+    private long flushCount;
+    private long flushedOperations;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long lastLatencyNanos;
+    private int maxBatchSize;
+    private int lastBatchSize;
+    // Failures of the flushes made in the background, which have no caller to throw to
+    private long failureCount;
+    private RuntimeException lastFailure;
+
+    public synchronized void record(int batchSize, long latencyNanos) {
+        flushCount++;
+        flushedOperations += batchSize;
+        totalLatencyNanos += latencyNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        lastLatencyNanos = latencyNanos;
+        maxBatchSize = Math.max(maxBatchSize, batchSize);
+        lastBatchSize = batchSize;
+    }
+
+    public synchronized void recordFailure(RuntimeException failure) {
+        failureCount++;
+        lastFailure = failure;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized long getFlushedOperations() {
+        return flushedOperations;
+    }
+
+    public synchronized double getAverageBatchSize() {
+        return flushCount == 0 ? 0 : (double) flushedOperations / flushCount;
+    }
+
+    public synchronized int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public synchronized int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public synchronized Duration getAverageLatency() {
+        return Duration.ofNanos(flushCount == 0 ? 0 : totalLatencyNanos / flushCount);
+    }
+
+    public synchronized Duration getMaxLatency() {
+        return Duration.ofNanos(maxLatencyNanos);
+    }
+
+    public synchronized Duration getLastLatency() {
+        return Duration.ofNanos(lastLatencyNanos);
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    // Returns null if no flush has failed
+    public synchronized RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    public synchronized void reset() {
+        flushCount = 0;
+        flushedOperations = 0;
+        totalLatencyNanos = 0;
+        maxLatencyNanos = 0;
+        lastLatencyNanos = 0;
+        maxBatchSize = 0;
+        lastBatchSize = 0;
+        failureCount = 0;
+        lastFailure = null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FlushStatistics{" +
+                "flushCount=" + flushCount +
+                ", flushedOperations=" + flushedOperations +
+                ", averageBatchSize=" + getAverageBatchSize() +
+                ", maxBatchSize=" + maxBatchSize +
+                ", averageLatency=" + getAverageLatency() +
+                ", maxLatency=" + getMaxLatency() +
+                ", failureCount=" + failureCount +
+                '}';
+    }
+}
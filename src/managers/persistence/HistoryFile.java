@@ -0,0 +1,62 @@
+package managers.persistence;
+
+import exceptions.ManagerSaveException;
+import models.tasks.AbstractTask;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+public class HistoryFile {
+    private final Path path;
+    private boolean exists;
+
+    public HistoryFile(Path path) {
+        this.path = path;
+        this.exists = Files.exists(path);
+    }
+
+    public void write(Collection<AbstractTask> history) {
+        final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                for (AbstractTask task : history) {
+                    writer.write(Long.toString(task.getId()));
+                    writer.write(",");
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exists = true;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время сохранения истории!");
+        }
+    }
+
+    public String read() {
+        if (!exists) return null;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время загрузки истории!");
+        }
+    }
+
+    public void delete() {
+        if (!exists) return;
+        try {
+            Files.deleteIfExists(path);
+            exists = false;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время удаления истории!");
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,22 @@
+package managers.persistence;
+
+import managers.FileBackedAppManager;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Usage: SnapshotConverter <source> <target> [csv|binary], binary by default
+public class SnapshotConverter {
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Использование: SnapshotConverter <source> <target> [csv|binary]");
+            System.exit(1);
+        }
+        final SnapshotFormat snapshotFormat = args.length == 3
+                ? SnapshotFormat.valueOf(args[2].toUpperCase(Locale.ROOT)) : SnapshotFormat.BINARY;
+        final long start = System.nanoTime();
+        FileBackedAppManager.convert(Path.of(args[0]), Path.of(args[1]), snapshotFormat);
+        System.out.printf("%s -> %s (%s): %.1f ms%n", args[0], args[1], snapshotFormat,
+                (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,7 @@
+package managers.persistence;
+
+// Format of the snapshot written by FileBackedAppManager. Either format is recognised on load
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
@@ -0,0 +1,106 @@
+package managers.persistence;
+
+import exceptions.ManagerSaveException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+public class TaskJournal implements Closeable {
+    public enum Operation {
+        ADD,
+        UPDATE,
+        DELETE,
+        DELETE_ALL
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private BufferedWriter writer;
+    private int size;
+
+    public TaskJournal(Path path) {
+        this.path = path;
+    }
+
+    public void append(Operation operation, String payload) {
+        try {
+            if (writer == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            }
+            writer.write(operation.name());
+            writer.write(",");
+            writer.write(payload);
+            writer.write(System.lineSeparator());
+            size++;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время записи в журнал!");
+        }
+    }
+
+    public void sync() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время записи в журнал!");
+        }
+    }
+
+    public void replay(Consumer<String> recordConsumer) {
+        size = 0;
+        if (Files.notExists(path)) return;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String record;
+            while ((record = reader.readLine()) != null) {
+                if (record.isBlank()) continue;
+                recordConsumer.accept(record);
+                size++;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время чтения журнала!");
+        }
+    }
+
+    public void reset() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время очистки журнала!");
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время закрытия журнала!");
+        } finally {
+            writer = null;
+            channel = null;
+        }
+    }
+}
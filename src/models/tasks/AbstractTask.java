@@ -14,6 +14,12 @@ public abstract class AbstractTask {
     protected StateTask stateTask;
     protected Duration duration;
     protected LocalDateTime startTime;
+    private StateListener stateListener;
+
+    // Notified after every change of the state, keeps secondary indexes by state up to date
+    public interface StateListener {
+        void stateChanged(AbstractTask task, StateTask previousState);
+    }
 
     protected AbstractTask(Long id, String name, String description, TypeTask typeTask,
                            StateTask stateTask, Duration duration, LocalDateTime startTime) {
@@ -50,6 +56,16 @@ public abstract class AbstractTask {
         return stateTask;
     }
 
+    protected void setState(StateTask stateTask) {
+        final StateTask previousState = this.stateTask;
+        this.stateTask = stateTask;
+        if (previousState != stateTask && stateListener != null) stateListener.stateChanged(this, previousState);
+    }
+
+    public void setStateListener(StateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
     public TypeTask getTypeTask() {
         return typeTask;
     }
@@ -2,17 +2,27 @@ package models.tasks;
 
 import models.enums.StateTask;
 import models.enums.TypeTask;
+import utils.collections.LongMap;
+import utils.collections.LongObjectHashMap;
 
-import javax.swing.plaf.basic.BasicInternalFrameTitlePane;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
 
 public final class Epic extends AbstractTask {
-    private final Map<Long, Story> idStoryMap;
+    private final LongMap<Story> idStoryMap;
+    private StoriesListener storiesListener;
+    // Aggregates over the stories, kept up to date on every change of a story
+    private final int[] storiesCountByState = new int[StateTask.values().length];
+    private final TreeMap<LocalDateTime, Integer> storiesStartTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> storiesEndTimes = new TreeMap<>();
+    private Duration storiesDuration = Duration.ZERO;
+
+    public interface StoriesListener {
+        void storyAdded(Epic epic, Story story);
+
+        void storyRemoved(Epic epic, Story story);
+    }
 
     public static class Builder {
         private long id;
@@ -65,7 +75,7 @@ public final class Epic extends AbstractTask {
     private Epic(Builder builder) {
         super(builder.id, builder.name, builder.description, TypeTask.EPIC, builder.stateTask, builder.duration,
                 builder.startTime);
-        this.idStoryMap = new LinkedHashMap<>();
+        this.idStoryMap = new LongObjectHashMap<>();
     }
 
     public static Epic createEpic(long id, Epic epic) {
@@ -116,31 +126,105 @@ public final class Epic extends AbstractTask {
                 .build();
     }
 
+    // A detached copy with copies of the stories, it does not change with this epic
+    public Epic copy() {
+        final List<Story> stories = new ArrayList<>(idStoryMap.size());
+        for (Story story : idStoryMap.values()) stories.add(Story.createStory(story.getId(), story));
+        return createEpic(id, name, description, stories, duration, startTime);
+    }
+
     public Story getStory(long id) {
         return idStoryMap.get(id);
     }
 
     public Story addStory(Story story) {
         if (this.id == story.getEpic().getId()) {
-            idStoryMap.put(story.getId(), story);
+            final Story previousStory = idStoryMap.put(story.getId(), story);
+            if (previousStory != null) storyRemoved(previousStory);
+            if (story.getEpic() != this) story.setEpic(this);
+            storyAdded(story);
             checkState();
         }
         return story;
     }
 
     public Story updateStory(long id, Story story) {
-        return idStoryMap.get(id).setStory(story);
+        final Story currentStory = idStoryMap.get(id).setStory(story);
+        currentStory.setEpic(this);
+        return currentStory;
     }
 
     public Story removeStory(long id) {
         Story story = idStoryMap.remove(id);
-        if (story != null) checkState();
+        if (story != null) {
+            storyRemoved(story);
+            checkState();
+        }
         return story;
     }
 
     public void removeAllStories() {
+        clearStories();
+        setState(StateTask.NEW);
+    }
+
+    public void setStoriesListener(StoriesListener storiesListener) {
+        this.storiesListener = storiesListener;
+    }
+
+    private void clearStories() {
+        if (storiesListener != null) {
+            for (Story story : idStoryMap.values()) storiesListener.storyRemoved(this, story);
+        }
         idStoryMap.clear();
-        stateTask = StateTask.NEW;
+        Arrays.fill(storiesCountByState, 0);
+        storiesStartTimes.clear();
+        storiesEndTimes.clear();
+        storiesDuration = Duration.ZERO;
+        refreshTime();
+    }
+
+    private void storyAdded(Story story) {
+        aggregate(story, 1);
+        if (storiesListener != null) storiesListener.storyAdded(this, story);
+    }
+
+    private void storyRemoved(Story story) {
+        aggregate(story, -1);
+        if (storiesListener != null) storiesListener.storyRemoved(this, story);
+    }
+
+    void storyChanging(Story story) {
+        aggregate(story, -1);
+    }
+
+    void storyChanged(Story story) {
+        aggregate(story, 1);
+        checkState();
+    }
+
+    private void aggregate(Story story, int sign) {
+        storiesCountByState[story.stateTask.ordinal()] += sign;
+        if (story.duration != null) {
+            storiesDuration = sign > 0 ? storiesDuration.plus(story.duration) : storiesDuration.minus(story.duration);
+        }
+        if (story.startTime != null) {
+            count(storiesStartTimes, story.startTime, sign);
+            count(storiesEndTimes, story.getEndTime(), sign);
+        }
+        refreshTime();
+    }
+
+    private static void count(TreeMap<LocalDateTime, Integer> counters, LocalDateTime time, int delta) {
+        counters.compute(time, (key, counter) -> {
+            final int newCounter = (counter == null ? 0 : counter) + delta;
+            return newCounter == 0 ? null : newCounter;
+        });
+    }
+
+    private void refreshTime() {
+        startTime = getStartTime();
+        duration = getDuration();
     }
 
     public long getId() {
@@ -159,7 +243,7 @@ public final class Epic extends AbstractTask {
         return idStoryMap.values();
     }
 
-    public Map<Long, Story> getIdStoryMap() {
+    public LongMap<Story> getIdStoryMap() {
         return idStoryMap;
     }
 
@@ -173,37 +257,20 @@ public final class Epic extends AbstractTask {
 
     @Override
     public Duration getDuration() {
-        Duration epicDuration = Duration.ZERO;
-        for (Story story : getStories()) {
-            epicDuration = epicDuration.plus(story.duration == null ? Duration.ZERO : story.duration);
-        }
-        return Duration.ZERO.equals(epicDuration) ? null : epicDuration;
+        return Duration.ZERO.equals(storiesDuration) ? null : storiesDuration;
     }
 
     @Override
     public LocalDateTime getStartTime() {
-        LocalDateTime minStoryStartTime = LocalDateTime.MAX;
-        for (Story story : getStories()) {
-            final LocalDateTime storyStartTime = story.getStartTime();
-            if (storyStartTime != null && storyStartTime.isBefore(minStoryStartTime)) {
-                minStoryStartTime = storyStartTime;
-            }
-        }
-        return minStoryStartTime.equals(LocalDateTime.MAX) ? null : minStoryStartTime;
+        return storiesStartTimes.isEmpty() ? null : storiesStartTimes.firstKey();
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        if ((startTime = getStartTime()) == null) return null;
-        if ((duration = getDuration()) == null) return startTime;
-        LocalDateTime maxStoryEndTime = LocalDateTime.MIN;
-        for (Story story : getStories()) {
-            final LocalDateTime storyEndTime = story.getEndTime();
-            if (storyEndTime.isAfter(maxStoryEndTime)) {
-                maxStoryEndTime = storyEndTime;
-            }
-        }
-        return maxStoryEndTime.equals(LocalDateTime.MIN) ? null : maxStoryEndTime;
+        final LocalDateTime epicStartTime = getStartTime();
+        if (epicStartTime == null) return null;
+        if (getDuration() == null) return epicStartTime;
+        return storiesEndTimes.lastKey();
     }
 
     public void setIdStoryMap(Collection<Story> idStoryMap) {
@@ -214,21 +281,27 @@ public final class Epic extends AbstractTask {
             }
         }
         if (counterThisEpic == idStoryMap.size()) {
-            this.idStoryMap.clear();
-            for (Story story : idStoryMap) {
+            // A copy, as the stories may be given by this very epic
+            final List<Story> stories = new ArrayList<>(idStoryMap);
+            clearStories();
+            for (Story story : stories) {
                 this.idStoryMap.put(story.getId(), story);
+                // The stories of an equal epic are bound to this one, otherwise their changes miss the aggregates
+                story.setEpic(this);
+                storyAdded(story);
             }
             checkState();
         }
     }
 
+    // An epic without stories, such as one read from JSON, changes only the name and the description; the stories
+    // are removed by removeAllStories
     public Epic setEpic(Epic epic) {
         if (epic != null) {
             setName(epic.name);
             setDescription(epic.description);
-            setIdStoryMap(epic.idStoryMap.values());
-            setDuration(epic.duration);
-            setStartTime(epic.startTime);
+            if (!epic.idStoryMap.isEmpty()) setIdStoryMap(epic.idStoryMap.values());
+            // The time of an epic comes from its stories only
             checkState();
         }
         return this;
@@ -238,24 +311,19 @@ public final class Epic extends AbstractTask {
         Story story = idStoryMap.get(id);
         if (id == story.getId()) {
             story.setStateTask(stateTask);
-            checkState();
         }
     }
 
     private void checkState() {
-        int counterNewStatusStories = 0;
-        int counterDoneStatusStories = 0;
-        for (Story story : idStoryMap.values()) {
-            if (StateTask.NEW.equals(story.stateTask)) counterNewStatusStories++;
-            if (StateTask.DONE.equals(story.stateTask)) counterDoneStatusStories++;
-        }
+        int counterNewStatusStories = storiesCountByState[StateTask.NEW.ordinal()];
+        int counterDoneStatusStories = storiesCountByState[StateTask.DONE.ordinal()];
         int storiesListLength = idStoryMap.size();
         if (counterNewStatusStories == storiesListLength) {
-            stateTask = StateTask.NEW;
+            setState(StateTask.NEW);
         } else if (counterDoneStatusStories == storiesListLength) {
-            stateTask = StateTask.DONE;
+            setState(StateTask.DONE);
         } else {
-            stateTask = StateTask.IN_PROGRESS;
+            setState(StateTask.IN_PROGRESS);
         }
     }
 
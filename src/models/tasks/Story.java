@@ -111,9 +111,9 @@ public final class Story extends AbstractTask {
         if (story != null) {
             setName(story.name);
             setDescription(story.description);
-            setEpic(story.epic);
             setDuration(story.duration);
             setStartTime(story.startTime);
+            setEpic(story.epic);
         }
         return this;
     }
@@ -151,7 +151,31 @@ public final class Story extends AbstractTask {
     }
 
     public void setStateTask(StateTask stateTask) {
-        this.stateTask = stateTask;
+        final Epic owner = owner();
+        if (owner != null) owner.storyChanging(this);
+        setState(stateTask);
+        if (owner != null) owner.storyChanged(this);
+    }
+
+    @Override
+    public void setDuration(Duration duration) {
+        final Epic owner = owner();
+        if (owner != null) owner.storyChanging(this);
+        super.setDuration(duration);
+        if (owner != null) owner.storyChanged(this);
+    }
+
+    @Override
+    public void setStartTime(LocalDateTime startTime) {
+        final Epic owner = owner();
+        if (owner != null) owner.storyChanging(this);
+        super.setStartTime(startTime);
+        if (owner != null) owner.storyChanged(this);
+    }
+
+    // Only the epic which actually holds this story keeps aggregates over it
+    private Epic owner() {
+        return epic != null && epic.getStory(id) == this ? epic : null;
     }
 
     @Override
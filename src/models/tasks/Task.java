@@ -145,7 +145,7 @@ public class Task extends AbstractTask {
     }
 
     public void setStateTask(StateTask stateTask) {
-        this.stateTask = stateTask;
+        setState(stateTask);
     }
 
     @Override
@@ -0,0 +1,334 @@
+package repositories.indexes;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+// Values of a repository ordered by id for paginated listing.
+// A treap: a binary search tree by id and a heap by a priority derived from the id. Every node keeps the size of
+// its subtree, so a page by offset and a page after a cursor id both cost O(log n + limit).
+// Not thread-safe, concurrent repositories use the synchronized variant
+public class OrderedIdIndex<T> {
+    private Node<T> root;
+
+    private static final class Node<T> {
+        private final long id;
+        private final int priority;
+        private T value;
+        private int size = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long id, T value) {
+            this.id = id;
+            this.priority = priority(id);
+            this.value = value;
+        }
+    }
+
+    public static <T> OrderedIdIndex<T> createConcurrent() {
+        return new SynchronizedOrderedIdIndex<>();
+    }
+
+    public void put(long id, T value) {
+        final Node<T> node = find(id);
+        if (node != null) {
+            node.value = value;
+        } else {
+            root = insert(root, id, value);
+        }
+    }
+
+    // Values with distinct ids for an empty index are linked into the treap in O(n) after a sort by id,
+    // which is a single pass for values that are already ordered
+    public void putAll(Collection<? extends T> values, ToLongFunction<? super T> idFunction) {
+        if (root != null) {
+            for (T value : values) put(idFunction.applyAsLong(value), value);
+            return;
+        }
+        final Node<T>[] nodes = newNodes(values.size());
+        int count = 0;
+        boolean sorted = true;
+        for (T value : values) {
+            nodes[count] = new Node<>(idFunction.applyAsLong(value), value);
+            if (count > 0 && nodes[count - 1].id >= nodes[count].id) sorted = false;
+            count++;
+        }
+        if (!sorted) Arrays.sort(nodes, Comparator.comparingLong(node -> node.id));
+
+        // The right spine of the treap built so far is kept on the stack, a node leaves it when its subtree is complete
+        Node<T>[] spine = Arrays.copyOf(nodes, Math.min(nodes.length, 64));
+        int top = 0;
+        for (Node<T> node : nodes) {
+            Node<T> last = null;
+            while (top > 0 && spine[top - 1].priority < node.priority) {
+                last = spine[--top];
+                update(last);
+            }
+            node.left = last;
+            if (top > 0) spine[top - 1].right = node;
+            if (top == spine.length) spine = Arrays.copyOf(spine, top * 2);
+            spine[top++] = node;
+        }
+        while (top > 0) update(spine[--top]);
+        root = nodes.length == 0 ? null : spine[0];
+    }
+
+    public T remove(long id) {
+        final Node<T> node = find(id);
+        if (node == null) return null;
+        root = remove(root, id);
+        return node.value;
+    }
+
+    public T get(long id) {
+        final Node<T> node = find(id);
+        return node == null ? null : node.value;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    // Number of ids less than the given one
+    public int rank(long id) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (id <= node.id) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    public List<T> page(int offset, int limit) {
+        if (offset < 0) throw new IllegalArgumentException("Смещение не может быть отрицательным: " + offset);
+        checkLimit(limit);
+        // The path keeps the node at the offset and every ancestor whose left subtree holds it: these are the
+        // following nodes in order
+        final Deque<Node<T>> path = new ArrayDeque<>();
+        int position = offset;
+        Node<T> node = root;
+        while (node != null) {
+            final int leftSize = size(node.left);
+            if (position < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (position == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return collect(path, 0, limit, null);
+    }
+
+    // Values with ids greater than the cursor
+    public List<T> pageAfter(long cursor, int limit) {
+        checkLimit(limit);
+        return collect(pathAfter(cursor), 0, limit, null);
+    }
+
+    // Pages of the values matching the filter. The values are walked in order and the skipped ones count too,
+    // so these are meant for small indexes
+    public List<T> page(int offset, int limit, Predicate<? super T> filter) {
+        if (offset < 0) throw new IllegalArgumentException("Смещение не может быть отрицательным: " + offset);
+        checkLimit(limit);
+        return collect(pathAfter(Long.MIN_VALUE), offset, limit, filter);
+    }
+
+    public List<T> pageAfter(long cursor, int limit, Predicate<? super T> filter) {
+        checkLimit(limit);
+        return collect(pathAfter(cursor), 0, limit, filter);
+    }
+
+    private Deque<Node<T>> pathAfter(long cursor) {
+        final Deque<Node<T>> path = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null) {
+            if (node.id > cursor) {
+                path.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return path;
+    }
+
+    private List<T> collect(Deque<Node<T>> path, int skip, int limit, Predicate<? super T> filter) {
+        final List<T> result = new ArrayList<>(Math.min(limit, size()));
+        while (!path.isEmpty() && result.size() < limit) {
+            final Node<T> node = path.pop();
+            if (filter == null || filter.test(node.value)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    result.add(node.value);
+                }
+            }
+            for (Node<T> next = node.right; next != null; next = next.left) {
+                path.push(next);
+            }
+        }
+        return result;
+    }
+
+    private Node<T> find(long id) {
+        Node<T> node = root;
+        while (node != null && node.id != id) {
+            node = id < node.id ? node.left : node.right;
+        }
+        return node;
+    }
+
+    private static <T> Node<T> insert(Node<T> node, long id, T value) {
+        if (node == null) return new Node<>(id, value);
+        if (id < node.id) {
+            node.left = insert(node.left, id, value);
+            if (node.left.priority > node.priority) return rotateRight(node);
+        } else {
+            node.right = insert(node.right, id, value);
+            if (node.right.priority > node.priority) return rotateLeft(node);
+        }
+        node.size++;
+        return node;
+    }
+
+    // The id is known to be present
+    private static <T> Node<T> remove(Node<T> node, long id) {
+        if (id == node.id) return merge(node.left, node.right);
+        if (id < node.id) {
+            node.left = remove(node.left, id);
+        } else {
+            node.right = remove(node.right, id);
+        }
+        node.size--;
+        return node;
+    }
+
+    // All ids of the left tree are less than the ids of the right one
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        final Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        final Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node<?> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Размер страницы должен быть больше нуля: " + limit);
+    }
+
+    // Ids are issued in ascending order, so the priority has to be a well mixed function of the id
+    private static int priority(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Arrays of a generic type can only be created raw
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Node<T>[] newNodes(int length) {
+        return new Node[length];
+    }
+
+    private static class SynchronizedOrderedIdIndex<T> extends OrderedIdIndex<T> {
+        @Override
+        public synchronized void put(long id, T value) {
+            super.put(id, value);
+        }
+
+        @Override
+        public synchronized void putAll(Collection<? extends T> values, ToLongFunction<? super T> idFunction) {
+            super.putAll(values, idFunction);
+        }
+
+        @Override
+        public synchronized T remove(long id) {
+            return super.remove(id);
+        }
+
+        @Override
+        public synchronized T get(long id) {
+            return super.get(id);
+        }
+
+        @Override
+        public synchronized int size() {
+            return super.size();
+        }
+
+        @Override
+        public synchronized void clear() {
+            super.clear();
+        }
+
+        @Override
+        public synchronized int rank(long id) {
+            return super.rank(id);
+        }
+
+        @Override
+        public synchronized List<T> page(int offset, int limit) {
+            return super.page(offset, limit);
+        }
+
+        @Override
+        public synchronized List<T> pageAfter(long cursor, int limit) {
+            return super.pageAfter(cursor, limit);
+        }
+
+        @Override
+        public synchronized List<T> page(int offset, int limit, Predicate<? super T> filter) {
+            return super.page(offset, limit, filter);
+        }
+
+        @Override
+        public synchronized List<T> pageAfter(long cursor, int limit, Predicate<? super T> filter) {
+            return super.pageAfter(cursor, limit, filter);
+        }
+    }
+}
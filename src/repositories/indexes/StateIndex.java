@@ -0,0 +1,72 @@
+package repositories.indexes;
+
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+
+import java.util.*;
+
+// Values of a repository by state, each state ordered by id like OrderedIdIndex.
+// Listens to the state of every indexed value, so a transition moves the value between the states in O(log n)
+public class StateIndex<T extends AbstractTask> implements AbstractTask.StateListener {
+    private static final StateTask[] STATES = StateTask.values();
+
+    private final EnumMap<StateTask, OrderedIdIndex<T>> stateIndexes = new EnumMap<>(StateTask.class);
+
+    public StateIndex() {
+        this(false);
+    }
+
+    private StateIndex(boolean concurrent) {
+        for (StateTask stateTask : STATES) {
+            stateIndexes.put(stateTask, concurrent ? OrderedIdIndex.createConcurrent() : new OrderedIdIndex<>());
+        }
+    }
+
+    public static <T extends AbstractTask> StateIndex<T> createConcurrent() {
+        return new StateIndex<>(true);
+    }
+
+    public void add(T value) {
+        stateIndexes.get(value.getStateTask()).put(value.getId(), value);
+        value.setStateListener(this);
+    }
+
+    // Bulk build for loading a snapshot, see OrderedIdIndex.putAll
+    public void addAll(Collection<? extends T> values) {
+        final EnumMap<StateTask, List<T>> valuesByState = new EnumMap<>(StateTask.class);
+        for (T value : values) {
+            valuesByState.computeIfAbsent(value.getStateTask(), stateTask -> new ArrayList<>()).add(value);
+            value.setStateListener(this);
+        }
+        for (Map.Entry<StateTask, List<T>> entry : valuesByState.entrySet()) {
+            stateIndexes.get(entry.getKey()).putAll(entry.getValue(), AbstractTask::getId);
+        }
+    }
+
+    public void remove(T value) {
+        value.setStateListener(null);
+        stateIndexes.get(value.getStateTask()).remove(value.getId());
+    }
+
+    public void clear() {
+        for (OrderedIdIndex<T> stateIndex : stateIndexes.values()) stateIndex.clear();
+    }
+
+    public int size(StateTask stateTask) {
+        return stateIndexes.get(stateTask).size();
+    }
+
+    public List<T> page(StateTask stateTask, int offset, int limit) {
+        return stateIndexes.get(stateTask).page(offset, limit);
+    }
+
+    public List<T> pageAfter(StateTask stateTask, long cursor, int limit) {
+        return stateIndexes.get(stateTask).pageAfter(cursor, limit);
+    }
+
+    @Override
+    public void stateChanged(AbstractTask task, StateTask previousState) {
+        final T value = stateIndexes.get(previousState).remove(task.getId());
+        if (value != null) stateIndexes.get(task.getStateTask()).put(task.getId(), value);
+    }
+}
@@ -0,0 +1,131 @@
+package repositories.indexes;
+
+import models.tasks.AbstractTask;
+import utils.collections.SortedBulkLoad;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Timed tasks never intersect each other, so only the nearest slots around a start time can overlap with it
+public class TimeSlotIndex {
+    private final TreeMap<LocalDateTime, Slot> slotsByStartTime = new TreeMap<>();
+    private final Map<Long, LocalDateTime> startTimesById = new HashMap<>();
+
+    private static class Slot {
+        private final Map<Long, LocalDateTime> endTimesById = new HashMap<>(2);
+        private LocalDateTime maxEndTime;
+
+        private void put(long id, LocalDateTime endTime) {
+            endTimesById.put(id, endTime);
+            if (maxEndTime == null || endTime.isAfter(maxEndTime)) maxEndTime = endTime;
+        }
+
+        private void remove(long id) {
+            final LocalDateTime endTime = endTimesById.remove(id);
+            if (endTime != null && endTime.equals(maxEndTime)) {
+                maxEndTime = null;
+                for (LocalDateTime slotEndTime : endTimesById.values()) {
+                    if (maxEndTime == null || slotEndTime.isAfter(maxEndTime)) maxEndTime = slotEndTime;
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return endTimesById.isEmpty();
+        }
+    }
+
+    public boolean intersects(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null) return false;
+        final Map.Entry<LocalDateTime, Slot> previous = slotsByStartTime.lowerEntry(startTime);
+        if (previous != null && startTime.isBefore(previous.getValue().maxEndTime)) return true;
+        final LocalDateTime nextStartTime = slotsByStartTime.higherKey(startTime);
+        return nextStartTime != null && nextStartTime.isBefore(endTime);
+    }
+
+    public boolean intersects(AbstractTask task) {
+        return intersects(task.getStartTime(), task.getEndTime());
+    }
+
+    // Checks a batch against the index and the tasks of the batch against each other after one sort by start time.
+    // As in the index, tasks starting at the same time do not intersect
+    public boolean intersects(Collection<? extends AbstractTask> tasks) {
+        final List<AbstractTask> timedTasks = new ArrayList<>(tasks.size());
+        for (AbstractTask task : tasks) {
+            if (task.getStartTime() != null) timedTasks.add(task);
+        }
+        timedTasks.sort(Comparator.comparing(AbstractTask::getStartTime));
+        // The latest end of the batch tasks that start before the current slot
+        LocalDateTime maxEndTime = null;
+        LocalDateTime slotStartTime = null;
+        LocalDateTime slotMaxEndTime = null;
+        for (AbstractTask task : timedTasks) {
+            if (intersects(task)) return true;
+            final LocalDateTime startTime = task.getStartTime();
+            if (!startTime.equals(slotStartTime)) {
+                if (slotMaxEndTime != null && (maxEndTime == null || slotMaxEndTime.isAfter(maxEndTime))) {
+                    maxEndTime = slotMaxEndTime;
+                }
+                slotStartTime = startTime;
+                slotMaxEndTime = null;
+            }
+            if (maxEndTime != null && startTime.isBefore(maxEndTime)) return true;
+            final LocalDateTime endTime = task.getEndTime();
+            if (slotMaxEndTime == null || endTime.isAfter(slotMaxEndTime)) slotMaxEndTime = endTime;
+        }
+        return false;
+    }
+
+    public void add(AbstractTask task) {
+        final LocalDateTime startTime = task.getStartTime();
+        if (startTime == null) return;
+        final long id = task.getId();
+        remove(id);
+        startTimesById.put(id, startTime);
+        slotsByStartTime.computeIfAbsent(startTime, key -> new Slot()).put(id, task.getEndTime());
+    }
+
+    // Fills the index from tasks sorted by start time in one pass, tasks without a start time are skipped
+    public void addAllSorted(List<? extends AbstractTask> tasks) {
+        if (!startTimesById.isEmpty()) {
+            for (AbstractTask task : tasks) add(task);
+            return;
+        }
+        final List<Map.Entry<LocalDateTime, Slot>> slots = new ArrayList<>();
+        Slot slot = null;
+        LocalDateTime slotStartTime = null;
+        for (AbstractTask task : tasks) {
+            final LocalDateTime startTime = task.getStartTime();
+            if (startTime == null) continue;
+            if (!startTime.equals(slotStartTime)) {
+                slot = new Slot();
+                slotStartTime = startTime;
+                slots.add(Map.entry(startTime, slot));
+            }
+            slot.put(task.getId(), task.getEndTime());
+            startTimesById.put(task.getId(), startTime);
+        }
+        SortedBulkLoad.putAllSorted(slotsByStartTime, slots);
+    }
+
+    public void remove(long id) {
+        final LocalDateTime startTime = startTimesById.remove(id);
+        if (startTime == null) return;
+        final Slot slot = slotsByStartTime.get(startTime);
+        slot.remove(id);
+        if (slot.isEmpty()) slotsByStartTime.remove(startTime);
+    }
+
+    public boolean contains(long id) {
+        return startTimesById.containsKey(id);
+    }
+
+    public int size() {
+        return startTimesById.size();
+    }
+
+    public void clear() {
+        slotsByStartTime.clear();
+        startTimesById.clear();
+    }
+}
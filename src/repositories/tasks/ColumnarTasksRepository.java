@@ -0,0 +1,294 @@
+package repositories.tasks;
+
+import models.enums.StateTask;
+import models.tasks.Task;
+import utils.collections.LongIntHashMap;
+import utils.collections.StringPool;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Compact store for tenants with millions of tasks. A task takes a row of parallel primitive arrays instead of the
+// Task with its Duration and LocalDateTime objects: the times are kept as seconds and nanoseconds, the state as an
+// ordinal and the name and the description as ids of a StringPool, so repeated texts are stored once.
+// find and findAll build a new Task from the row, the changes of such a task reach the repository only through
+// update. View reads the rows in place without building anything. A deleted row is filled with the last one, so the
+// rows are not kept in the order of addition. Not thread-safe
+public class ColumnarTasksRepository extends AbstractTasksRepository<Task> {
+    private static final int DEFAULT_CAPACITY = 16;
+    // Marks a missing start time or duration in the seconds columns
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final StateTask[] STATES = StateTask.values();
+
+    private final LongIntHashMap idRows;
+    private final StringPool strings = new StringPool();
+    private long[] ids;
+    private int[] names;
+    private int[] descriptions;
+    private byte[] states;
+    private long[] startSeconds;
+    private int[] startNanos;
+    private long[] durationSeconds;
+    private int[] durationNanos;
+    private int size;
+    private int modifications;
+
+    public ColumnarTasksRepository() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarTasksRepository(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Ожидаемый размер не может быть отрицательным: " + expectedSize);
+        }
+        idRows = new LongIntHashMap(expectedSize);
+        allocate(Math.max(expectedSize, DEFAULT_CAPACITY));
+    }
+
+    // Flyweight over one row, moved from row to row by forEach. It is valid until the next change of the repository
+    public final class View {
+        private int row;
+        private int expectedModifications;
+
+        private View() {
+        }
+
+        public long getId() {
+            return ids[row()];
+        }
+
+        public String getName() {
+            return strings.get(names[row()]);
+        }
+
+        public String getDescription() {
+            return strings.get(descriptions[row()]);
+        }
+
+        public StateTask getStateTask() {
+            return STATES[states[row()]];
+        }
+
+        public Duration getDuration() {
+            return duration(row());
+        }
+
+        public LocalDateTime getStartTime() {
+            return startTime(row());
+        }
+
+        public boolean hasStartTime() {
+            return startSeconds[row()] != NO_TIME;
+        }
+
+        // Compares the start time without building it, a missing start time is before any other
+        public boolean startsBefore(LocalDateTime time) {
+            final int row = row();
+            final long seconds = time.toEpochSecond(ZoneOffset.UTC);
+            return startSeconds[row] < seconds || startSeconds[row] == seconds && startNanos[row] < time.getNano();
+        }
+
+        public Task toTask() {
+            return task(row());
+        }
+
+        private View moveTo(int row) {
+            this.row = row;
+            this.expectedModifications = modifications;
+            return this;
+        }
+
+        private int row() {
+            if (modifications != expectedModifications) throw new ConcurrentModificationException();
+            return row;
+        }
+    }
+
+    @Override
+    public Collection<Task> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<>() {
+                    private final int expectedModifications = modifications;
+                    private int row;
+
+                    @Override
+                    public boolean hasNext() {
+                        return row < size;
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (modifications != expectedModifications) throw new ConcurrentModificationException();
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return task(row++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // The same view is passed for every row, it must not be kept after the call
+    public void forEach(Consumer<View> action) {
+        final View view = new View();
+        for (int row = 0; row < size; row++) action.accept(view.moveTo(row));
+    }
+
+    // Returns null if there is no such task
+    public View view(long id) {
+        final int row = idRows.get(id);
+        return row == LongIntHashMap.NO_VALUE ? null : new View().moveTo(row);
+    }
+
+    @Override
+    public Task find(long id) {
+        final int row = idRows.get(id);
+        return row == LongIntHashMap.NO_VALUE ? null : task(row);
+    }
+
+    @Override
+    public Task add(Task task) {
+        final int row = append(TASK_COUNTER.increment());
+        write(row, task);
+        return task(row);
+    }
+
+    public Task restore(Task task) {
+        TASK_COUNTER.advanceTo(task.getId());
+        int row = idRows.get(task.getId());
+        if (row == LongIntHashMap.NO_VALUE) {
+            row = append(task.getId());
+        } else {
+            release(row);
+        }
+        write(row, task);
+        return task(row);
+    }
+
+    public void restoreAll(Collection<Task> tasks) {
+        for (Task task : tasks) restore(task);
+    }
+
+    @Override
+    public Task update(long id, Task task) {
+        final int row = idRows.get(id);
+        if (row == LongIntHashMap.NO_VALUE) return null;
+        if (task != null) {
+            release(row);
+            write(row, task);
+        }
+        return task(row);
+    }
+
+    @Override
+    public Task delete(long id) {
+        final int row = idRows.remove(id);
+        if (row == LongIntHashMap.NO_VALUE) return null;
+        final Task task = task(row);
+        release(row);
+        final int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            names[row] = names[last];
+            descriptions[row] = descriptions[last];
+            states[row] = states[last];
+            startSeconds[row] = startSeconds[last];
+            startNanos[row] = startNanos[last];
+            durationSeconds[row] = durationSeconds[last];
+            durationNanos[row] = durationNanos[last];
+            idRows.put(ids[row], row);
+        }
+        modifications++;
+        return task;
+    }
+
+    @Override
+    public void clear() {
+        idRows.clear();
+        strings.clear();
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int append(long id) {
+        if (size == ids.length) grow();
+        final int row = size++;
+        ids[row] = id;
+        idRows.put(id, row);
+        modifications++;
+        return row;
+    }
+
+    private void write(int row, Task task) {
+        names[row] = strings.intern(task.getName());
+        descriptions[row] = strings.intern(task.getDescription());
+        states[row] = (byte) task.getStateTask().ordinal();
+        final LocalDateTime startTime = task.getStartTime();
+        startSeconds[row] = startTime == null ? NO_TIME : startTime.toEpochSecond(ZoneOffset.UTC);
+        startNanos[row] = startTime == null ? 0 : startTime.getNano();
+        final Duration duration = task.getDuration();
+        durationSeconds[row] = duration == null ? NO_TIME : duration.getSeconds();
+        durationNanos[row] = duration == null ? 0 : duration.getNano();
+        modifications++;
+    }
+
+    private void release(int row) {
+        strings.release(names[row]);
+        strings.release(descriptions[row]);
+    }
+
+    private Task task(int row) {
+        return Task.createTask(ids[row], strings.get(names[row]), strings.get(descriptions[row]), STATES[states[row]],
+                duration(row), startTime(row));
+    }
+
+    private Duration duration(int row) {
+        return durationSeconds[row] == NO_TIME ? null : Duration.ofSeconds(durationSeconds[row], durationNanos[row]);
+    }
+
+    private LocalDateTime startTime(int row) {
+        return startSeconds[row] == NO_TIME ? null
+                : LocalDateTime.ofEpochSecond(startSeconds[row], startNanos[row], ZoneOffset.UTC);
+    }
+
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        states = Arrays.copyOf(states, capacity);
+        startSeconds = Arrays.copyOf(startSeconds, capacity);
+        startNanos = Arrays.copyOf(startNanos, capacity);
+        durationSeconds = Arrays.copyOf(durationSeconds, capacity);
+        durationNanos = Arrays.copyOf(durationNanos, capacity);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        names = new int[capacity];
+        descriptions = new int[capacity];
+        states = new byte[capacity];
+        startSeconds = new long[capacity];
+        startNanos = new int[capacity];
+        durationSeconds = new long[capacity];
+        durationNanos = new int[capacity];
+    }
+}
@@ -3,6 +3,7 @@ package repositories.tasks;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
 
+import java.util.Collection;
 import java.util.LinkedHashMap;
 
 public class CombinedTasksRepository {
@@ -10,10 +11,10 @@ public class CombinedTasksRepository {
 
     private CombinedTasksRepository(EpicsRepository epicsRepository, TasksRepository tasksRepository) {
         abstractTasks = new LinkedHashMap<>(epicsRepository.size() + tasksRepository.size(), 0.75F, true);
-        abstractTasks.putAll(tasksRepository.getIdTaskMap());
-        abstractTasks.putAll(epicsRepository.getIdEpicMap());
+        putAll(tasksRepository.getIdTaskMap().values());
+        putAll(epicsRepository.getIdEpicMap().values());
         for (Epic epic : epicsRepository.findAll()) {
-            abstractTasks.putAll(epic.getIdStoryMap());
+            putAll(epic.getIdStoryMap().values());
         }
     }
 
@@ -23,15 +24,15 @@ public class CombinedTasksRepository {
 
     private CombinedTasksRepository(EpicsRepository epicsRepository) {
         abstractTasks = new LinkedHashMap<>(epicsRepository.size(), 0.75F, true);
-        abstractTasks.putAll(epicsRepository.getIdEpicMap());
+        putAll(epicsRepository.getIdEpicMap().values());
         for (Epic epic : epicsRepository.findAll()) {
-            abstractTasks.putAll(epic.getIdStoryMap());
+            putAll(epic.getIdStoryMap().values());
         }
     }
 
     private CombinedTasksRepository(TasksRepository tasksRepository) {
         abstractTasks = new LinkedHashMap<>(tasksRepository.size(), 0.75F, true);
-        abstractTasks.putAll(tasksRepository.getIdTaskMap());
+        putAll(tasksRepository.getIdTaskMap().values());
     }
 
     public static CombinedTasksRepository getInstance(EpicsRepository epicsRepository,
@@ -53,4 +54,8 @@ public class CombinedTasksRepository {
     public void clear() {
         abstractTasks.clear();
     }
+
+    private void putAll(Collection<? extends AbstractTask> tasks) {
+        for (AbstractTask task : tasks) abstractTasks.put(task.getId(), task);
+    }
 }
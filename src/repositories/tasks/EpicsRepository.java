@@ -1,27 +1,79 @@
 package repositories.tasks;
 
+import models.enums.StateTask;
 import models.tasks.Epic;
 import models.tasks.Story;
+import repositories.indexes.OrderedIdIndex;
+import repositories.indexes.StateIndex;
+import utils.collections.ConcurrentLongMap;
+import utils.collections.LongMap;
+import utils.collections.LongObjectHashMap;
 
 import java.util.*;
 
 public class EpicsRepository extends AbstractTasksRepository<Epic> {
 
-    private final Map<Long, Epic> idEpicMap;
+    private final LongMap<Epic> idEpicMap;
+    private final LongMap<Story> idStoryMap;
+    private final LongMap<Epic> storyIdEpicMap;
+    private final boolean concurrent;
+    private final OrderedIdIndex<Epic> idIndex;
+    private final StateIndex<Epic> stateIndex;
+    // Stories of every epic ordered by id for paginated listing
+    private final LongMap<OrderedIdIndex<Story>> epicIdStoriesIndex;
+    // Stories of all epics by state
+    private final StateIndex<Story> storiesStateIndex;
+    private final Epic.StoriesListener storiesIndexer = new Epic.StoriesListener() {
+        @Override
+        public void storyAdded(Epic epic, Story story) {
+            idStoryMap.put(story.getId(), story);
+            storyIdEpicMap.put(story.getId(), epic);
+            epicIdStoriesIndex.get(epic.getId()).put(story.getId(), story);
+            storiesStateIndex.add(story);
+        }
+
+        @Override
+        public void storyRemoved(Epic epic, Story story) {
+            if (idStoryMap.remove(story.getId(), story)) {
+                storyIdEpicMap.remove(story.getId());
+                final OrderedIdIndex<Story> storiesIndex = epicIdStoriesIndex.get(epic.getId());
+                if (storiesIndex != null) storiesIndex.remove(story.getId());
+                storiesStateIndex.remove(story);
+            }
+        }
+    };
 
     public EpicsRepository() {
-        super();
-        idEpicMap = new HashMap<>();
+        this(new LongObjectHashMap<>(), new LongObjectHashMap<>(), new LongObjectHashMap<>(), new LongObjectHashMap<>(),
+                false);
     }
 
     public EpicsRepository(Collection<Epic> epics) {
         this();
         Objects.requireNonNull(epics, "epics must not be null");
         for (Epic epic : epics) {
-            idEpicMap.put(TASK_COUNTER.increment(), Epic.createEpic(TASK_COUNTER.getValue(), epic));
+            add(epic);
         }
     }
 
+    private EpicsRepository(LongMap<Epic> idEpicMap, LongMap<Story> idStoryMap, LongMap<Epic> storyIdEpicMap,
+                            LongMap<OrderedIdIndex<Story>> epicIdStoriesIndex, boolean concurrent) {
+        super();
+        this.idEpicMap = idEpicMap;
+        this.idStoryMap = idStoryMap;
+        this.storyIdEpicMap = storyIdEpicMap;
+        this.epicIdStoriesIndex = epicIdStoriesIndex;
+        this.concurrent = concurrent;
+        this.idIndex = newIndex();
+        this.stateIndex = concurrent ? StateIndex.createConcurrent() : new StateIndex<>();
+        this.storiesStateIndex = concurrent ? StateIndex.createConcurrent() : new StateIndex<>();
+    }
+
+    public static EpicsRepository createConcurrent() {
+        return new EpicsRepository(new ConcurrentLongMap<>(), new ConcurrentLongMap<>(), new ConcurrentLongMap<>(),
+                new ConcurrentLongMap<>(), true);
+    }
+
     @Override
     public Collection<Epic> findAll() {
         return idEpicMap.values();
@@ -34,9 +86,24 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
 
     @Override
     public Epic add(Epic epic) {
-        final Epic newEpic;
-        idEpicMap.put(TASK_COUNTER.increment(), newEpic = Epic.createEpic(TASK_COUNTER.getValue(), epic));
-        return newEpic;
+        return index(Epic.createEpic(TASK_COUNTER.increment(), epic));
+    }
+
+    public Epic restore(Epic epic) {
+        TASK_COUNTER.advanceTo(epic.getId());
+        return index(epic);
+    }
+
+    // Restores the epics of a snapshot with one bulk build of the id index
+    public void restoreAll(Collection<Epic> epics) {
+        long maxId = 0;
+        for (Epic epic : epics) {
+            link(epic);
+            maxId = Math.max(maxId, epic.getId());
+        }
+        TASK_COUNTER.advanceTo(maxId);
+        idIndex.putAll(epics, Epic::getId);
+        stateIndex.addAll(epics);
     }
 
     @Override
@@ -50,12 +117,81 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
 
     @Override
     public Epic delete(long id) {
-        return idEpicMap.remove(id);
+        final Epic epic = idEpicMap.remove(id);
+        if (epic != null) unindex(epic);
+        return epic;
     }
 
     @Override
     public void clear() {
+        for (Epic epic : idEpicMap.values()) {
+            epic.setStoriesListener(null);
+            epic.setStateListener(null);
+            for (Story story : epic.getStories()) story.setStateListener(null);
+        }
         idEpicMap.clear();
+        idStoryMap.clear();
+        storyIdEpicMap.clear();
+        idIndex.clear();
+        stateIndex.clear();
+        epicIdStoriesIndex.clear();
+        storiesStateIndex.clear();
+    }
+
+    public List<Epic> findPage(int offset, int limit) {
+        return idIndex.page(offset, limit);
+    }
+
+    public List<Epic> findPageAfter(long cursor, int limit) {
+        return idIndex.pageAfter(cursor, limit);
+    }
+
+    public List<Epic> findPage(StateTask stateTask, int offset, int limit) {
+        return stateIndex.page(stateTask, offset, limit);
+    }
+
+    public List<Epic> findPageAfter(StateTask stateTask, long cursor, int limit) {
+        return stateIndex.pageAfter(stateTask, cursor, limit);
+    }
+
+    public int size(StateTask stateTask) {
+        return stateIndex.size(stateTask);
+    }
+
+    public List<Story> findStoriesPage(StateTask stateTask, int offset, int limit) {
+        return storiesStateIndex.page(stateTask, offset, limit);
+    }
+
+    public List<Story> findStoriesPageAfter(StateTask stateTask, long cursor, int limit) {
+        return storiesStateIndex.pageAfter(stateTask, cursor, limit);
+    }
+
+    public int storiesSize(StateTask stateTask) {
+        return storiesStateIndex.size(stateTask);
+    }
+
+    // Returns null if there is no such epic
+    public List<Story> findStoriesPage(long epicId, int offset, int limit) {
+        final OrderedIdIndex<Story> storiesIndex = epicIdStoriesIndex.get(epicId);
+        return storiesIndex == null ? null : storiesIndex.page(offset, limit);
+    }
+
+    public List<Story> findStoriesPageAfter(long epicId, long cursor, int limit) {
+        final OrderedIdIndex<Story> storiesIndex = epicIdStoriesIndex.get(epicId);
+        return storiesIndex == null ? null : storiesIndex.pageAfter(cursor, limit);
+    }
+
+    // Stories of one epic are few, so they are filtered by state while walking the index of the epic
+    public List<Story> findStoriesPage(long epicId, StateTask stateTask, int offset, int limit) {
+        final OrderedIdIndex<Story> storiesIndex = epicIdStoriesIndex.get(epicId);
+        return storiesIndex == null ? null
+                : storiesIndex.page(offset, limit, story -> story.getStateTask() == stateTask);
+    }
+
+    public List<Story> findStoriesPageAfter(long epicId, StateTask stateTask, long cursor, int limit) {
+        final OrderedIdIndex<Story> storiesIndex = epicIdStoriesIndex.get(epicId);
+        return storiesIndex == null ? null
+                : storiesIndex.pageAfter(cursor, limit, story -> story.getStateTask() == stateTask);
     }
 
     @Override
@@ -63,10 +199,14 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
         return idEpicMap.size();
     }
 
+    public int storiesSize() {
+        return idStoryMap.size();
+    }
+
     public Collection<Story> findAllStories(Epic epic) {
         Epic mapEpic = idEpicMap.get(epic.getId());
         if (mapEpic == null) return Collections.emptyList();
-        return epic.getStories();
+        return mapEpic.getStories();
     }
 
     public Story findStory(long id, Epic epic) {
@@ -76,11 +216,11 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
     }
 
     public Story findStory(long id) {
-        Story story;
-        for (Epic epic : idEpicMap.values()) {
-            if ((story = findStory(id, epic)) != null) return story;
-        }
-        return null;
+        return idStoryMap.get(id);
+    }
+
+    public Epic findEpicByStory(long storyId) {
+        return storyIdEpicMap.get(storyId);
     }
 
     public Story addStory(Story story, Epic epic) {
@@ -89,31 +229,31 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
         return mapEpic.addStory(Story.createStory(TASK_COUNTER.increment(), story));
     }
 
+    public Story restoreStory(Story story) {
+        final Epic mapEpic = idEpicMap.get(story.getEpic().getId());
+        if (mapEpic == null) return null;
+        TASK_COUNTER.advanceTo(story.getId());
+        return mapEpic.addStory(story);
+    }
+
     public Story updateStory(long id, Story story) {
-        final Story mapStory = findStory(id);
-        if (mapStory != null) {
-            final Epic currentEpic = mapStory.getEpic();
+        final Epic currentEpic = storyIdEpicMap.get(id);
+        if (currentEpic != null) {
             if (currentEpic.getId() == story.getEpic().getId()) {
                 return currentEpic.updateStory(id, story);
             }
-            deleteStory(id, currentEpic);
             final Epic mapEpic = idEpicMap.get(story.getEpic().getId());
             if (mapEpic == null) return null;
+            currentEpic.removeStory(id);
             return mapEpic.addStory(Story.createStory(id, story));
         }
         return null;
     }
 
     public Story deleteStory(long id) {
-        final Story story = findStory(id);
-        if (story == null) return null;
-        return deleteStory(id, story.getEpic());
-    }
-
-    private Story deleteStory(long id, Epic epic) {
-        final Epic mapEpic = idEpicMap.get(epic.getId());
-        if (mapEpic == null) return null;
-        return mapEpic.removeStory(id);
+        final Epic currentEpic = storyIdEpicMap.get(id);
+        if (currentEpic == null) return null;
+        return currentEpic.removeStory(id);
     }
 
     public void clearStories(Epic epic) {
@@ -124,7 +264,42 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
         return idEpicMap.isEmpty();
     }
 
-    Map<Long, Epic> getIdEpicMap() {
+    LongMap<Epic> getIdEpicMap() {
         return idEpicMap;
     }
+
+    private Epic index(Epic epic) {
+        link(epic);
+        idIndex.put(epic.getId(), epic);
+        stateIndex.add(epic);
+        return epic;
+    }
+
+    // Indexes the epic with its stories everywhere but in the id index of epics
+    private void link(Epic epic) {
+        final Epic previousEpic = idEpicMap.put(epic.getId(), epic);
+        if (previousEpic != null && previousEpic != epic) unindex(previousEpic);
+        epicIdStoriesIndex.put(epic.getId(), newIndex());
+        epic.setStoriesListener(storiesIndexer);
+        for (Story story : epic.getStories()) {
+            storiesIndexer.storyAdded(epic, story);
+        }
+    }
+
+    private void unindex(Epic epic) {
+        epic.setStoriesListener(null);
+        stateIndex.remove(epic);
+        for (Story story : epic.getStories()) {
+            storiesIndexer.storyRemoved(epic, story);
+        }
+        // A replaced epic keeps its id in both indexes, they are refilled by index
+        if (idEpicMap.get(epic.getId()) == null) {
+            idIndex.remove(epic.getId());
+            epicIdStoriesIndex.remove(epic.getId());
+        }
+    }
+
+    private <T> OrderedIdIndex<T> newIndex() {
+        return concurrent ? OrderedIdIndex.createConcurrent() : new OrderedIdIndex<>();
+    }
 }
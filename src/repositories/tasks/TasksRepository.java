@@ -1,28 +1,46 @@
 package repositories.tasks;
 
+import models.enums.StateTask;
 import models.tasks.Task;
+import repositories.indexes.OrderedIdIndex;
+import repositories.indexes.StateIndex;
+import utils.collections.ConcurrentLongMap;
+import utils.collections.LongMap;
+import utils.collections.LongObjectHashMap;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
 public class TasksRepository extends AbstractTasksRepository<Task> {
 
-    private final Map<Long, Task> idTaskMap;
+    private final LongMap<Task> idTaskMap;
+    private final OrderedIdIndex<Task> idIndex;
+    private final StateIndex<Task> stateIndex;
 
     public TasksRepository() {
-        idTaskMap = new HashMap<>();
+        this(new LongObjectHashMap<>(), new OrderedIdIndex<>(), new StateIndex<>());
     }
 
     public TasksRepository(Collection<Task> tasks) {
         this();
         Objects.requireNonNull(tasks, "tasks must not be null");
         for (Task task : tasks) {
-            idTaskMap.put(TASK_COUNTER.increment(), Task.createTask(TASK_COUNTER.getValue(), task));
+            add(task);
         }
     }
 
+    private TasksRepository(LongMap<Task> idTaskMap, OrderedIdIndex<Task> idIndex, StateIndex<Task> stateIndex) {
+        this.idTaskMap = idTaskMap;
+        this.idIndex = idIndex;
+        this.stateIndex = stateIndex;
+    }
+
+    public static TasksRepository createConcurrent() {
+        return new TasksRepository(new ConcurrentLongMap<>(), OrderedIdIndex.createConcurrent(),
+                StateIndex.createConcurrent());
+    }
+
     @Override
     public Collection<Task> findAll() {
         return idTaskMap.values();
@@ -35,11 +53,56 @@ public class TasksRepository extends AbstractTasksRepository<Task> {
 
     @Override
     public Task add(Task task) {
-        final Task newTask;
-        idTaskMap.put(TASK_COUNTER.increment(), newTask = Task.createTask(TASK_COUNTER.getValue(), task));
+        final long id = TASK_COUNTER.increment();
+        final Task newTask = Task.createTask(id, task);
+        idTaskMap.put(id, newTask);
+        idIndex.put(id, newTask);
+        stateIndex.add(newTask);
         return newTask;
     }
 
+    public Task restore(Task task) {
+        TASK_COUNTER.advanceTo(task.getId());
+        final Task previousTask = idTaskMap.put(task.getId(), task);
+        if (previousTask != null && previousTask != task) stateIndex.remove(previousTask);
+        idIndex.put(task.getId(), task);
+        stateIndex.add(task);
+        return task;
+    }
+
+    // Restores the tasks of a snapshot with one bulk build of the id index
+    public void restoreAll(Collection<Task> tasks) {
+        long maxId = 0;
+        for (Task task : tasks) {
+            final Task previousTask = idTaskMap.put(task.getId(), task);
+            if (previousTask != null && previousTask != task) stateIndex.remove(previousTask);
+            maxId = Math.max(maxId, task.getId());
+        }
+        TASK_COUNTER.advanceTo(maxId);
+        idIndex.putAll(tasks, Task::getId);
+        stateIndex.addAll(tasks);
+    }
+
+    public List<Task> findPage(int offset, int limit) {
+        return idIndex.page(offset, limit);
+    }
+
+    public List<Task> findPageAfter(long cursor, int limit) {
+        return idIndex.pageAfter(cursor, limit);
+    }
+
+    public List<Task> findPage(StateTask stateTask, int offset, int limit) {
+        return stateIndex.page(stateTask, offset, limit);
+    }
+
+    public List<Task> findPageAfter(StateTask stateTask, long cursor, int limit) {
+        return stateIndex.pageAfter(stateTask, cursor, limit);
+    }
+
+    public int size(StateTask stateTask) {
+        return stateIndex.size(stateTask);
+    }
+
     @Override
     public Task update(long id, Task task) {
         final Task currentTask = idTaskMap.get(id);
@@ -51,12 +114,20 @@ public class TasksRepository extends AbstractTasksRepository<Task> {
 
     @Override
     public Task delete(long id) {
-        return idTaskMap.remove(id);
+        final Task task = idTaskMap.remove(id);
+        if (task != null) {
+            idIndex.remove(id);
+            stateIndex.remove(task);
+        }
+        return task;
     }
 
     @Override
     public void clear() {
+        for (Task task : idTaskMap.values()) task.setStateListener(null);
         idTaskMap.clear();
+        idIndex.clear();
+        stateIndex.clear();
     }
 
     @Override
@@ -64,7 +135,7 @@ public class TasksRepository extends AbstractTasksRepository<Task> {
         return idTaskMap.size();
     }
 
-    public Map<Long, Task> getIdTaskMap() {
+    public LongMap<Task> getIdTaskMap() {
         return idTaskMap;
     }
 
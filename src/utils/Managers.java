@@ -2,8 +2,13 @@ package utils;
 
 
 import managers.FileBackedAppManager;
+import managers.HttpTaskManager;
 import managers.InMemoryAppManager;
+import managers.history.BoundedHistoryManager;
+import managers.persistence.DurabilityMode;
+import managers.persistence.SnapshotFormat;
 
+import java.net.URI;
 import java.nio.file.Path;
 
 public class Managers {
@@ -11,7 +16,40 @@ public class Managers {
         return new InMemoryAppManager();
     }
 
+    // The history keeps only the last historyCapacity viewed tasks
+    public static InMemoryAppManager getBounded(int historyCapacity) {
+        return new InMemoryAppManager(new BoundedHistoryManager(historyCapacity));
+    }
+
     public static FileBackedAppManager getFileBacked(Path path) {
         return FileBackedAppManager.getInstance(path);
     }
+
+    public static FileBackedAppManager getFileBacked(Path path, DurabilityMode durabilityMode) {
+        return FileBackedAppManager.builder(path).durability(durabilityMode).build();
+    }
+
+    public static FileBackedAppManager getFileBacked(Path path, SnapshotFormat snapshotFormat) {
+        return FileBackedAppManager.builder(path).format(snapshotFormat).build();
+    }
+
+    public static FileBackedAppManager getJournaled(Path path) {
+        return FileBackedAppManager.builder(path).journaled().build();
+    }
+
+    public static FileBackedAppManager getJournaled(Path path, int compactionThreshold) {
+        return FileBackedAppManager.builder(path).journaled(compactionThreshold).build();
+    }
+
+    public static FileBackedAppManager getJournaled(Path path, DurabilityMode durabilityMode) {
+        return FileBackedAppManager.builder(path).journaled().durability(durabilityMode).build();
+    }
+
+    public static HttpTaskManager getHttp(URI kvServerUrl) {
+        return HttpTaskManager.getInstance(kvServerUrl);
+    }
+
+    public static HttpTaskManager getHttp(URI kvServerUrl, DurabilityMode durabilityMode) {
+        return HttpTaskManager.builder(kvServerUrl).durability(durabilityMode).build();
+    }
 }
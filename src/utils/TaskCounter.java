@@ -1,7 +1,9 @@
 package utils;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class TaskCounter {
-    private long counter;
+    private final AtomicLong counter = new AtomicLong();
 
     private TaskCounter() {
     }
@@ -15,14 +17,19 @@ public class TaskCounter {
     }
 
     public long getValue() {
-        return counter;
+        return counter.get();
     }
 
     public long increment() {
-        return ++counter;
+        return counter.incrementAndGet();
+    }
+
+    public long advanceTo(long value) {
+        return counter.accumulateAndGet(value, Math::max);
     }
 
     public long reset() {
-        return counter = 0;
+        counter.set(0);
+        return 0;
     }
 }
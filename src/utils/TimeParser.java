@@ -0,0 +1,61 @@
+package utils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Reads the values written by Duration.toString() and LocalDateTime.toString() straight from a range of characters.
+// The common layouts are parsed by hand, anything else goes to the JDK parsers
+public class TimeParser {
+    private TimeParser() {
+    }
+
+    // Durations of tasks are whole minutes or hours, those are read without the regular expression of Duration.parse
+    public static Duration parseDuration(CharSequence value, int from, int to) {
+        final int length = to - from;
+        if (length > 3 && value.charAt(from) == 'P' && value.charAt(from + 1) == 'T') {
+            final char unit = value.charAt(to - 1);
+            long amount = 0;
+            int i = from + 2;
+            for (; i < to - 1; i++) {
+                final int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || amount > Integer.MAX_VALUE) break;
+                amount = amount * 10 + digit;
+            }
+            if (i == to - 1) {
+                if (unit == 'M') return Duration.ofMinutes(amount);
+                if (unit == 'H') return Duration.ofHours(amount);
+                if (unit == 'S') return Duration.ofSeconds(amount);
+            }
+        }
+        return Duration.parse(value.subSequence(from, to));
+    }
+
+    // LocalDateTime.toString() without fractions has a fixed layout, it is read without going through the formatter
+    public static LocalDateTime parseLocalDateTime(CharSequence value, int from, int to) {
+        final int length = to - from;
+        if ((length == 16 || length == 19) && value.charAt(from + 4) == '-' && value.charAt(from + 7) == '-'
+                && value.charAt(from + 10) == 'T' && value.charAt(from + 13) == ':'
+                && (length == 16 || value.charAt(from + 16) == ':')) {
+            final int year = digits(value, from, from + 4);
+            final int month = digits(value, from + 5, from + 7);
+            final int day = digits(value, from + 8, from + 10);
+            final int hour = digits(value, from + 11, from + 13);
+            final int minute = digits(value, from + 14, from + 16);
+            final int second = length == 19 ? digits(value, from + 17, from + 19) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(value.subSequence(from, to));
+    }
+
+    private static int digits(CharSequence value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
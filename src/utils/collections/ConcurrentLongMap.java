@@ -0,0 +1,55 @@
+package utils.collections;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// LongMap over a ConcurrentHashMap for the concurrent repositories, whose readers go without locks. Keys are boxed
+public class ConcurrentLongMap<V> implements LongMap<V> {
+    private final ConcurrentHashMap<Long, V> map = new ConcurrentHashMap<>();
+
+    @Override
+    public V get(long key) {
+        return map.get(key);
+    }
+
+    @Override
+    public V put(long key, V value) {
+        return map.put(key, Objects.requireNonNull(value, "value must not be null"));
+    }
+
+    @Override
+    public V remove(long key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public boolean remove(long key, V value) {
+        return map.remove(key, value);
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return map.values();
+    }
+}
@@ -0,0 +1,136 @@
+package utils.collections;
+
+import java.util.Arrays;
+
+// Map of long keys to non-negative int values without boxing. Open addressing with linear probing in two parallel
+// arrays; a removal shifts the following entries of the cluster back, so no tombstones pile up
+public class LongIntHashMap {
+    // Returned for a missing key, also marks an empty slot
+    public static final int NO_VALUE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Ожидаемый размер не может быть отрицательным: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == NO_VALUE) return NO_VALUE;
+            if (keys[slot] == key) return values[slot];
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    // Returns the previous value or NO_VALUE
+    public int put(long key, int value) {
+        if (value < 0) throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+        int slot = slot(key);
+        for (; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) resize(keys.length * 2);
+        return NO_VALUE;
+    }
+
+    // Returns the removed value or NO_VALUE
+    public int remove(long key) {
+        int slot = slot(key);
+        for (; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+        return NO_VALUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    // An entry further along the cluster moves into the freed slot unless its home slot lies between the two
+    private void shiftBack(int freeSlot) {
+        int slot = freeSlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == NO_VALUE) break;
+            final int home = slot(keys[slot]);
+            final boolean reachable = freeSlot <= slot ? home <= freeSlot || home > slot
+                    : home <= freeSlot && home > slot;
+            if (reachable) {
+                keys[freeSlot] = keys[slot];
+                values[freeSlot] = values[slot];
+                freeSlot = slot;
+            }
+        }
+        values[freeSlot] = NO_VALUE;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == NO_VALUE) continue;
+            int slot = slot(oldKeys[i]);
+            while (values[slot] != NO_VALUE) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+        resizeThreshold = capacity / 2;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+
+    // The table is kept at most half full
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expectedSize) capacity <<= 1;
+        return capacity;
+    }
+}
@@ -0,0 +1,28 @@
+package utils.collections;
+
+import java.util.Collection;
+
+// Map with primitive long keys for the repositories. Values must not be null
+public interface LongMap<V> {
+    V get(long key);
+
+    // Returns the previous value or null
+    V put(long key, V value);
+
+    // Returns the removed value or null
+    V remove(long key);
+
+    // Removes the entry only while the key maps to the value
+    boolean remove(long key, V value);
+
+    boolean containsKey(long key);
+
+    int size();
+
+    boolean isEmpty();
+
+    void clear();
+
+    // A live view, not a copy
+    Collection<V> values();
+}
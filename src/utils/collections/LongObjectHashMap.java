@@ -0,0 +1,214 @@
+package utils.collections;
+
+import java.util.*;
+
+// Insertion-ordered LongMap without boxing, iterated like a LinkedHashMap. The entries are appended to dense arrays
+// of keys and values, an open-addressing table with linear probing keeps the positions of the entries. A removed
+// entry leaves a hole that is squeezed out when the arrays fill up, so there are no per-entry objects at all.
+// Not thread-safe
+public class LongObjectHashMap<V> implements LongMap<V> {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 8;
+
+    // Positions of the entries, at most half of the table is used
+    private int[] table;
+    private int mask;
+    private long[] keys;
+    private Object[] values;
+    // The next position to append to, the holes before it have null values
+    private int end;
+    private int size;
+    private int modifications;
+    private Values valuesView;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Ожидаемый размер не может быть отрицательным: " + expectedSize);
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final int position = position(key);
+        return position == EMPTY ? null : (V) values[position];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value must not be null");
+        int slot = slot(key);
+        for (int position; (position = table[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[position] == key) {
+                final V previous = (V) values[position];
+                values[position] = value;
+                return previous;
+            }
+        }
+        if (end == keys.length) {
+            // Squeezing the holes out is enough while a quarter of the arrays are holes
+            rebuild(end - size >= keys.length / 4 ? keys.length : keys.length * 2);
+            slot = slot(key);
+            while (table[slot] != EMPTY) slot = (slot + 1) & mask;
+        }
+        keys[end] = key;
+        values[end] = value;
+        table[slot] = end++;
+        size++;
+        modifications++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = slot(key);
+        for (int position; (position = table[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[position] == key) {
+                final V previous = (V) values[position];
+                values[position] = null;
+                shiftBack(slot);
+                size--;
+                modifications++;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(long key, V value) {
+        final int position = position(key);
+        if (position == EMPTY || !Objects.equals(values[position], value)) return false;
+        remove(key);
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        return position(key) != EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(values, 0, end, null);
+        end = 0;
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (valuesView == null) valuesView = new Values();
+        return valuesView;
+    }
+
+    private int position(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            final int position = table[slot];
+            if (position == EMPTY || keys[position] == key) return position;
+        }
+    }
+
+    // A position further along the cluster moves into the freed slot unless its home slot lies between the two
+    private void shiftBack(int freeSlot) {
+        int slot = freeSlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int position = table[slot];
+            if (position == EMPTY) break;
+            final int home = slot(keys[position]);
+            final boolean reachable = freeSlot <= slot ? home <= freeSlot || home > slot
+                    : home <= freeSlot && home > slot;
+            if (reachable) {
+                table[freeSlot] = position;
+                freeSlot = slot;
+            }
+        }
+        table[freeSlot] = EMPTY;
+    }
+
+    private void rebuild(int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldEnd = end;
+        allocate(capacity);
+        for (int i = 0; i < oldEnd; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = slot(oldKeys[i]);
+            while (table[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[end] = oldKeys[i];
+            values[end] = oldValues[i];
+            table[slot] = end++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity * 2];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        end = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private final int expectedModifications = modifications;
+                private int position = skipHoles(0);
+
+                @Override
+                public boolean hasNext() {
+                    return position < end;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (modifications != expectedModifications) throw new ConcurrentModificationException();
+                    if (!hasNext()) throw new NoSuchElementException();
+                    final V value = (V) values[position];
+                    position = skipHoles(position + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int skipHoles(int position) {
+            while (position < end && values[position] == null) position++;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package utils.collections;
+
+import java.util.*;
+
+// Fills an empty TreeSet or TreeMap from a list that is already sorted. The tree takes a SortedSet or a SortedMap
+// with its own comparator in linear time instead of inserting and rebalancing element by element, the sorted list
+// is passed to it through a read-only view that never leaves this class
+public final class SortedBulkLoad {
+    private SortedBulkLoad() {
+    }
+
+    // The elements must be sorted by the comparator of the set and distinct
+    public static <E> void addAllSorted(TreeSet<E> set, List<E> sorted) {
+        set.addAll(new SetView<>(sorted, set.comparator()));
+    }
+
+    // The entries must be sorted by their keys with the comparator of the map and distinct
+    public static <K, V> void putAllSorted(TreeMap<K, V> map, List<Map.Entry<K, V>> sorted) {
+        map.putAll(new MapView<>(sorted, map.comparator()));
+    }
+
+    // Only iteration, size and comparator are used by the trees, the range views are never asked for
+    private static class SetView<E> extends AbstractSet<E> implements SortedSet<E> {
+        private final List<E> sorted;
+        private final Comparator<? super E> comparator;
+
+        private SetView(List<E> sorted, Comparator<? super E> comparator) {
+            this.sorted = Collections.unmodifiableList(sorted);
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return sorted.iterator();
+        }
+
+        @Override
+        public int size() {
+            return sorted.size();
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public E first() {
+            if (sorted.isEmpty()) throw new NoSuchElementException();
+            return sorted.get(0);
+        }
+
+        @Override
+        public E last() {
+            if (sorted.isEmpty()) throw new NoSuchElementException();
+            return sorted.get(sorted.size() - 1);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class MapView<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final List<Map.Entry<K, V>> sorted;
+        private final Comparator<? super K> comparator;
+
+        private MapView(List<Map.Entry<K, V>> sorted, Comparator<? super K> comparator) {
+            this.sorted = Collections.unmodifiableList(sorted);
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return sorted.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return sorted.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public K firstKey() {
+            if (sorted.isEmpty()) throw new NoSuchElementException();
+            return sorted.get(0).getKey();
+        }
+
+        @Override
+        public K lastKey() {
+            if (sorted.isEmpty()) throw new NoSuchElementException();
+            return sorted.get(sorted.size() - 1).getKey();
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package utils.collections;
+
+import java.util.Arrays;
+
+// Interned strings addressed by int ids. Every intern of a string is counted, the string is dropped with the last
+// release and its id is reused; equal strings of many rows are thus stored once. Not thread-safe
+public class StringPool {
+    // The id of null
+    public static final int NO_STRING = -1;
+
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] strings;
+    private int[] references;
+    // Ids of the strings by hash, open addressing with linear probing, at most half of the table is used
+    private int[] table;
+    private int mask;
+    private int[] freeIds;
+    private int freeCount;
+    private int usedIds;
+    private int size;
+
+    public StringPool() {
+        strings = new String[MIN_CAPACITY];
+        references = new int[MIN_CAPACITY];
+        freeIds = new int[MIN_CAPACITY];
+        allocateTable(MIN_CAPACITY * 2);
+    }
+
+    public int intern(String string) {
+        if (string == null) return NO_STRING;
+        int slot = slot(string);
+        for (int id; (id = table[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (strings[id].equals(string)) {
+                references[id]++;
+                return id;
+            }
+        }
+        final int id = allocateId();
+        strings[id] = string;
+        references[id] = 1;
+        table[slot] = id;
+        if (++size > table.length / 2) rebuildTable(table.length * 2);
+        return id;
+    }
+
+    public String get(int id) {
+        return id == NO_STRING ? null : strings[id];
+    }
+
+    public void release(int id) {
+        if (id == NO_STRING || --references[id] > 0) return;
+        int slot = slot(strings[id]);
+        while (table[slot] != id) slot = (slot + 1) & mask;
+        shiftBack(slot);
+        strings[id] = null;
+        if (freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        freeIds[freeCount++] = id;
+        size--;
+    }
+
+    // Count of distinct strings
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(strings, 0, usedIds, null);
+        Arrays.fill(table, EMPTY);
+        freeCount = 0;
+        usedIds = 0;
+        size = 0;
+    }
+
+    private int allocateId() {
+        if (freeCount > 0) return freeIds[--freeCount];
+        if (usedIds == strings.length) {
+            strings = Arrays.copyOf(strings, strings.length * 2);
+            references = Arrays.copyOf(references, references.length * 2);
+        }
+        return usedIds++;
+    }
+
+    // An id further along the cluster moves into the freed slot unless its home slot lies between the two
+    private void shiftBack(int freeSlot) {
+        int slot = freeSlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int id = table[slot];
+            if (id == EMPTY) break;
+            final int home = slot(strings[id]);
+            final boolean reachable = freeSlot <= slot ? home <= freeSlot || home > slot
+                    : home <= freeSlot && home > slot;
+            if (reachable) {
+                table[freeSlot] = id;
+                freeSlot = slot;
+            }
+        }
+        table[freeSlot] = EMPTY;
+    }
+
+    private void rebuildTable(int capacity) {
+        allocateTable(capacity);
+        for (int id = 0; id < usedIds; id++) {
+            if (strings[id] == null) continue;
+            int slot = slot(strings[id]);
+            while (table[slot] != EMPTY) slot = (slot + 1) & mask;
+            table[slot] = id;
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private int slot(String string) {
+        final int h = string.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -1,43 +1,150 @@
 package web;
 
 import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import managers.AppManager;
 import managers.FileBackedAppManager;
+import managers.history.SessionHistoryManager;
+import managers.persistence.DurabilityMode;
 import models.tasks.Epic;
 import models.tasks.Story;
 import models.tasks.Task;
-import utils.Managers;
+import web.filters.OverloadFilter;
 import web.handlers.EpicsHandler;
+import web.handlers.HistoryHandler;
+import web.handlers.PrioritizedHandler;
 import web.handlers.StoriesHandler;
 import web.handlers.TasksHandler;
+import web.taskSerializers.TaskSerializer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class HttpTaskServer {
     private static final int PORT = 8080;
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final int HISTORY_CAPACITY = 100;
+    private static final int MAX_SESSIONS = 10_000;
     public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
-    public static final Gson GSON = new Gson();
-    private static final FileBackedAppManager TASK_MANAGER = Managers.getFileBacked(Path.of("temp.csv"));
+    public static final Gson GSON = TaskSerializer.GSON;
+
+    private final HttpServer httpServer;
+    private final ExecutorService ownExecutor;
+    private final OverloadFilter overloadFilter;
+
+    public static class Builder {
+        private final AppManager manager;
+        private int port = PORT;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private Executor executor;
+
+        private Builder(AppManager manager) {
+            this.manager = Objects.requireNonNull(manager, "manager must not be null");
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads <= 0) throw new IllegalArgumentException("Количество потоков должно быть больше нуля");
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 0) throw new IllegalArgumentException("Размер очереди не может быть отрицательным");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        // An executor supplied by the caller is not shut down by the server
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor must not be null");
+            return this;
+        }
+
+        public HttpTaskServer build() throws IOException {
+            return new HttpTaskServer(this);
+        }
+    }
+
+    private HttpTaskServer(Builder builder) throws IOException {
+        overloadFilter = new OverloadFilter();
+        ownExecutor = builder.executor == null ? newWorkerPool(builder.threads, builder.queueCapacity) : null;
+        httpServer = HttpServer.create(new InetSocketAddress(builder.port), 0);
+        httpServer.setExecutor(builder.executor == null ? ownExecutor : builder.executor);
+        createContext("/tasks/task", new TasksHandler(builder.manager));
+        createContext("/tasks/epic", new EpicsHandler(builder.manager));
+        createContext("/tasks/stories/epic/", new StoriesHandler(builder.manager));
+        createContext("/tasks/prioritized", new PrioritizedHandler(builder.manager));
+        createContext("/tasks/history", new HistoryHandler(builder.manager));
+    }
+
+    public static Builder builder(AppManager manager) {
+        return new Builder(manager);
+    }
 
     public static void main(String[] args) throws IOException {
-        TASK_MANAGER.addTask(Task.createTask("Task1"));
-        TASK_MANAGER.addTask(Task.createTask("Task2"));
-        TASK_MANAGER.addEpic(Epic.createEpic("Epic1"));
-        TASK_MANAGER.addEpic(Epic.createEpic("Epic2"));
-        TASK_MANAGER.addStory(Story.createStory("Story1", TASK_MANAGER.findEpic(3)));
-        HttpServer httpServer = HttpServer.create();
-
-        httpServer.bind(new InetSocketAddress(PORT), 0);
-        httpServer.createContext("/tasks/task", new TasksHandler(TASK_MANAGER));
-        //httpServer.createContext("/tasks/task/", new TaskHandler(TASK_MANAGER));
-        httpServer.createContext("/tasks/epic", new EpicsHandler(TASK_MANAGER));
-        httpServer.createContext("/tasks/stories/epic/", new StoriesHandler(TASK_MANAGER));
+        // Saves are grouped so that one slow write to the file does not hold every worker
+        // The histories are bounded, so neither the memory nor the saved history line grow with the uptime
+        final FileBackedAppManager manager = FileBackedAppManager.builder(Path.of("temp.csv"))
+                .durability(DurabilityMode.groupCommit(64, Duration.ofMillis(50)))
+                .historyManager(new SessionHistoryManager(HISTORY_CAPACITY, MAX_SESSIONS))
+                .build();
+        manager.addTask(Task.createTask("Task1"));
+        manager.addTask(Task.createTask("Task2"));
+        manager.addEpic(Epic.createEpic("Epic1"));
+        manager.addEpic(Epic.createEpic("Epic2"));
+        manager.addStory(Story.createStory("Story1", manager.findEpic(3)));
+        builder(manager).build().start();
+    }
+
+    public void start() {
         httpServer.start();
     }
 
+    public void stop() {
+        httpServer.stop(STOP_DELAY_SECONDS);
+        if (ownExecutor != null) ownExecutor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public long getRejectedRequests() {
+        return overloadFilter.getRejectedRequests();
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        final HttpContext context = httpServer.createContext(path, handler);
+        context.getFilters().add(overloadFilter);
+    }
+
+    private static ExecutorService newWorkerPool(int threads, int queueCapacity) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final BlockingQueue<Runnable> queue = queueCapacity == 0
+                ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity);
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "http-task-server-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                OverloadFilter.REJECTION_HANDLER);
+    }
 }
@@ -0,0 +1,56 @@
+package web.filters;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Answers 503 to the exchanges the worker pool could not accept instead of queueing them without a limit
+public class OverloadFilter extends Filter {
+    private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // A rejected exchange runs on the dispatcher thread with the overload flag set, so only the 503 is written there
+    public static final RejectedExecutionHandler REJECTION_HANDLER = new RejectedExecutionHandler() {
+        @Override
+        public void rejectedExecution(Runnable exchange, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) throw new RejectedExecutionException("Сервер остановлен");
+            OVERLOADED.set(true);
+            try {
+                exchange.run();
+            } finally {
+                OVERLOADED.set(false);
+            }
+        }
+    };
+
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!OVERLOADED.get()) {
+            chain.doFilter(exchange);
+            return;
+        }
+        rejectedRequests.incrementAndGet();
+        try {
+            exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Replies 503 when the request queue is full";
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+}
@@ -0,0 +1,252 @@
+package web.handlers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exceptions.ManagerIntersectionException;
+import exceptions.ManagerWrongIdException;
+import managers.AppManager;
+import managers.history.SessionHistoryManager;
+import models.enums.StateTask;
+import utils.Web;
+import web.HttpTaskServer;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public abstract class AbstractHandler implements HttpHandler {
+    // Zero length in sendResponseHeaders switches the response to chunked transfer encoding
+    private static final long CHUNKED = 0;
+    private static final int WRITER_BUFFER_SIZE = 16 * 1024;
+    // Batch operations live under <context>/batch, ids of a batch delete go as ?ids=1,2,3
+    private static final String BATCH_PATH = "/batch";
+    private static final String IDS_PARAMETER = "ids";
+    // Listing is paginated when the query has one of ?offset=200&limit=100 or ?after=<last id of the previous page>
+    private static final String OFFSET_PARAMETER = "offset";
+    private static final String LIMIT_PARAMETER = "limit";
+    private static final String AFTER_PARAMETER = "after";
+    // Listing filtered by state: ?status=IN_PROGRESS, may be combined with the page parameters
+    private static final String STATUS_PARAMETER = "status";
+    // Views of a request go to the history of this session as well, see SessionHistoryManager
+    private static final String SESSION_HEADER = "X-Session-Id";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    protected final AppManager manager;
+    private final Gson gson;
+
+    protected AbstractHandler(AppManager manager, Gson gson) {
+        this.manager = manager;
+        this.gson = gson;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            final SessionHistoryManager.Scope scope =
+                    SessionHistoryManager.enter(exchange.getRequestHeaders().getFirst(SESSION_HEADER));
+            try {
+                dispatch(exchange, exchange.getRequestMethod());
+            } finally {
+                scope.close();
+            }
+        } catch (ManagerWrongIdException e) {
+            if (exchange.getResponseCode() == -1) exchange.sendResponseHeaders(404, -1);
+        } catch (ManagerIntersectionException e) {
+            if (exchange.getResponseCode() == -1) exchange.sendResponseHeaders(409, -1);
+        } catch (IllegalArgumentException | JsonParseException | DateTimeException e) {
+            if (exchange.getResponseCode() == -1) exchange.sendResponseHeaders(400, -1);
+        } catch (RuntimeException e) {
+            System.out.println("The request " + exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                    + " failed: " + e);
+            if (exchange.getResponseCode() == -1) exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange, String method) throws IOException {
+        if (readOnly() && !"GET".equals(method)) {
+            // A body left unread when the response goes out makes the server reset the connection
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            exchange.getResponseHeaders().add("Allow", "GET");
+            exchange.sendResponseHeaders(405, -1);
+            return;
+        }
+        switch (method) {
+            case "GET":
+                handleGet(exchange);
+                break;
+            case "DELETE":
+                handleDelete(exchange);
+                break;
+            case "POST":
+                requireBatch(exchange);
+                handleBatchPost(exchange);
+                break;
+            case "PUT":
+                requireBatch(exchange);
+                handleBatchPut(exchange);
+                break;
+            default:
+                exchange.sendResponseHeaders(400, -1);
+                System.out.println("This context can only work with the following methods: GET, DELETE, POST, PUT");
+        }
+    }
+
+    // A read-only handler answers 405 to every method but GET before the request reaches the batch check
+    protected boolean readOnly() {
+        return false;
+    }
+
+    protected abstract void handleGet(HttpExchange exchange) throws IOException;
+
+    // A read-only handler never gets to the changes, so it keeps these defaults
+    protected void handleDelete(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(405, -1);
+    }
+
+    // Adds the array of the request body in one batch
+    protected void handleBatchPost(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(405, -1);
+    }
+
+    // Updates the array of the request body in one batch, the elements carry their ids
+    protected void handleBatchPut(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(405, -1);
+    }
+
+    protected static boolean isBatch(HttpExchange exchange) {
+        return exchange.getRequestURI().getPath().endsWith(BATCH_PATH);
+    }
+
+    private static void requireBatch(HttpExchange exchange) {
+        if (!isBatch(exchange)) throw new IllegalArgumentException("Изменения принимаются только пакетом: " + BATCH_PATH);
+    }
+
+    protected static List<Long> getIds(HttpExchange exchange) {
+        if (exchange.getRequestURI().getQuery() != null) {
+            for (Map.Entry<String, String> parameter : Web.getQueryParameters(exchange.getRequestURI())) {
+                if (!IDS_PARAMETER.equals(parameter.getKey()) || parameter.getValue() == null) continue;
+                final List<Long> ids = new ArrayList<>();
+                for (String id : parameter.getValue().split(",")) {
+                    if (!id.isBlank()) ids.add(Long.parseLong(id.trim()));
+                }
+                return ids;
+            }
+        }
+        throw new IllegalArgumentException("Не указаны id пакета");
+    }
+
+    // Returns null when the query has no such parameter
+    protected static Long getLongParameter(HttpExchange exchange, String name) {
+        if (exchange.getRequestURI().getQuery() == null) return null;
+        for (Map.Entry<String, String> parameter : Web.getQueryParameters(exchange.getRequestURI())) {
+            if (name.equals(parameter.getKey())) return Long.parseLong(parameter.getValue());
+        }
+        return null;
+    }
+
+    // Returns null when the query asks for the whole list
+    protected static Page getPage(HttpExchange exchange) {
+        if (exchange.getRequestURI().getQuery() == null) return null;
+        Integer offset = null;
+        Integer limit = null;
+        Long cursor = null;
+        for (Map.Entry<String, String> parameter : Web.getQueryParameters(exchange.getRequestURI())) {
+            switch (parameter.getKey()) {
+                case OFFSET_PARAMETER:
+                    offset = Integer.parseInt(parameter.getValue());
+                    break;
+                case LIMIT_PARAMETER:
+                    limit = Integer.parseInt(parameter.getValue());
+                    break;
+                case AFTER_PARAMETER:
+                    cursor = Long.parseLong(parameter.getValue());
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (offset == null && limit == null && cursor == null) return null;
+        if (offset != null && cursor != null) {
+            throw new IllegalArgumentException("Нельзя указывать одновременно " + OFFSET_PARAMETER + " и " + AFTER_PARAMETER);
+        }
+        return new Page(offset == null ? 0 : offset,
+                limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE), cursor);
+    }
+
+    // Returns null when the listing is not filtered by state
+    protected static StateTask getStateTask(HttpExchange exchange) {
+        if (exchange.getRequestURI().getQuery() == null) return null;
+        for (Map.Entry<String, String> parameter : Web.getQueryParameters(exchange.getRequestURI())) {
+            if (STATUS_PARAMETER.equals(parameter.getKey())) {
+                return StateTask.valueOf(parameter.getValue().toUpperCase(Locale.ROOT));
+            }
+        }
+        return null;
+    }
+
+    // The body is read as a stream of JSON, an empty body is an error
+    protected <T> T readJson(HttpExchange exchange, Type type) throws IOException {
+        try (JsonReader jsonReader = new JsonReader(new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), HttpTaskServer.DEFAULT_CHARSET)))) {
+            final T result = gson.fromJson(jsonReader, type);
+            if (result == null) throw new IllegalArgumentException("Пустое тело запроса");
+            return result;
+        }
+    }
+
+    // Elements are serialized straight onto the response body, nothing is collected into a String first
+    protected void sendJson(HttpExchange exchange, Object src, Type type) throws IOException {
+        sendJson(exchange, 200, src, type);
+    }
+
+    protected void sendJson(HttpExchange exchange, int code, Object src, Type type) throws IOException {
+        exchange.getResponseHeaders().add("content-type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, CHUNKED);
+        try (JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), HttpTaskServer.DEFAULT_CHARSET), WRITER_BUFFER_SIZE))) {
+            gson.toJson(src, type, jsonWriter);
+        }
+    }
+
+    protected static final class Page {
+        // The whole filtered list
+        public static final Page ALL = new Page(0, Integer.MAX_VALUE, null);
+
+        private final int offset;
+        private final int limit;
+        private final Long cursor;
+
+        private Page(int offset, int limit, Long cursor) {
+            this.offset = offset;
+            this.limit = limit;
+            this.cursor = cursor;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public boolean hasCursor() {
+            return cursor != null;
+        }
+
+        public long getCursor() {
+            return cursor;
+        }
+    }
+}
@@ -1,47 +1,71 @@
 package web.handlers;
 
-import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import managers.AppManager;
+import models.enums.StateTask;
+import models.tasks.Epic;
 import web.HttpTaskServer;
-import web.taskSerializers.jsonAdapters.StoriesAdapter;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.List;
 
-public class EpicsHandler implements HttpHandler {
-    private final AppManager manager;
+public class EpicsHandler extends AbstractHandler {
+    private static final Type EPICS_TYPE = new TypeToken<Collection<Epic>>() {
+    }.getType();
 
     public EpicsHandler(AppManager manager) {
-        this.manager = manager;
+        super(manager, HttpTaskServer.GSON);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
-            switch (method) {
-                case "GET":
-                    GsonBuilder gsonBuilder = new GsonBuilder();
-                    gsonBuilder.registerTypeAdapter(Collection.class, new StoriesAdapter());
-                    String response = gsonBuilder.create().toJson(manager.findAllEpics());
-                    exchange.getResponseHeaders().add("content-type", "application/json");
-                    exchange.sendResponseHeaders(200, response.length());
-                    exchange.getResponseBody().write(response.getBytes(HttpTaskServer.DEFAULT_CHARSET));
-                    System.out.println("The epics were received successfully");
-                    break;
-                case "DELETED":
-                    manager.deleteAllTasks();
-                    exchange.sendResponseHeaders(204, -1);
-                    System.out.println("The epics were removed successfully");
-                default:
-                    exchange.sendResponseHeaders(400, -1);
-                    System.out.println("This context can only work with the following methods: GET, DELETE");
-            }
+    protected void handleGet(HttpExchange exchange) throws IOException {
+        final Long id = getLongParameter(exchange, "id");
+        if (id != null) {
+            sendJson(exchange, manager.findEpic(id), Epic.class);
+            System.out.println("The epic was received successfully");
+            return;
         }
-        finally {
-            exchange.sendResponseHeaders(500, -1);
+        final Page page = getPage(exchange);
+        final StateTask stateTask = getStateTask(exchange);
+        if (stateTask != null) {
+            final Page filterPage = page == null ? Page.ALL : page;
+            sendJson(exchange, filterPage.hasCursor()
+                    ? manager.findEpicsAfter(stateTask, filterPage.getCursor(), filterPage.getLimit())
+                    : manager.findEpics(stateTask, filterPage.getOffset(), filterPage.getLimit()), EPICS_TYPE);
+        } else if (page == null) {
+            sendJson(exchange, manager.findAllEpics(), EPICS_TYPE);
+        } else if (page.hasCursor()) {
+            sendJson(exchange, manager.findEpicsAfter(page.getCursor(), page.getLimit()), EPICS_TYPE);
+        } else {
+            sendJson(exchange, manager.findEpics(page.getOffset(), page.getLimit()), EPICS_TYPE);
         }
+        System.out.println("The epics were received successfully");
+    }
+
+    @Override
+    protected void handleDelete(HttpExchange exchange) throws IOException {
+        if (isBatch(exchange)) {
+            manager.deleteEpics(getIds(exchange));
+        } else {
+            manager.deleteAllEpics();
+        }
+        exchange.sendResponseHeaders(204, -1);
+        System.out.println("The epics were removed successfully");
+    }
+
+    @Override
+    protected void handleBatchPost(HttpExchange exchange) throws IOException {
+        final List<Epic> epics = manager.addEpics(readJson(exchange, EPICS_TYPE));
+        sendJson(exchange, 201, epics, EPICS_TYPE);
+        System.out.println("The epics were added successfully");
+    }
+
+    @Override
+    protected void handleBatchPut(HttpExchange exchange) throws IOException {
+        sendJson(exchange, manager.updateEpics(readJson(exchange, EPICS_TYPE)), EPICS_TYPE);
+        System.out.println("The epics were updated successfully");
     }
 }
@@ -0,0 +1,33 @@
+package web.handlers;
+
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import managers.AppManager;
+import models.tasks.AbstractTask;
+import web.HttpTaskServer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+// Viewed tasks, epics and stories from the oldest to the latest view. With the X-Session-Id header and a manager
+// keeping per-session histories only the views of that session are returned. Read only
+public class HistoryHandler extends AbstractHandler {
+    private static final Type TASKS_TYPE = new TypeToken<Collection<AbstractTask>>() {
+    }.getType();
+
+    public HistoryHandler(AppManager manager) {
+        super(manager, HttpTaskServer.GSON);
+    }
+
+    @Override
+    protected void handleGet(HttpExchange exchange) throws IOException {
+        sendJson(exchange, manager.getHistory(), TASKS_TYPE);
+        System.out.println("The history was received successfully");
+    }
+
+    @Override
+    protected boolean readOnly() {
+        return true;
+    }
+}
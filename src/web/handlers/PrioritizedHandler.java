@@ -0,0 +1,63 @@
+package web.handlers;
+
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import managers.AppManager;
+import models.tasks.AbstractTask;
+import utils.TimeParser;
+import utils.Web;
+import web.HttpTaskServer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+// Tasks and stories by start time: ?from=2022-01-03T00:00&to=2022-01-10T00:00 for a range,
+// ?from=...&limit=20 for the next tasks. Read only
+public class PrioritizedHandler extends AbstractHandler {
+    private static final Type TASKS_TYPE = new TypeToken<Collection<AbstractTask>>() {
+    }.getType();
+
+    public PrioritizedHandler(AppManager manager) {
+        super(manager, HttpTaskServer.GSON);
+    }
+
+    @Override
+    protected void handleGet(HttpExchange exchange) throws IOException {
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        Integer limit = null;
+        if (exchange.getRequestURI().getQuery() != null) {
+            for (Map.Entry<String, String> parameter : Web.getQueryParameters(exchange.getRequestURI())) {
+                switch (parameter.getKey()) {
+                    case "from":
+                        from = parseTime(parameter.getValue());
+                        break;
+                    case "to":
+                        to = parseTime(parameter.getValue());
+                        break;
+                    case "limit":
+                        limit = Integer.parseInt(parameter.getValue());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (limit != null && to != null) throw new IllegalArgumentException("Нельзя указывать одновременно to и limit");
+        sendJson(exchange, limit == null ? manager.findTasksBetween(from, to) : manager.nextTasksAfter(from, limit),
+                TASKS_TYPE);
+        System.out.println("The prioritized tasks were received successfully");
+    }
+
+    @Override
+    protected boolean readOnly() {
+        return true;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return TimeParser.parseLocalDateTime(value, 0, value.length());
+    }
+}
@@ -1,51 +1,80 @@
 package web.handlers;
 
+import com.google.gson.reflect.TypeToken;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import managers.AppManager;
+import models.enums.StateTask;
 import models.tasks.Story;
-import utils.Web;
 import web.HttpTaskServer;
 
 import java.io.IOException;
-import java.util.Map;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
 
-public class StoriesHandler implements HttpHandler {
-    private final int ID_QUERY_INDEX = 0;
-    private final AppManager manager;
+public class StoriesHandler extends AbstractHandler {
+    private static final Type STORIES_TYPE = new TypeToken<Collection<Story>>() {
+    }.getType();
 
     public StoriesHandler(AppManager manager) {
-        this.manager = manager;
+        super(manager, HttpTaskServer.GSON);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
-            switch (method) {
-                case "GET":
-                    Map.Entry<String, String> id = Web.getQueryParameters(exchange.getRequestURI()).get(ID_QUERY_INDEX);
-                    if ("id".equals(id.getKey())) {
-                        String response = HttpTaskServer.GSON.toJson(manager.findAllStories(Long.parseLong(id.getValue())));
-                        exchange.getResponseHeaders().add("content-type", "application/json");
-                        exchange.sendResponseHeaders(200, response.length());
-                        exchange.getResponseBody().write(response.getBytes(HttpTaskServer.DEFAULT_CHARSET));
-                        System.out.println("The tasks were received successfully");
-                    }
-                    break;
-                case "DELETED":
-                    manager.deleteAllTasks();
-                    exchange.sendResponseHeaders(204, -1);
-                    System.out.println("The tasks were removed successfully");
-                default:
-                    exchange.sendResponseHeaders(400, -1);
-                    System.out.println("This context can only work with the following methods: GET, DELETE");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    protected void handleGet(HttpExchange exchange) throws IOException {
+        final Long id = getLongParameter(exchange, "storyId");
+        if (id != null) {
+            sendJson(exchange, manager.findStory(id), Story.class);
+            System.out.println("The story was received successfully");
+            return;
         }
-        finally {
-            exchange.sendResponseHeaders(500, -1);
+        final long epicId = getEpicId(exchange);
+        final Page page = getPage(exchange);
+        final StateTask stateTask = getStateTask(exchange);
+        if (stateTask != null) {
+            final Page filterPage = page == null ? Page.ALL : page;
+            sendJson(exchange, filterPage.hasCursor()
+                    ? manager.findStoriesAfter(epicId, stateTask, filterPage.getCursor(), filterPage.getLimit())
+                    : manager.findStories(epicId, stateTask, filterPage.getOffset(), filterPage.getLimit()),
+                    STORIES_TYPE);
+        } else if (page == null) {
+            sendJson(exchange, manager.findAllStories(epicId), STORIES_TYPE);
+        } else if (page.hasCursor()) {
+            sendJson(exchange, manager.findStoriesAfter(epicId, page.getCursor(), page.getLimit()), STORIES_TYPE);
+        } else {
+            sendJson(exchange, manager.findStories(epicId, page.getOffset(), page.getLimit()), STORIES_TYPE);
         }
+        System.out.println("The stories were received successfully");
+    }
+
+    @Override
+    protected void handleDelete(HttpExchange exchange) throws IOException {
+        if (isBatch(exchange)) {
+            manager.deleteStories(getIds(exchange));
+        } else {
+            manager.deleteAllStories(manager.findEpic(getEpicId(exchange)));
+        }
+        exchange.sendResponseHeaders(204, -1);
+        System.out.println("The stories were removed successfully");
+    }
+
+    // Every story of a batch names its epic in epicId
+    @Override
+    protected void handleBatchPost(HttpExchange exchange) throws IOException {
+        final List<Story> stories = manager.addStories(readJson(exchange, STORIES_TYPE));
+        sendJson(exchange, 201, stories, STORIES_TYPE);
+        System.out.println("The stories were added successfully");
+    }
+
+    @Override
+    protected void handleBatchPut(HttpExchange exchange) throws IOException {
+        sendJson(exchange, manager.updateStories(readJson(exchange, STORIES_TYPE)), STORIES_TYPE);
+        System.out.println("The stories were updated successfully");
+    }
+
+    private static long getEpicId(HttpExchange exchange) {
+        final Long epicId = getLongParameter(exchange, "id");
+        if (epicId == null) throw new IllegalArgumentException("Не указан id эпика");
+        return epicId;
     }
 }
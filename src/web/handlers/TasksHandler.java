@@ -1,41 +1,72 @@
 package web.handlers;
 
+import com.google.gson.reflect.TypeToken;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import managers.AppManager;
+import models.enums.StateTask;
+import models.tasks.Task;
 import web.HttpTaskServer;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
 
-public class TasksHandler implements HttpHandler {
-    private final AppManager manager;
+public class TasksHandler extends AbstractHandler {
+    private static final Type TASKS_TYPE = new TypeToken<Collection<Task>>() {
+    }.getType();
 
     public TasksHandler(AppManager manager) {
-        this.manager = manager;
+        super(manager, HttpTaskServer.GSON);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
-            switch (method) {
-                case "GET":
-                    String response = HttpTaskServer.GSON.toJson(manager.findAllTasks());
-                    exchange.getResponseHeaders().add("content-type", "application/json");
-                    exchange.sendResponseHeaders(200, response.length());
-                    exchange.getResponseBody().write(response.getBytes(HttpTaskServer.DEFAULT_CHARSET));
-                    System.out.println("The tasks were received successfully");
-                    break;
-                case "DELETED":
-                    manager.deleteAllTasks();
-                    exchange.sendResponseHeaders(204, -1);
-                    System.out.println("The tasks were removed successfully");
-                default:
-                    exchange.sendResponseHeaders(400, -1);
-                    System.out.println("This context can only work with the following methods: GET, DELETE");
-            }
-        } finally {
-            exchange.sendResponseHeaders(500, -1);
+    protected void handleGet(HttpExchange exchange) throws IOException {
+        // A single task is a view and goes to the history
+        final Long id = getLongParameter(exchange, "id");
+        if (id != null) {
+            sendJson(exchange, manager.findTask(id), Task.class);
+            System.out.println("The task was received successfully");
+            return;
         }
+        final Page page = getPage(exchange);
+        final StateTask stateTask = getStateTask(exchange);
+        if (stateTask != null) {
+            final Page filterPage = page == null ? Page.ALL : page;
+            sendJson(exchange, filterPage.hasCursor()
+                    ? manager.findTasksAfter(stateTask, filterPage.getCursor(), filterPage.getLimit())
+                    : manager.findTasks(stateTask, filterPage.getOffset(), filterPage.getLimit()), TASKS_TYPE);
+        } else if (page == null) {
+            sendJson(exchange, manager.findAllTasks(), TASKS_TYPE);
+        } else if (page.hasCursor()) {
+            sendJson(exchange, manager.findTasksAfter(page.getCursor(), page.getLimit()), TASKS_TYPE);
+        } else {
+            sendJson(exchange, manager.findTasks(page.getOffset(), page.getLimit()), TASKS_TYPE);
+        }
+        System.out.println("The tasks were received successfully");
+    }
+
+    @Override
+    protected void handleDelete(HttpExchange exchange) throws IOException {
+        if (isBatch(exchange)) {
+            manager.deleteTasks(getIds(exchange));
+        } else {
+            manager.deleteAllTasks();
+        }
+        exchange.sendResponseHeaders(204, -1);
+        System.out.println("The tasks were removed successfully");
+    }
+
+    @Override
+    protected void handleBatchPost(HttpExchange exchange) throws IOException {
+        final List<Task> tasks = manager.addTasks(readJson(exchange, TASKS_TYPE));
+        sendJson(exchange, 201, tasks, TASKS_TYPE);
+        System.out.println("The tasks were added successfully");
+    }
+
+    @Override
+    protected void handleBatchPut(HttpExchange exchange) throws IOException {
+        sendJson(exchange, manager.updateTasks(readJson(exchange, TASKS_TYPE)), TASKS_TYPE);
+        System.out.println("The tasks were updated successfully");
     }
 }
@@ -0,0 +1,183 @@
+package web.kv;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import utils.Web;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Local stand-in for the key-value storage: GET /register, POST /save[/{key}], GET /load/{key} or /load?keys=k1,k2.
+// Batched values travel as a JSON object, request and response bodies may be gzip-compressed.
+public class KVServer {
+    public static final int PORT = 8078;
+    static final String API_TOKEN_PARAMETER = "API_TOKEN";
+    static final String GZIP = "gzip";
+    static final int COMPRESSION_THRESHOLD = 1024;
+    static final Type VALUES_TYPE = new TypeToken<Map<String, String>>() {
+    }.getType();
+    private static final Gson GSON = new Gson();
+
+    private final String apiToken;
+    private final HttpServer server;
+    private final Map<String, String> data = new ConcurrentHashMap<>();
+
+    public KVServer() throws IOException {
+        this(PORT);
+    }
+
+    public KVServer(int port) throws IOException {
+        apiToken = UUID.randomUUID().toString();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/register", this::register);
+        server.createContext("/save", this::save);
+        server.createContext("/load", this::load);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new KVServer().start();
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("KVServer started on " + getUrl());
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public URI getUrl() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    private void register(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            sendText(exchange, apiToken);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void save(HttpExchange exchange) throws IOException {
+        try {
+            if (!hasAuth(exchange)) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final String body = readText(exchange);
+            final String key = getKey(exchange, "/save");
+            if (key.isEmpty()) {
+                final Map<String, String> values = GSON.fromJson(body, VALUES_TYPE);
+                if (values == null) {
+                    exchange.sendResponseHeaders(400, -1);
+                    return;
+                }
+                data.putAll(values);
+            } else {
+                data.put(key, body);
+            }
+            exchange.sendResponseHeaders(200, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void load(HttpExchange exchange) throws IOException {
+        try {
+            if (!hasAuth(exchange)) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final String key = getKey(exchange, "/load");
+            if (!key.isEmpty()) {
+                final String value = data.get(key);
+                if (value == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                sendText(exchange, value);
+                return;
+            }
+            final Map<String, String> values = new LinkedHashMap<>();
+            final String keys = getParameter(exchange, "keys");
+            if (keys != null && !keys.isEmpty()) {
+                for (String requestedKey : keys.split(",")) {
+                    final String value = data.get(requestedKey);
+                    if (value != null) values.put(requestedKey, value);
+                }
+            }
+            sendText(exchange, GSON.toJson(values, VALUES_TYPE));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean hasAuth(HttpExchange exchange) {
+        return apiToken.equals(getParameter(exchange, API_TOKEN_PARAMETER));
+    }
+
+    private static String getKey(HttpExchange exchange, String context) {
+        final String path = exchange.getRequestURI().getPath();
+        return path.length() > context.length() + 1 ? path.substring(context.length() + 1) : "";
+    }
+
+    private static String getParameter(HttpExchange exchange, String name) {
+        if (exchange.getRequestURI().getRawQuery() == null) return null;
+        for (Map.Entry<String, String> parameter : Web.getQueryParameters(exchange.getRequestURI())) {
+            if (name.equals(parameter.getKey())) return parameter.getValue();
+        }
+        return null;
+    }
+
+    // The body has to be closed: a gzip stream left open keeps the rest of the request unread and
+    // the kept-alive connection is dropped before the next request
+    private static String readText(HttpExchange exchange) throws IOException {
+        final InputStream requestBody = exchange.getRequestBody();
+        try (InputStream body = GZIP.equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                ? new GZIPInputStream(requestBody) : requestBody) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (body.length > COMPRESSION_THRESHOLD && acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+            body = gzip(body);
+            exchange.getResponseHeaders().add("Content-Encoding", GZIP);
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    static byte[] gzip(byte[] bytes) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package web.kv;
+
+import com.google.gson.Gson;
+import exceptions.ManagerSaveException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+// Client of KVServer. One HttpClient keeps the connections alive between calls, values are sent in batches,
+// large bodies are gzip-compressed and a value equal to the last one seen for its key is not sent again.
+public class KVTaskClient {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Gson GSON = new Gson();
+
+    private final URI url;
+    private final HttpClient httpClient;
+    private final String apiToken;
+    // SHA-256 of the last value uploaded or loaded for each key
+    private final Map<String, byte[]> digests = new HashMap<>();
+    private long requests;
+    private long uploadedValues;
+
+    public KVTaskClient(URI url) {
+        this.url = Objects.requireNonNull(url, "url must not be null");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+        this.apiToken = new String(send(HttpRequest.newBuilder(url.resolve("/register")).GET()), StandardCharsets.UTF_8);
+    }
+
+    public void put(String key, String value) {
+        putAll(Map.of(key, value));
+    }
+
+    public synchronized void putAll(Map<String, String> values) {
+        final Map<String, String> changedValues = new LinkedHashMap<>();
+        final Map<String, byte[]> changedDigests = new HashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            final byte[] digest = digest(entry.getValue());
+            if (!Arrays.equals(digest, digests.get(entry.getKey()))) {
+                changedValues.put(entry.getKey(), entry.getValue());
+                changedDigests.put(entry.getKey(), digest);
+            }
+        }
+        if (changedValues.isEmpty()) return;
+
+        byte[] body = GSON.toJson(changedValues, KVServer.VALUES_TYPE).getBytes(StandardCharsets.UTF_8);
+        final HttpRequest.Builder request = HttpRequest.newBuilder(withToken("/save", ""))
+                .header("Content-Type", "application/json; charset=utf-8");
+        if (body.length > KVServer.COMPRESSION_THRESHOLD) {
+            try {
+                body = KVServer.gzip(body);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка во время сжатия данных для KVServer!");
+            }
+            request.header("Content-Encoding", KVServer.GZIP);
+        }
+        send(request.POST(HttpRequest.BodyPublishers.ofByteArray(body)));
+        digests.putAll(changedDigests);
+        uploadedValues += changedValues.size();
+    }
+
+    // Returns null if there is no value for the key
+    public String load(String key) {
+        return loadAll(List.of(key)).get(key);
+    }
+
+    public synchronized Map<String, String> loadAll(Collection<String> keys) {
+        final String query = "&keys=" + URLEncoder.encode(String.join(",", keys), StandardCharsets.UTF_8);
+        final byte[] body = send(HttpRequest.newBuilder(withToken("/load", query))
+                .header("Accept-Encoding", KVServer.GZIP)
+                .GET());
+        final Map<String, String> values = GSON.fromJson(new String(body, StandardCharsets.UTF_8), KVServer.VALUES_TYPE);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            digests.put(entry.getKey(), digest(entry.getValue()));
+        }
+        return values;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    public synchronized long getUploadedValues() {
+        return uploadedValues;
+    }
+
+    private URI withToken(String path, String query) {
+        return url.resolve(path + "?" + KVServer.API_TOKEN_PARAMETER + "=" + apiToken + query);
+    }
+
+    private byte[] send(HttpRequest.Builder request) {
+        try {
+            requests++;
+            final HttpResponse<InputStream> response = httpClient.send(request.timeout(TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = KVServer.GZIP.equalsIgnoreCase(
+                    response.headers().firstValue("Content-Encoding").orElse(""))
+                    ? new GZIPInputStream(response.body()) : response.body()) {
+                final byte[] bytes = body.readAllBytes();
+                if (response.statusCode() != 200) {
+                    throw new ManagerSaveException("KVServer ответил кодом " + response.statusCode());
+                }
+                return bytes;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при обращении к KVServer: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Обращение к KVServer прервано");
+        }
+    }
+
+    private static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
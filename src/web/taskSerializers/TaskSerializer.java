@@ -0,0 +1,29 @@
+package web.taskSerializers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import web.taskSerializers.jsonAdapters.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public final class TaskSerializer {
+    // Gson is thread-safe, the adapters are registered once and shared by all handlers
+    public static final Gson GSON = create();
+
+    private TaskSerializer() {
+    }
+
+    public static Gson create() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Task.class, new TaskAdapter())
+                .registerTypeAdapter(Epic.class, new EpicAdapter())
+                .registerTypeAdapter(Story.class, new StoryAdapter())
+                .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+    }
+}
@@ -0,0 +1,97 @@
+package web.taskSerializers.jsonAdapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Writes and reads the fields shared by all tasks without reflection; subclasses add their own fields
+public abstract class AbstractTaskAdapter<T extends AbstractTask> extends TypeAdapter<T> {
+    private final TypeAdapter<Duration> durationAdapter = new DurationAdapter();
+    private final TypeAdapter<LocalDateTime> localDateTimeAdapter = new LocalDateTimeAdapter();
+
+    protected static class Fields {
+        long id;
+        String name;
+        String description;
+        StateTask stateTask;
+        Duration duration;
+        LocalDateTime startTime;
+        long epicId;
+    }
+
+    @Override
+    public void write(JsonWriter jsonWriter, T task) throws IOException {
+        if (task == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("id").value(task.getId());
+        jsonWriter.name("name").value(task.getName());
+        jsonWriter.name("description").value(task.getDescription());
+        jsonWriter.name("typeTask").value(task.getTypeTask().name());
+        jsonWriter.name("stateTask").value(task.getStateTask().name());
+        jsonWriter.name("duration");
+        durationAdapter.write(jsonWriter, task.getDuration());
+        jsonWriter.name("startTime");
+        localDateTimeAdapter.write(jsonWriter, task.getStartTime());
+        writeFields(jsonWriter, task);
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public T read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        final Fields fields = new Fields();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    fields.id = jsonReader.nextLong();
+                    break;
+                case "name":
+                    fields.name = jsonReader.nextString();
+                    break;
+                case "description":
+                    fields.description = jsonReader.nextString();
+                    break;
+                case "stateTask":
+                    fields.stateTask = StateTask.valueOf(jsonReader.nextString());
+                    break;
+                case "duration":
+                    fields.duration = durationAdapter.read(jsonReader);
+                    break;
+                case "startTime":
+                    fields.startTime = localDateTimeAdapter.read(jsonReader);
+                    break;
+                case "epicId":
+                    fields.epicId = jsonReader.nextLong();
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return create(fields);
+    }
+
+    protected void writeFields(JsonWriter jsonWriter, T task) throws IOException {
+    }
+
+    protected abstract T create(Fields fields);
+}
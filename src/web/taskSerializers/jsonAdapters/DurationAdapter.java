@@ -0,0 +1,34 @@
+package web.taskSerializers.jsonAdapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import utils.TimeParser;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class DurationAdapter extends TypeAdapter<Duration> {
+    @Override
+    public void write(JsonWriter jsonWriter, Duration duration) throws IOException {
+        if (duration == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.value(duration.toString());
+    }
+
+    @Override
+    public Duration read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        return parse(jsonReader.nextString());
+    }
+
+    static Duration parse(String value) {
+        return TimeParser.parseDuration(value, 0, value.length());
+    }
+}
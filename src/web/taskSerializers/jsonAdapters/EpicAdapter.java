@@ -0,0 +1,23 @@
+package web.taskSerializers.jsonAdapters;
+
+import com.google.gson.stream.JsonWriter;
+import models.tasks.Epic;
+
+import java.io.IOException;
+
+// Stories are written as ids only and skipped on read, so an epic read for an update keeps the stories it has
+public class EpicAdapter extends AbstractTaskAdapter<Epic> {
+    private final StoriesAdapter storiesAdapter = new StoriesAdapter();
+
+    @Override
+    protected void writeFields(JsonWriter jsonWriter, Epic epic) throws IOException {
+        jsonWriter.name("stories");
+        storiesAdapter.write(jsonWriter, epic.getStories());
+    }
+
+    @Override
+    protected Epic create(Fields fields) {
+        return Epic.createEpic(fields.id, fields.name, fields.stateTask, fields.description, fields.duration,
+                fields.startTime);
+    }
+}
@@ -0,0 +1,34 @@
+package web.taskSerializers.jsonAdapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import utils.TimeParser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+    @Override
+    public void write(JsonWriter jsonWriter, LocalDateTime localDateTime) throws IOException {
+        if (localDateTime == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.value(localDateTime.toString());
+    }
+
+    @Override
+    public LocalDateTime read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        return parse(jsonReader.nextString());
+    }
+
+    static LocalDateTime parse(String value) {
+        return TimeParser.parseLocalDateTime(value, 0, value.length());
+    }
+}
@@ -0,0 +1,21 @@
+package web.taskSerializers.jsonAdapters;
+
+import com.google.gson.stream.JsonWriter;
+import models.tasks.Epic;
+import models.tasks.Story;
+
+import java.io.IOException;
+
+// The epic is referenced by id, the read story gets a stub epic that the manager replaces with the stored one
+public class StoryAdapter extends AbstractTaskAdapter<Story> {
+    @Override
+    protected void writeFields(JsonWriter jsonWriter, Story story) throws IOException {
+        jsonWriter.name("epicId").value(story.getEpic().getId());
+    }
+
+    @Override
+    protected Story create(Fields fields) {
+        return Story.createStory(fields.id, fields.name, fields.description, Epic.createEpic(fields.epicId, ""),
+                fields.stateTask, fields.duration, fields.startTime);
+    }
+}
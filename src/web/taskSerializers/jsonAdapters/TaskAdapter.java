@@ -0,0 +1,11 @@
+package web.taskSerializers.jsonAdapters;
+
+import models.tasks.Task;
+
+public class TaskAdapter extends AbstractTaskAdapter<Task> {
+    @Override
+    protected Task create(Fields fields) {
+        return Task.createTask(fields.id, fields.name, fields.description, fields.stateTask, fields.duration,
+                fields.startTime);
+    }
+}
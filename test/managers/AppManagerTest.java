@@ -1,5 +1,7 @@
 package managers;
 
+import com.google.gson.reflect.TypeToken;
+import exceptions.ManagerIntersectionException;
 import exceptions.ManagerWrongIdException;
 import managers.history.HistoryManager;
 import models.enums.StateTask;
@@ -17,6 +19,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import repositories.tasks.AbstractTasksRepository;
 import repositories.tasks.EpicsRepository;
 import repositories.tasks.TasksRepository;
+import web.taskSerializers.TaskSerializer;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -24,7 +27,12 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,6 +65,7 @@ abstract class AppManagerTest<T extends AppManager> {
     void tearDown() throws IOException {
         final Path pathDataFile = Path.of(FileBackedAppManagerTest.FILE_NAME_FOR_GENERALIZED_TEST);
         if (Files.exists(pathDataFile)) Files.delete(pathDataFile);
+        Files.deleteIfExists(FileBackedAppManager.historyPath(pathDataFile));
     }
 
     @Test
@@ -115,6 +124,90 @@ abstract class AppManagerTest<T extends AppManager> {
         assertEquals(0, appManager.findAllTasks().size());
     }
 
+    @Test
+    void addTasksInBatch() {
+        final List<Task> addedTasks = appManager.addTasks(List.of(Task.createTask("Task3"), Task.createTask("Task4")));
+        assertArrayEquals(new long[] {5, 6}, addedTasks.stream().mapToLong(AbstractTask::getId).toArray());
+        assertEquals(4, appManager.findAllTasks().size());
+    }
+
+    @Test
+    void addTasksInBatchWithIntersection() {
+        final LocalDateTime startTime = LocalDateTime.of(2022, Month.JANUARY, 1, 10, 0);
+        final List<Task> batch = List.of(
+                Task.builder("Task3").startTime(startTime).duration(Duration.ofHours(2)).build(),
+                Task.builder("Task4").startTime(startTime.plusHours(1)).duration(Duration.ofHours(2)).build());
+        assertThrows(ManagerIntersectionException.class, () -> appManager.addTasks(batch));
+        assertEquals(2, appManager.findAllTasks().size());
+    }
+
+    @Test
+    void updateTasksInBatch() {
+        final List<Task> updatedTasks = appManager.updateTasks(List.of(
+                Task.createTask(1, "UpdatedTask1", "", StateTask.DONE),
+                Task.createTask(2, "UpdatedTask2", "", StateTask.IN_PROGRESS)));
+        assertEquals(2, updatedTasks.size());
+        assertEquals("UpdatedTask1", appManager.findTask(1).getName());
+        assertEquals(StateTask.IN_PROGRESS, appManager.findTask(2).getStateTask());
+    }
+
+    @Test
+    void updateTasksInBatchByWrongId() {
+        assertThrows(ManagerWrongIdException.class, () -> appManager.updateTasks(List.of(
+                Task.createTask(1, "UpdatedTask1", ""),
+                Task.createTask(3, "UpdatedTask3", ""))));
+        assertEquals("Task1", appManager.findTask(1).getName());
+    }
+
+    @Test
+    void deleteTasksInBatch() {
+        assertThrows(ManagerWrongIdException.class, () -> appManager.deleteTasks(List.of(1L, 3L)));
+        assertEquals(2, appManager.findAllTasks().size());
+        assertEquals(2, appManager.deleteTasks(List.of(1L, 2L)).size());
+        assertEquals(0, appManager.findAllTasks().size());
+    }
+
+    @Test
+    void findTasksByPages() {
+        assertArrayEquals(new long[] {1}, ids(appManager.findTasks(0, 1)));
+        assertArrayEquals(new long[] {2}, ids(appManager.findTasks(1, 5)));
+        assertTrue(appManager.findTasks(2, 5).isEmpty());
+        assertArrayEquals(new long[] {2}, ids(appManager.findTasksAfter(1, 5)));
+        assertThrows(IllegalArgumentException.class, () -> appManager.findTasks(-1, 5));
+        assertThrows(IllegalArgumentException.class, () -> appManager.findTasksAfter(0, 0));
+
+        // The cursor stays valid after the task it points to is deleted
+        appManager.addTask(Task.createTask("Task3"));
+        appManager.deleteTask(2);
+        assertArrayEquals(new long[] {5}, ids(appManager.findTasksAfter(2, 5)));
+    }
+
+    @Test
+    void findTasksByPagesAfterRandomChanges() {
+        final Random random = new Random(17);
+        for (int i = 0; i < 300; i++) {
+            appManager.addTask(Task.createTask("Task" + i));
+            if (random.nextInt(3) == 0) {
+                final List<Task> allTasks = new ArrayList<>(appManager.findAllTasks());
+                appManager.deleteTask(allTasks.get(random.nextInt(allTasks.size())).getId());
+            }
+        }
+        final List<Task> expected = new ArrayList<>(appManager.findAllTasks());
+        expected.sort(Comparator.comparingLong(AbstractTask::getId));
+
+        final List<Task> byOffset = new ArrayList<>();
+        for (int offset = 0; offset < expected.size(); offset += 7) byOffset.addAll(appManager.findTasks(offset, 7));
+        assertArrayEquals(ids(expected), ids(byOffset));
+
+        final List<Task> byCursor = new ArrayList<>();
+        List<Task> page = appManager.findTasksAfter(0, 7);
+        while (!page.isEmpty()) {
+            byCursor.addAll(page);
+            page = appManager.findTasksAfter(page.get(page.size() - 1).getId(), 7);
+        }
+        assertArrayEquals(ids(expected), ids(byCursor));
+    }
+
     @Test
     void findEpic() {
         final Epic epic1 = appManager.findEpic(3);
@@ -149,6 +242,69 @@ abstract class AppManagerTest<T extends AppManager> {
         assertEquals("Updated epic!", updatedEpic.getDescription());
     }
 
+    @Test
+    void updateEpicKeepsAggregatesOfAdoptedStories() {
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        final Epic fresh = Epic.createEpic(3, "Fresh");
+        fresh.addStory(Story.createStory(5, "Story", "", fresh, StateTask.NEW, Duration.ofHours(1), start));
+        final Epic epic = appManager.updateEpic(3, fresh);
+
+        appManager.updateStory(5, Story.createStory(5, "Story", "", epic, StateTask.NEW, Duration.ofHours(3),
+                start.plusHours(1)));
+        assertEquals(start.plusHours(1), appManager.findEpic(3).getStartTime());
+        assertEquals(Duration.ofHours(3), appManager.findEpic(3).getDuration());
+
+        appManager.deleteStory(5);
+        assertNull(appManager.findEpic(3).getStartTime());
+        assertNull(appManager.findEpic(3).getDuration());
+    }
+
+    @Test
+    void updateEpicsFromJsonKeepsStories() {
+        final Epic epic1 = appManager.findEpic(3);
+        appManager.addStory(Story.createStory("Story1", epic1));
+        appManager.addStory(Story.createStory("Story2", epic1));
+        final Collection<Epic> renamed = TaskSerializer.GSON.fromJson(
+                "[{\"id\":3,\"name\":\"Renamed\",\"description\":\"Новое описание\",\"stories\":[5,6]}]",
+                new TypeToken<Collection<Epic>>() {
+                }.getType());
+        appManager.updateEpics(renamed);
+
+        final Epic updatedEpic = appManager.findEpic(3);
+        assertEquals("Renamed", updatedEpic.getName());
+        assertEquals("Новое описание", updatedEpic.getDescription());
+        assertEquals(2, appManager.findAllStories(updatedEpic).size());
+        assertEquals(updatedEpic, appManager.findStory(6).getEpic());
+    }
+
+    @Test
+    void updateEpicTakesDroppedStoriesOutOfPrioritizedList() {
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        appManager.addStory(Story.builder("Story", appManager.findEpic(3))
+                .startTime(start)
+                .duration(Duration.ofHours(1))
+                .build()); // id = 5
+        appManager.findStory(5);
+        final Epic replacement = Epic.createEpic(3, "Replacement");
+        replacement.addStory(Story.createStory(100, "Other", "", replacement, StateTask.NEW, Duration.ofHours(1),
+                start.plusHours(2)));
+        appManager.updateEpic(3, replacement);
+
+        final InMemoryAppManager inMemoryAppManager = (InMemoryAppManager) appManager;
+        assertArrayEquals(new long[]{3L}, inMemoryAppManager.getHistoryManager().getHistory().stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+        assertNotNull(appManager.addTask(Task.builder("Task").startTime(start).duration(Duration.ofHours(1)).build()));
+        assertNull(appManager.addTask(Task.builder("Task")
+                .startTime(start.plusMinutes(135))
+                .duration(Duration.ofMinutes(30))
+                .build()));
+        assertArrayEquals(new long[]{6L, 100L, 1L, 2L}, inMemoryAppManager.getPrioritizedTasks().stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+        inMemoryAppManager.checkPrioritizedList();
+    }
+
     @Test
     void updateEpicByWrongId() {
         assertThrows(ManagerWrongIdException.class, () -> appManager.updateEpic(5, Epic.createEpic("NewEpic")));
@@ -210,7 +366,7 @@ abstract class AppManagerTest<T extends AppManager> {
         assertEquals("StoryOwnedEpic1", updatedStory.getDescription());
         assertEquals(epic2, updatedStory.getEpic());
         assertEquals(StateTask.DONE, updatedStory.getStateTask());
-        assertEquals(epic2, epic2.getStory(5).getEpic());
+        assertEquals(epic2, appManager.findEpic(4).getStory(5).getEpic());
         assertEquals(0, appManager.findEpic(3).getStories().size());
         assertEquals(1, appManager.findEpic(4).getStories().size());
     }
@@ -235,6 +391,135 @@ abstract class AppManagerTest<T extends AppManager> {
         assertThrows(ManagerWrongIdException.class, () -> appManager.deleteStory(5));
     }
 
+    @Test
+    void addAndDeleteStoriesInBatch() {
+        final Epic epic1 = appManager.findEpic(3);
+        final Epic epic2 = appManager.findEpic(4);
+        final List<Story> addedStories = appManager.addStories(List.of(
+                Story.createStory("Story1", epic1), Story.createStory("Story2", epic2)));
+        assertEquals(1, appManager.findAllStories(epic1).size());
+        assertEquals(1, appManager.findAllStories(epic2).size());
+
+        assertThrows(ManagerWrongIdException.class, () -> appManager.addStories(List.of(
+                Story.createStory("Story3", epic1), Story.createStory("Story4", Epic.createEpic(9, "Epic9")))));
+        assertEquals(1, appManager.findAllStories(epic1).size());
+
+        appManager.deleteStories(List.of(addedStories.get(0).getId(), addedStories.get(1).getId()));
+        assertEquals(0, appManager.findAllStories(epic1).size());
+        assertEquals(0, appManager.findAllStories(epic2).size());
+    }
+
+    @Test
+    void findStoriesByPages() {
+        final Epic epic1 = appManager.findEpic(3);
+        final Epic epic2 = appManager.findEpic(4);
+        appManager.addStory(Story.createStory("Story1", epic1));
+        appManager.addStory(Story.createStory("Story2", epic2));
+        appManager.addStory(Story.createStory("Story3", epic1));
+        assertArrayEquals(new long[] {3, 4}, ids(appManager.findEpics(0, 10)));
+        assertArrayEquals(new long[] {4}, ids(appManager.findEpicsAfter(3, 10)));
+        assertArrayEquals(new long[] {5, 7}, ids(appManager.findStories(3, 0, 10)));
+        assertArrayEquals(new long[] {7}, ids(appManager.findStoriesAfter(3, 5, 10)));
+
+        // Moving a story to another epic moves it between the indexes of the epics
+        appManager.updateStory(7, Story.createStory("Story3", epic2));
+        assertArrayEquals(new long[] {5}, ids(appManager.findStories(3, 0, 10)));
+        assertArrayEquals(new long[] {6, 7}, ids(appManager.findStories(4, 0, 10)));
+
+        appManager.deleteEpic(3);
+        assertArrayEquals(new long[] {4}, ids(appManager.findEpics(0, 10)));
+        assertThrows(ManagerWrongIdException.class, () -> appManager.findStories(3, 0, 10));
+        assertThrows(ManagerWrongIdException.class, () -> appManager.findStoriesAfter(3, 0, 10));
+    }
+
+    @Test
+    void findByStateFollowsTransitions() {
+        final Epic epic1 = appManager.findEpic(3);
+        final Epic epic2 = appManager.findEpic(4);
+        final Story story1 = appManager.addStory(Story.createStory("Story1", epic1));
+        final Story story2 = appManager.addStory(Story.createStory("Story2", epic1));
+        final Story story3 = appManager.addStory(Story.createStory("Story3", epic2));
+        assertArrayEquals(new long[] {1, 2}, ids(appManager.findTasks(StateTask.NEW, 0, 10)));
+        assertArrayEquals(new long[] {5, 6, 7}, ids(appManager.findStories(StateTask.NEW, 0, 10)));
+
+        appManager.updateTask(2, Task.createTask(2, "Task2", "", StateTask.DONE));
+        story1.setStateTask(StateTask.IN_PROGRESS);
+        story3.setStateTask(StateTask.DONE);
+        assertArrayEquals(new long[] {1}, ids(appManager.findTasks(StateTask.NEW, 0, 10)));
+        assertArrayEquals(new long[] {2}, ids(appManager.findTasksAfter(StateTask.DONE, 0, 10)));
+        assertArrayEquals(new long[] {5}, ids(appManager.findStories(StateTask.IN_PROGRESS, 0, 10)));
+        assertArrayEquals(new long[] {6}, ids(appManager.findStories(3, StateTask.NEW, 0, 10)));
+        assertTrue(appManager.findStoriesAfter(3, StateTask.IN_PROGRESS, 5, 10).isEmpty());
+        // The state of an epic follows its stories
+        assertArrayEquals(new long[] {3}, ids(appManager.findEpics(StateTask.IN_PROGRESS, 0, 10)));
+        assertArrayEquals(new long[] {4}, ids(appManager.findEpicsAfter(StateTask.DONE, 0, 10)));
+
+        appManager.deleteStory(story2.getId());
+        story1.setStateTask(StateTask.DONE);
+        assertArrayEquals(new long[] {3, 4}, ids(appManager.findEpics(StateTask.DONE, 0, 10)));
+        assertTrue(appManager.findStories(StateTask.NEW, 0, 10).isEmpty());
+
+        appManager.deleteTask(2);
+        appManager.deleteEpic(4);
+        assertTrue(appManager.findTasks(StateTask.DONE, 0, 10).isEmpty());
+        assertArrayEquals(new long[] {5}, ids(appManager.findStories(StateTask.DONE, 0, 10)));
+        assertThrows(ManagerWrongIdException.class, () -> appManager.findStories(4, StateTask.DONE, 0, 10));
+    }
+
+    @Test
+    void updateStartTimesKeepsPrioritizedOrder() {
+        final LocalDateTime monday = LocalDateTime.of(2022, Month.JANUARY, 3, 9, 0);
+        final Task first = appManager.addTask(Task.builder("First").startTime(monday)
+                .duration(Duration.ofHours(1)).build());
+        final Task second = appManager.addTask(Task.builder("Second").startTime(monday.plusDays(1))
+                .duration(Duration.ofHours(1)).build());
+        final Story story = appManager.addStory(Story.builder("Story", appManager.findEpic(3))
+                .startTime(monday.plusDays(2)).duration(Duration.ofHours(1)).build());
+
+        appManager.updateTask(first.getId(), Task.builder("First").startTime(monday.plusDays(3))
+                .duration(Duration.ofHours(1)).build());
+        // The story is moved to another epic and to the beginning of the week
+        appManager.updateStory(story.getId(), Story.builder("Story", appManager.findEpic(4))
+                .startTime(monday.minusDays(1)).duration(Duration.ofHours(1)).build());
+        appManager.updateTask(second.getId(), Task.builder("Second").build());
+
+        assertArrayEquals(new String[] {"Story", "First"}, appManager.findTasksBetween(null, null).stream()
+                .map(AbstractTask::getName).toArray());
+        assertEquals(1, appManager.findTasksBetween(monday.plusDays(3), monday.plusDays(4)).size());
+        assertNull(appManager.findTask(second.getId()).getStartTime());
+
+        appManager.deleteTask(first.getId());
+        appManager.deleteStory(story.getId());
+        assertTrue(appManager.findTasksBetween(null, null).isEmpty());
+    }
+
+    @Test
+    void findTasksBetween() {
+        final LocalDateTime monday = LocalDateTime.of(2022, Month.JANUARY, 3, 9, 0);
+        for (int day = 0; day < 14; day++) {
+            appManager.addTask(Task.builder("Task" + day).startTime(monday.plusDays(day))
+                    .duration(Duration.ofHours(1)).build());
+        }
+        appManager.addStory(Story.builder("Story", appManager.findEpic(3)).startTime(monday.plusHours(2))
+                .duration(Duration.ofHours(1)).build());
+
+        // The first week with the story, the bound of the next monday is excluded
+        final NavigableSet<AbstractTask> week = appManager.findTasksBetween(monday.minusHours(9), monday.plusDays(7));
+        assertEquals(8, week.size());
+        assertEquals("Story", week.toArray(new AbstractTask[0])[1].getName());
+        assertEquals("Task6", week.last().getName());
+        // Tasks without a start time are not on the timeline
+        assertEquals(15, appManager.findTasksBetween(null, null).size());
+        assertEquals(2, appManager.findTasksBetween(monday.plusDays(12), null).size());
+        assertEquals(1, appManager.findTasksBetween(null, monday.plusHours(1)).size());
+        assertThrows(IllegalArgumentException.class, () -> appManager.findTasksBetween(monday, monday.minusDays(1)));
+
+        assertArrayEquals(new String[] {"Task1", "Task2"}, appManager.nextTasksAfter(monday.plusDays(1), 2).stream()
+                .map(AbstractTask::getName).toArray());
+        assertEquals(1, appManager.nextTasksAfter(monday.plusDays(13), 10).size());
+        assertThrows(IllegalArgumentException.class, () -> appManager.nextTasksAfter(monday, 0));
+    }
+
     @Test
     void deleteAllStories() {
         final Epic epic1 = appManager.findEpic(3);
@@ -267,7 +552,7 @@ abstract class AppManagerTest<T extends AppManager> {
             story.setStateTask(stateTasksStories[i]);
             appManager.addStory(story);
         }
-        assertEquals(expectedStateTaskEpic, epic.getStateTask());
+        assertEquals(expectedStateTaskEpic, appManager.findEpic(3).getStateTask());
     }
 
     private static Stream<Arguments> tasksFindSequenceDataProvider() {
@@ -460,4 +745,8 @@ abstract class AppManagerTest<T extends AppManager> {
             }
         }
     }
-}
\ No newline at end of file
+
+    private static long[] ids(List<? extends AbstractTask> abstractTasks) {
+        return abstractTasks.stream().mapToLong(AbstractTask::getId).toArray();
+    }
+}
@@ -0,0 +1,229 @@
+package managers;
+
+import exceptions.ManagerIntersectionException;
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repositories.tasks.AbstractTasksRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentAppManagerTest {
+    private static final int WRITERS = 32;
+    private static final int OPERATIONS_PER_WRITER = 500;
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    private ConcurrentAppManager appManager;
+
+    @BeforeEach
+    void setUp() {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        appManager = new ConcurrentAppManager();
+    }
+
+    @Test
+    void checkConcurrentAddsDoNotDuplicateIds() throws Exception {
+        final Epic epic = appManager.addEpic(Epic.createEpic("Epic"));
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        runWriters(writer -> {
+            for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                final AbstractTask task = i % 2 == 0
+                        ? appManager.addTask(Task.createTask("Task" + writer + "_" + i))
+                        : appManager.addStory(Story.createStory("Story" + writer + "_" + i, epic));
+                assertTrue(ids.add(task.getId()), "Повторный id " + task.getId());
+            }
+        });
+
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER, ids.size());
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER / 2, appManager.findAllTasks().size());
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER / 2, appManager.findAllStories(epic).size());
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER + 1, appManager.size());
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER, appManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void checkConcurrentAddsDoNotOverlap() throws Exception {
+        // Every writer competes for the same slots, only one of them may win each slot
+        runWriters(writer -> {
+            for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                appManager.addTask(Task.builder("Task" + writer + "_" + i)
+                        .duration(Duration.ofMinutes(10))
+                        .startTime(START.plusMinutes(10L * i).plusSeconds(writer))
+                        .build());
+            }
+        });
+
+        final List<AbstractTask> prioritizedTasks = appManager.getPrioritizedTasks();
+        assertEquals(appManager.findAllTasks().size(), prioritizedTasks.size());
+        for (int i = 1; i < prioritizedTasks.size(); i++) {
+            assertFalse(prioritizedTasks.get(i).getStartTime().isBefore(prioritizedTasks.get(i - 1).getEndTime()),
+                    "Пересечение задач " + prioritizedTasks.get(i - 1) + " и " + prioritizedTasks.get(i));
+        }
+    }
+
+    @Test
+    void checkConcurrentBatchesAreAtomic() throws Exception {
+        // Batches of all writers share their slots, so each slot ends up with the whole batch of one writer
+        runWriters(writer -> {
+            for (int i = 0; i < OPERATIONS_PER_WRITER / 10; i++) {
+                final List<Task> batch = new ArrayList<>();
+                for (int j = 0; j < 5; j++) {
+                    batch.add(Task.builder("Task" + writer + "_" + i + "_" + j)
+                            .duration(Duration.ofMinutes(10))
+                            .startTime(START.plusMinutes(50L * i + 10L * j).plusSeconds(writer))
+                            .build());
+                }
+                try {
+                    appManager.addTasks(batch);
+                } catch (ManagerIntersectionException ignored) {
+                    // Another writer took the slot
+                }
+            }
+        });
+
+        final List<AbstractTask> prioritizedTasks = appManager.getPrioritizedTasks();
+        assertEquals(0, prioritizedTasks.size() % 5);
+        for (int i = 0; i < prioritizedTasks.size(); i += 5) {
+            final String writer = prioritizedTasks.get(i).getName().split("_")[0];
+            for (int j = 1; j < 5; j++) {
+                assertEquals(writer, prioritizedTasks.get(i + j).getName().split("_")[0]);
+            }
+        }
+        for (int i = 1; i < prioritizedTasks.size(); i++) {
+            assertFalse(prioritizedTasks.get(i).getStartTime().isBefore(prioritizedTasks.get(i - 1).getEndTime()));
+        }
+    }
+
+    @Test
+    void checkConcurrentUpdatesAreNotLost() throws Exception {
+        final List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) epics.add(appManager.addEpic(Epic.createEpic("Epic" + i)));
+        final Map<Integer, List<Story>> storiesByWriter = new ConcurrentHashMap<>();
+        runWriters(writer -> {
+            final List<Story> stories = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_WRITER / 10; i++) {
+                stories.add(appManager.addStory(Story.createStory("Story" + writer + "_" + i,
+                        epics.get(i % epics.size()))));
+            }
+            // Each writer keeps moving its own stories between epics and renaming them
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < stories.size(); i++) {
+                    final Story story = stories.get(i);
+                    final Epic epic = epics.get((i + round + writer) % epics.size());
+                    stories.set(i, appManager.updateStory(story.getId(),
+                            Story.createStory(story.getId(), "Story" + writer + "_" + i + "_" + round, epic)));
+                }
+            }
+            storiesByWriter.put(writer, stories);
+        });
+
+        int storiesCount = 0;
+        for (Epic epic : epics) {
+            for (Story story : appManager.findAllStories(epic)) {
+                assertEquals(epic.getId(), story.getEpic().getId());
+                assertSame(story, appManager.getEpicsRepository().findStory(story.getId()));
+                storiesCount++;
+            }
+        }
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER / 10, storiesCount);
+        for (Map.Entry<Integer, List<Story>> entry : storiesByWriter.entrySet()) {
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                final Story story = appManager.findStory(entry.getValue().get(i).getId());
+                assertEquals("Story" + entry.getKey() + "_" + i + "_9", story.getName());
+            }
+        }
+    }
+
+    @Test
+    void checkUpdateEpicKeepsReplacedStoriesOnTimeline() {
+        final Epic epic = appManager.addEpic(Epic.createEpic("Epic"));
+        appManager.addStory(Story.builder("Story", epic).startTime(START).duration(Duration.ofHours(1)).build());
+        final Epic replacement = Epic.createEpic(epic.getId(), "Epic");
+        replacement.addStory(Story.createStory(2, "Story", "", replacement, StateTask.NEW, Duration.ofHours(1),
+                START.plusHours(1)));
+        appManager.updateEpic(epic.getId(), replacement);
+
+        final List<AbstractTask> prioritizedTasks = appManager.getPrioritizedTasks();
+        assertEquals(1, prioritizedTasks.size());
+        assertEquals(START.plusHours(1), prioritizedTasks.get(0).getStartTime());
+        appManager.checkPrioritizedList();
+        assertNull(appManager.addTask(Task.builder("Task")
+                .startTime(START.plusMinutes(75))
+                .duration(Duration.ofMinutes(10))
+                .build()));
+        assertNotNull(appManager.addTask(Task.builder("Task").startTime(START).duration(Duration.ofHours(1)).build()));
+    }
+
+    @Test
+    void checkEpicsAreHandedOutAsCopies() {
+        final Epic epic = appManager.addEpic(Epic.createEpic("Epic"));
+        final Story story = appManager.addStory(Story.builder("Story", epic)
+                .startTime(START)
+                .duration(Duration.ofHours(1))
+                .build());
+        final Epic found = appManager.findEpic(epic.getId());
+        final Epic listed = appManager.findAllEpics().iterator().next();
+        appManager.updateStory(story.getId(), Story.createStory(story.getId(), "Story", "", found, StateTask.NEW,
+                Duration.ofHours(3), START));
+
+        assertNotSame(appManager.getEpicsRepository().find(epic.getId()), found);
+        assertEquals(Duration.ofHours(1), found.getDuration());
+        assertEquals(Duration.ofHours(1), listed.getDuration());
+        assertEquals(Duration.ofHours(3), appManager.findEpic(epic.getId()).getDuration());
+        assertEquals(Duration.ofHours(3), appManager.findEpics(0, 10).get(0).getDuration());
+        assertEquals(story.getId(), found.getStory(story.getId()).getId());
+    }
+
+    @Test
+    void checkTasksAndStoriesAreHandedOutAsCopies() {
+        final Task task = appManager.addTask(Task.createTask("Task"));
+        final Epic epic = appManager.addEpic(Epic.createEpic("Epic"));
+        final Story story = appManager.addStory(Story.createStory("Story", epic));
+        final Task foundTask = appManager.findTask(task.getId());
+        final Story foundStory = appManager.findStory(story.getId());
+        appManager.updateTask(task.getId(), Task.createTask(task.getId(), "Updated", "", StateTask.DONE));
+        appManager.updateStory(story.getId(), Story.createStory(story.getId(), "Updated", "", epic));
+
+        assertNotSame(appManager.getTasksRepository().find(task.getId()), foundTask);
+        assertNotSame(appManager.getEpicsRepository().findStory(story.getId()), foundStory);
+        assertEquals("Task", foundTask.getName());
+        assertEquals(StateTask.NEW, foundTask.getStateTask());
+        assertEquals("Story", foundStory.getName());
+        assertEquals(epic.getId(), foundStory.getEpic().getId());
+        assertEquals(StateTask.DONE, appManager.findTask(task.getId()).getStateTask());
+        assertEquals("Updated", appManager.findStory(story.getId()).getName());
+    }
+
+    private void runWriters(Writer writer) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                final int writerNumber = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    writer.write(writerNumber);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Writer {
+        void write(int writerNumber);
+    }
+}
@@ -1,6 +1,12 @@
 package managers;
 
+import exceptions.ManagerSaveException;
+import managers.history.BoundedHistoryManager;
 import managers.history.HistoryManager;
+import managers.persistence.BinarySnapshot;
+import managers.persistence.DurabilityMode;
+import managers.persistence.FlushStatistics;
+import managers.persistence.SnapshotFormat;
 import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.tasks.AbstractTask;
@@ -10,10 +16,17 @@ import models.tasks.Task;
 import org.junit.jupiter.api.*;
 import repositories.tasks.AbstractTasksRepository;
 import utils.Managers;
+import web.taskSerializers.TaskSerializer;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +34,8 @@ import static org.junit.jupiter.api.Assertions.*;
 class FileBackedAppManagerTest extends AppManagerTest<FileBackedAppManager> {
     protected static final String FILE_NAME_FOR_GENERALIZED_TEST = "test1";
     private static final String FILE_NAME_FOR_FILE_BACKED_TEST = "test2";
+    private static final String FILE_NAME_FOR_JOURNALED_TEST = "test3";
+    private static final String FILE_NAME_FOR_BINARY_TEST = "test4";
 
     private FileBackedAppManagerTest() {
         super(Managers.getFileBacked(Path.of(FILE_NAME_FOR_GENERALIZED_TEST)));
@@ -42,6 +57,7 @@ class FileBackedAppManagerTest extends AppManagerTest<FileBackedAppManager> {
         void tearDown() throws IOException {
             final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
             if (Files.exists(pathDataFile)) Files.delete(pathDataFile);
+            Files.deleteIfExists(FileBackedAppManager.historyPath(pathDataFile));
         }
 
         @Test
@@ -49,8 +65,8 @@ class FileBackedAppManagerTest extends AppManagerTest<FileBackedAppManager> {
             add(TypeTask.TASK, "Task");
             add(TypeTask.EPIC, "Epic");
             Task task = fileBackedAppManager.findTask(1);
+            add(TypeTask.STORY, "Story", fileBackedAppManager.findEpic(2));
             Epic epic = fileBackedAppManager.findEpic(2);
-            add(TypeTask.STORY, "Story", epic);
             Story story = fileBackedAppManager.findStory(3);
             fileBackedAppManager.load();
             // Task assertions
@@ -73,6 +89,207 @@ class FileBackedAppManagerTest extends AppManagerTest<FileBackedAppManager> {
             assertEquals(1, fileBackedAppManager.getEpicsRepository().size());
         }
 
+        @Test
+        void checkFindDoesNotRewriteDataFile() throws IOException {
+            add(TypeTask.TASK, "Task");
+            final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
+            final byte[] dataBeforeFind = Files.readAllBytes(pathDataFile);
+            fileBackedAppManager.findTask(1);
+            fileBackedAppManager.close();
+            assertArrayEquals(dataBeforeFind, Files.readAllBytes(pathDataFile));
+            assertEquals("1,", Files.readString(FileBackedAppManager.historyPath(pathDataFile)));
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getFileBacked(pathDataFile);
+            assertArrayEquals(new long[] {1},
+                    reloaded.getHistoryManager().getHistory().stream().mapToLong(AbstractTask::getId).toArray());
+        }
+
+        @Test
+        void checkBoundedHistoryIsSavedAndLoaded() throws IOException {
+            final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
+            final FileBackedAppManager boundedAppManager = FileBackedAppManager.builder(pathDataFile)
+                    .historyManager(new BoundedHistoryManager(2))
+                    .build();
+            for (int i = 1; i <= 3; i++) boundedAppManager.addTask(Task.createTask("Task" + i));
+            for (long id : new long[] {1, 2, 3, 1}) boundedAppManager.findTask(id);
+            boundedAppManager.close();
+            assertEquals("3,1,", Files.readString(FileBackedAppManager.historyPath(pathDataFile)));
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = FileBackedAppManager.builder(pathDataFile)
+                    .historyManager(new BoundedHistoryManager(2))
+                    .build();
+            assertArrayEquals(new long[] {3, 1},
+                    reloaded.getHistory().stream().mapToLong(AbstractTask::getId).toArray());
+        }
+
+        @Test
+        void checkSnapshotWithoutHistoryRecordIsLoaded() throws IOException {
+            final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
+            Files.writeString(pathDataFile, "id,type,name,status,description,duration,startTime,epic\r\n"
+                    + "1,TASK,Task,DONE,Описание,PT1H30M,2022-01-01T10:00,\r\n"
+                    + "2,EPIC,Epic,NEW,,,,\r\n"
+                    + "3,STORY,Story,IN_PROGRESS,,PT0.5S,2022-01-02T10:00:00.25,2\r\n");
+            fileBackedAppManager.load();
+
+            final Task task = fileBackedAppManager.getTasksRepository().find(1);
+            assertEquals("Описание", task.getDescription());
+            assertEquals(StateTask.DONE, task.getStateTask());
+            assertEquals(Duration.ofMinutes(90), task.getDuration());
+            assertEquals(LocalDateTime.of(2022, 1, 1, 10, 0), task.getStartTime());
+            final Story story = fileBackedAppManager.getEpicsRepository().findStory(3);
+            assertEquals(2, story.getEpic().getId());
+            assertEquals(Duration.ofMillis(500), story.getDuration());
+            assertEquals(LocalDateTime.of(2022, 1, 2, 10, 0, 0, 250_000_000), story.getStartTime());
+            assertTrue(fileBackedAppManager.getHistoryManager().getHistory().isEmpty());
+        }
+
+        @Test
+        void checkBulkLoadKeepsOrderAndIndexes() {
+            final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
+            final FileBackedAppManager groupCommitAppManager = Managers.getFileBacked(pathDataFile,
+                    DurabilityMode.groupCommit(Integer.MAX_VALUE, Duration.ofHours(1)));
+            final LocalDateTime startTime = LocalDateTime.of(2022, 1, 1, 0, 0);
+            Epic epic = null;
+            // Several chunks of the parallel parser, timed tasks and stories in reverse order of start time
+            for (int i = 0; i < 10_000; i++) {
+                final LocalDateTime taskStartTime = i % 3 == 0 ? null : startTime.minusHours(i);
+                if (i % 50 == 0) {
+                    epic = groupCommitAppManager.addEpic(Epic.createEpic("Epic" + i));
+                } else if (i % 2 == 0) {
+                    groupCommitAppManager.addStory(Story.createStory(0, "Story" + i, "", epic, StateTask.DONE,
+                            Duration.ofMinutes(30), taskStartTime));
+                } else {
+                    groupCommitAppManager.addTask(Task.createTask(0, "Task" + i, "", StateTask.NEW,
+                            Duration.ofMinutes(30), taskStartTime));
+                }
+            }
+            groupCommitAppManager.close();
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getFileBacked(pathDataFile);
+            assertArrayEquals(groupCommitAppManager.getPrioritizedTasks().stream().mapToLong(AbstractTask::getId)
+                    .toArray(), reloaded.getPrioritizedTasks().stream().mapToLong(AbstractTask::getId).toArray());
+            assertEquals(groupCommitAppManager.size(), reloaded.size());
+            final Epic reloadedEpic = reloaded.getEpicsRepository().find(epic.getId());
+            assertEquals(epic.getStories().size(), reloadedEpic.getStories().size());
+            assertEquals(epic.getStartTime(), reloadedEpic.getStartTime());
+            assertEquals(StateTask.DONE, reloadedEpic.getStateTask());
+            // Id indexes are built in bulk
+            assertArrayEquals(groupCommitAppManager.findTasks(0, 10_000).stream().mapToLong(AbstractTask::getId)
+                    .toArray(), reloaded.findTasks(0, 10_000).stream().mapToLong(AbstractTask::getId).toArray());
+            assertEquals(groupCommitAppManager.findEpicsAfter(5000, 10).get(0).getId(),
+                    reloaded.findEpicsAfter(5000, 10).get(0).getId());
+            assertEquals(reloaded.findAllTasks().size(), reloaded.findTasks(StateTask.NEW, 0, 10_000).size());
+            assertEquals(reloaded.getEpicsRepository().storiesSize(),
+                    reloaded.findStories(StateTask.DONE, 0, 10_000).size());
+
+            assertNull(reloaded.addTask(Task.builder("Overlapping").duration(Duration.ofMinutes(30))
+                    .startTime(startTime.minusHours(1).plusMinutes(10)).build()));
+            assertNotNull(reloaded.addTask(Task.builder("Free").duration(Duration.ofMinutes(30))
+                    .startTime(startTime.plusHours(1)).build()));
+        }
+
+        @Test
+        void checkBatchIsSavedOnce() {
+            final long flushesBefore = fileBackedAppManager.getFlushStatistics().getFlushCount();
+            fileBackedAppManager.addTasks(List.of(Task.createTask("Task1"), Task.createTask("Task2"),
+                    Task.createTask("Task3")));
+            assertEquals(flushesBefore + 1, fileBackedAppManager.getFlushStatistics().getFlushCount());
+            assertEquals(3, fileBackedAppManager.getFlushStatistics().getLastBatchSize());
+
+            fileBackedAppManager.deleteTasks(List.of(1L, 3L));
+            assertEquals(flushesBefore + 2, fileBackedAppManager.getFlushStatistics().getFlushCount());
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getFileBacked(Path.of(FILE_NAME_FOR_FILE_BACKED_TEST));
+            assertEquals(1, reloaded.findAllTasks().size());
+            assertEquals("Task2", reloaded.findTask(2).getName());
+        }
+
+        @Test
+        void checkGroupCommitCoalescesSaves() throws IOException {
+            final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
+            final FileBackedAppManager groupCommitAppManager = Managers.getFileBacked(pathDataFile,
+                    DurabilityMode.groupCommit(3, Duration.ofHours(1)));
+            groupCommitAppManager.addTask(Task.createTask("Task1"));
+            groupCommitAppManager.addTask(Task.createTask("Task2"));
+            assertEquals(0, groupCommitAppManager.getFlushStatistics().getFlushCount());
+            assertEquals(0, Files.size(pathDataFile));
+
+            groupCommitAppManager.addTask(Task.createTask("Task3"));
+            assertEquals(1, groupCommitAppManager.getFlushStatistics().getFlushCount());
+            assertEquals(3, groupCommitAppManager.getFlushStatistics().getLastBatchSize());
+
+            groupCommitAppManager.deleteTask(1);
+            groupCommitAppManager.close();
+            assertEquals(2, groupCommitAppManager.getFlushStatistics().getFlushCount());
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            assertEquals(2, Managers.getFileBacked(pathDataFile).findAllTasks().size());
+        }
+
+        @Test
+        void checkBackgroundFlushFailureIsRecorded() throws Exception {
+            final Path pathDataFile = Path.of(FILE_NAME_FOR_FILE_BACKED_TEST);
+            final Path snapshotPath = pathDataFile.resolveSibling(pathDataFile.getFileName() + ".tmp");
+            final FileBackedAppManager writeBehindAppManager = Managers.getFileBacked(pathDataFile,
+                    DurabilityMode.writeBehind(Duration.ofMillis(10)));
+            // The snapshot cannot be written while a directory takes its place
+            Files.createDirectory(snapshotPath);
+            try {
+                writeBehindAppManager.addTask(Task.createTask("Task"));
+                final FlushStatistics statistics = writeBehindAppManager.getFlushStatistics();
+                final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+                while (statistics.getFailureCount() == 0 && System.nanoTime() < deadline) Thread.sleep(10);
+                assertTrue(statistics.getFailureCount() > 0);
+                assertTrue(statistics.getLastFailure() instanceof ManagerSaveException);
+                assertEquals(0, statistics.getFlushCount());
+
+                Files.delete(snapshotPath);
+                while (statistics.getFlushCount() == 0 && System.nanoTime() < deadline) Thread.sleep(10);
+                assertEquals(1, statistics.getFlushedOperations());
+            } finally {
+                writeBehindAppManager.close();
+                Files.deleteIfExists(snapshotPath);
+            }
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            assertEquals(1, Managers.getFileBacked(pathDataFile).findAllTasks().size());
+        }
+
+        @Test
+        void checkReadsAreSnapshots() throws Exception {
+            final Epic epic = fileBackedAppManager.addEpic(Epic.createEpic("Epic"));
+            fileBackedAppManager.addTask(Task.createTask("Task"));
+            final Collection<Task> tasks = fileBackedAppManager.findAllTasks();
+            final Collection<Epic> epics = fileBackedAppManager.findAllEpics();
+            final Collection<Story> stories = fileBackedAppManager.findAllStories(epic.getId());
+            fileBackedAppManager.addTask(Task.createTask("Task"));
+            fileBackedAppManager.addStory(Story.createStory("Story", epic));
+            assertEquals(1, tasks.size());
+            assertEquals(0, epics.iterator().next().getStories().size());
+            assertEquals(0, stories.size());
+            // Every epic finder hands out a copy
+            final Epic found = fileBackedAppManager.findEpic(epic.getId());
+            final Epic paged = fileBackedAppManager.findEpics(0, 10).get(0);
+            final Epic pagedAfter = fileBackedAppManager.findEpicsAfter(0, 10).get(0);
+            final Epic pagedByState = fileBackedAppManager.findEpics(StateTask.NEW, 0, 10).get(0);
+            final Epic pagedByStateAfter = fileBackedAppManager.findEpicsAfter(StateTask.NEW, 0, 10).get(0);
+            fileBackedAppManager.addStory(Story.createStory("Story", epic));
+            for (Epic copy : List.of(found, paged, pagedAfter, pagedByState, pagedByStateAfter)) {
+                assertNotSame(epic, copy);
+                assertEquals(1, copy.getStories().size());
+            }
+
+            // Readers serialize the epics while a writer keeps adding stories to them
+            final Thread writer = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) fileBackedAppManager.addStory(Story.createStory("Story" + i, epic));
+            });
+            writer.start();
+            while (writer.isAlive()) TaskSerializer.GSON.toJson(fileBackedAppManager.findAllEpics());
+            writer.join();
+            assertEquals(2_002, fileBackedAppManager.findAllStories(epic).size());
+        }
+
         private void add(TypeTask typeTask, String name, Epic epic) {
             switch (typeTask) {
                 case TASK:
@@ -98,4 +315,184 @@ class FileBackedAppManagerTest extends AppManagerTest<FileBackedAppManager> {
             assertEquals(st, task.getStateTask());
         }
     }
-}
\ No newline at end of file
+
+    // All tests are below check the state of journaled FileBackedAppManager after replaying its log
+    @Nested
+    class NestedJournaledAppManagerTest {
+        private static final int COMPACTION_THRESHOLD = 5;
+        private final Path path = Path.of(FILE_NAME_FOR_JOURNALED_TEST);
+        private FileBackedAppManager journaledAppManager;
+
+        @BeforeEach
+        void setUp() {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            journaledAppManager = Managers.getJournaled(path, COMPACTION_THRESHOLD);
+        }
+
+        @AfterEach
+        void tearDown() throws IOException {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(FileBackedAppManager.journalPath(path));
+            Files.deleteIfExists(FileBackedAppManager.historyPath(path));
+        }
+
+        @Test
+        void checkStateManagerAfterReplay() {
+            journaledAppManager.addTask(Task.createTask("Task"));
+            final Epic epic = journaledAppManager.addEpic(Epic.createEpic("Epic"));
+            journaledAppManager.addStory(Story.createStory("Story", epic));
+            journaledAppManager.updateTask(1, Task.createTask(1, "UpdatedTask", "", StateTask.DONE));
+            journaledAppManager.findStory(3);
+            journaledAppManager.close();
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getJournaled(path, COMPACTION_THRESHOLD);
+            assertEquals("UpdatedTask", reloaded.getTasksRepository().find(1).getName());
+            assertEquals(StateTask.DONE, reloaded.getTasksRepository().find(1).getStateTask());
+            assertEquals(1, reloaded.getEpicsRepository().find(2).getStories().size());
+            assertArrayEquals(new long[] {3},
+                    reloaded.getHistoryManager().getHistory().stream().mapToLong(AbstractTask::getId).toArray());
+            assertEquals(4, reloaded.addTask(Task.createTask("NextTask")).getId());
+        }
+
+        @Test
+        void checkJournalLeftBySaveIsReplayedOnItsSnapshot() throws IOException {
+            final FileBackedAppManager appManager = Managers.getJournaled(path);
+            final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+            appManager.addTask(Task.builder("Task").startTime(start).duration(Duration.ofHours(1)).build());
+            final Epic epic = appManager.addEpic(Epic.createEpic("Epic", ""));
+            appManager.addStory(Story.builder("Story1", epic)
+                    .startTime(start.plusHours(1))
+                    .duration(Duration.ofHours(1))
+                    .build()); // id = 3
+            appManager.addStory(Story.createStory("Story2", "", epic)); // id = 4
+            appManager.addTask(Task.createTask("Temporary", "")); // id = 5
+            // The story takes over the slot the task leaves
+            appManager.updateTask(1, Task.createTask(1, "Task", "", StateTask.DONE, Duration.ofHours(1),
+                    start.plusHours(3)));
+            appManager.updateStory(3, Story.createStory(3, "Story1", "", epic, StateTask.NEW, Duration.ofHours(1),
+                    start));
+            final Epic replacement = Epic.createEpic(2, "Replacement", "");
+            replacement.addStory(Story.createStory(3, "Replaced", "", replacement, StateTask.IN_PROGRESS,
+                    Duration.ofHours(2), start));
+            appManager.updateEpic(2, replacement);
+            appManager.deleteTask(5);
+            appManager.updateEpics(List.of(Epic.createEpic(2, "Renamed", "")));
+            final List<String> expected = state(appManager);
+            final Path journalPath = FileBackedAppManager.journalPath(path);
+            final byte[] journal = Files.readAllBytes(journalPath);
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            assertEquals(expected, state(Managers.getJournaled(path)));
+
+            // A crash after the new snapshot is in place but before the journal is reset
+            appManager.save();
+            Files.write(journalPath, journal);
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getJournaled(path);
+            assertEquals(expected, state(reloaded));
+            reloaded.checkPrioritizedList();
+            assertEquals(6, reloaded.addTask(Task.createTask("NextTask")).getId());
+        }
+
+        private List<String> state(FileBackedAppManager appManager) {
+            final List<String> state = new ArrayList<>();
+            for (Task task : appManager.getTasksRepository().findAll()) state.add(task.toString());
+            for (Epic epic : appManager.getEpicsRepository().findAll()) {
+                state.add(epic.toString());
+                for (Story story : epic.getStories()) state.add(story.toString());
+            }
+            Collections.sort(state);
+            state.add(appManager.getPrioritizedTasks().toString());
+            return state;
+        }
+
+        @Test
+        void checkJournalIsCompacted() throws IOException {
+            for (int i = 0; i < COMPACTION_THRESHOLD; i++) {
+                journaledAppManager.addTask(Task.createTask("Task" + i));
+            }
+            assertTrue(Files.notExists(FileBackedAppManager.journalPath(path)));
+
+            journaledAppManager.deleteTask(1);
+            assertEquals(1, Files.readAllLines(FileBackedAppManager.journalPath(path)).size());
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getJournaled(path, COMPACTION_THRESHOLD);
+            assertEquals(COMPACTION_THRESHOLD - 1, reloaded.findAllTasks().size());
+            assertNull(reloaded.getTasksRepository().find(1));
+        }
+    }
+
+    // All tests are below check the binary snapshot and the conversion between the formats
+    @Nested
+    class NestedBinarySnapshotTest {
+        private final Path path = Path.of(FILE_NAME_FOR_BINARY_TEST);
+        private final Path csvPath = Path.of(FILE_NAME_FOR_BINARY_TEST + ".csv");
+
+        @BeforeEach
+        void setUp() {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+        }
+
+        @AfterEach
+        void tearDown() throws IOException {
+            for (Path file : new Path[] {path, csvPath}) {
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(FileBackedAppManager.historyPath(file));
+            }
+        }
+
+        @Test
+        void checkStateManagerAfterLoadingBinarySnapshot() {
+            final LocalDateTime startTime = LocalDateTime.of(1969, 12, 31, 23, 59, 30, 500);
+            final FileBackedAppManager binaryAppManager = Managers.getFileBacked(path, SnapshotFormat.BINARY);
+            binaryAppManager.addTask(Task.createTask(0, "Задача", "Описание", StateTask.DONE,
+                    Duration.ofSeconds(90, 1), startTime));
+            final Epic epic = binaryAppManager.addEpic(Epic.createEpic("Epic", "Описание"));
+            binaryAppManager.addStory(Story.createStory(0, "Story", "Описание", epic, StateTask.IN_PROGRESS,
+                    Duration.ofMinutes(15), startTime.plusDays(1)));
+            binaryAppManager.addTask(Task.createTask("Задача"));
+            binaryAppManager.findStory(3);
+            binaryAppManager.findTask(1);
+            binaryAppManager.save();
+            assertTrue(BinarySnapshot.isBinary(path));
+
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            final FileBackedAppManager reloaded = Managers.getFileBacked(path);
+            final Task task = reloaded.getTasksRepository().find(1);
+            assertEquals("Задача", task.getName());
+            assertEquals("Описание", task.getDescription());
+            assertEquals(StateTask.DONE, task.getStateTask());
+            assertEquals(Duration.ofSeconds(90, 1), task.getDuration());
+            assertEquals(startTime, task.getStartTime());
+            final Story story = reloaded.getEpicsRepository().findStory(3);
+            assertSame(reloaded.getEpicsRepository().find(2), story.getEpic());
+            assertEquals(StateTask.IN_PROGRESS, story.getStateTask());
+            assertEquals(StateTask.IN_PROGRESS, story.getEpic().getStateTask());
+            assertNull(reloaded.getTasksRepository().find(4).getStartTime());
+            assertArrayEquals(new long[] {3, 1},
+                    reloaded.getHistoryManager().getHistory().stream().mapToLong(AbstractTask::getId).toArray());
+            assertEquals(5, reloaded.addTask(Task.createTask("NextTask")).getId());
+        }
+
+        @Test
+        void checkConversionKeepsCsvSnapshot() throws IOException {
+            final FileBackedAppManager csvAppManager = Managers.getFileBacked(csvPath);
+            final Epic epic = csvAppManager.addEpic(Epic.createEpic("Epic"));
+            csvAppManager.addStory(Story.createStory("Story", epic));
+            csvAppManager.addTask(Task.builder("Task").duration(Duration.ofMinutes(5))
+                    .startTime(LocalDateTime.of(2022, 1, 1, 10, 0)).build());
+            csvAppManager.findEpic(1);
+            csvAppManager.save();
+            final byte[] csv = Files.readAllBytes(csvPath);
+
+            FileBackedAppManager.convert(csvPath, path, SnapshotFormat.BINARY);
+            assertTrue(BinarySnapshot.isBinary(path));
+            assertTrue(Files.size(path) < csv.length);
+
+            FileBackedAppManager.convert(path, csvPath, SnapshotFormat.CSV);
+            assertArrayEquals(csv, Files.readAllBytes(csvPath));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package managers;
+
+import managers.persistence.DurabilityMode;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.junit.jupiter.api.*;
+import repositories.tasks.AbstractTasksRepository;
+import utils.Managers;
+import web.kv.KVServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskManagerTest extends AppManagerTest<HttpTaskManager> {
+    private static KVServer generalizedKVServer;
+
+    private HttpTaskManagerTest() {
+        super(Managers.getHttp((generalizedKVServer = startKVServer()).getUrl()));
+    }
+
+    private static KVServer startKVServer() {
+        final KVServer kvServer;
+        try {
+            kvServer = new KVServer(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        kvServer.start();
+        return kvServer;
+    }
+
+    @AfterEach
+    void stopKVServer() {
+        generalizedKVServer.stop();
+    }
+
+    // All tests are below check the state shared by managers through the same KVServer
+    @Nested
+    class NestedHttpTaskManagerTest {
+        private KVServer kvServer;
+        private HttpTaskManager httpTaskManager;
+
+        @BeforeEach
+        void setUp() {
+            AbstractTasksRepository.TASK_COUNTER.reset();
+            kvServer = startKVServer();
+            httpTaskManager = Managers.getHttp(kvServer.getUrl());
+        }
+
+        @AfterEach
+        void tearDown() {
+            kvServer.stop();
+        }
+
+        @Test
+        void checkStateIsSharedThroughKVServer() {
+            final Task task = httpTaskManager.addTask(Task.createTask("Task"));
+            final Epic epic = httpTaskManager.addEpic(Epic.createEpic("Epic"));
+            final Story story = httpTaskManager.addStory(Story.createStory("Story", epic));
+            httpTaskManager.findStory(story.getId());
+            httpTaskManager.findTask(task.getId());
+            httpTaskManager.close();
+
+            final HttpTaskManager otherNode = Managers.getHttp(kvServer.getUrl());
+            assertEquals(1, otherNode.findAllTasks().size());
+            assertEquals(1, otherNode.findAllEpics().size());
+            assertEquals(1, otherNode.findAllStories(epic.getId()).size());
+            assertEquals(epic.getId(), otherNode.getEpicsRepository().findStory(story.getId()).getEpic().getId());
+            assertArrayEquals(new long[] {story.getId(), task.getId()}, otherNode.getHistoryManager().getHistory()
+                    .stream().mapToLong(AbstractTask::getId).toArray());
+        }
+
+        @Test
+        void checkOnlyChangedKeysAreUploaded() {
+            httpTaskManager.addTask(Task.createTask("Task"));
+            assertEquals(1, httpTaskManager.getClient().getUploadedValues());
+
+            httpTaskManager.addEpic(Epic.createEpic("Epic"));
+            assertEquals(3, httpTaskManager.getClient().getUploadedValues());
+
+            // The update marks epics and stories as changed, but their values stay the same and are not sent
+            httpTaskManager.updateEpic(2, Epic.createEpic("Epic"));
+            assertEquals(3, httpTaskManager.getClient().getUploadedValues());
+
+            httpTaskManager.addStory(Story.createStory("Story", httpTaskManager.getEpicsRepository().find(2)));
+            assertEquals(4, httpTaskManager.getClient().getUploadedValues());
+        }
+
+        @Test
+        void checkGroupCommitBatchesPuts() {
+            final HttpTaskManager groupCommitManager = Managers.getHttp(kvServer.getUrl(),
+                    DurabilityMode.groupCommit(10, Duration.ofHours(1)));
+            final long requestsBefore = groupCommitManager.getClient().getRequests();
+            for (int i = 0; i < 10; i++) groupCommitManager.addTask(Task.createTask("Task" + i));
+            groupCommitManager.addEpic(Epic.createEpic("Epic"));
+            groupCommitManager.close();
+
+            assertEquals(2, groupCommitManager.getClient().getRequests() - requestsBefore);
+            assertEquals(10, Managers.getHttp(kvServer.getUrl()).findAllTasks().size());
+        }
+    }
+}
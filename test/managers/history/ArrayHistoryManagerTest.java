@@ -0,0 +1,57 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayHistoryManagerTest {
+
+    @Test
+    void checkHistoryMatchesLinkedHistory() {
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) tasks.add(Task.createTask(i, "Task" + i, ""));
+        final HistoryManager expected = new InMemoryHistoryManager();
+        final HistoryManager actual = new ArrayHistoryManager(4);
+        final Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            final Task task = tasks.get(random.nextInt(tasks.size()));
+            if (random.nextInt(3) == 0) {
+                expected.remove(task.getId());
+                actual.remove(task.getId());
+            } else {
+                expected.add(task);
+                actual.add(task);
+            }
+            if (i % 1000 == 999) assertEquals(expected.getHistory(), actual.getHistory());
+            if (i == 10_000) {
+                expected.clear();
+                actual.clear();
+            }
+        }
+        final List<AbstractTask> history = actual.getHistory();
+        assertEquals(expected.getHistory().get(history.size() / 3), history.get(history.size() / 3));
+        assertEquals(expected.getHistory().get(history.size() - 2), history.get(history.size() - 2));
+    }
+
+    @Test
+    void checkHistoryIsReadOnlyView() {
+        final ArrayHistoryManager historyManager = new ArrayHistoryManager();
+        historyManager.add(Task.createTask(1, "Task1", ""));
+        historyManager.add(Task.createTask(2, "Task2", ""));
+        final List<AbstractTask> history = historyManager.getHistory();
+        historyManager.add(Task.createTask(1, "Task1", ""));
+        assertArrayEquals(new long[] {2, 1}, history.stream().mapToLong(AbstractTask::getId).toArray());
+        assertThrows(UnsupportedOperationException.class, () -> history.remove(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(2));
+
+        final Iterator<AbstractTask> iterator = history.iterator();
+        iterator.next();
+        historyManager.remove(2);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        assertEquals(1, history.size());
+    }
+}
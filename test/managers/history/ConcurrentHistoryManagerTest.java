@@ -0,0 +1,102 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    @Test
+    void checkHistoryMatchesLinkedHistory() {
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) tasks.add(Task.createTask(i, "Task" + i, ""));
+        final HistoryManager expected = new InMemoryHistoryManager();
+        // Scheduled drains run right in the adding thread
+        final HistoryManager actual = new ConcurrentHistoryManager(Runnable::run, 4);
+        final Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            final Task task = tasks.get(random.nextInt(tasks.size()));
+            if (random.nextInt(10) == 0) {
+                expected.remove(task.getId());
+                actual.remove(task.getId());
+            } else {
+                expected.add(task);
+                actual.add(task);
+            }
+            if (i % 500 == 499) assertEquals(expected.getHistory(), actual.getHistory());
+        }
+        actual.clear();
+        assertTrue(actual.getHistory().isEmpty());
+    }
+
+    @Test
+    void checkLateViewsDoNotBringRemovedTasksBack() {
+        final Task task1 = Task.createTask(1, "Task1", "");
+        final Task task2 = Task.createTask(2, "Task2", "");
+        final AtomicLong clock = new AtomicLong(100);
+        final HistoryManager historyManager = new ConcurrentHistoryManager(Runnable::run, 4, clock::get);
+        historyManager.add(task1);
+        historyManager.add(task2);
+        clock.set(200);
+        historyManager.remove(1);
+        // A view stamped before the removal and published after it
+        clock.set(150);
+        historyManager.add(task1);
+        assertEquals(List.of(task2), historyManager.getHistory());
+        clock.set(300);
+        historyManager.add(task1);
+        assertEquals(List.of(task2, task1), historyManager.getHistory());
+
+        clock.set(400);
+        historyManager.clear();
+        clock.set(350);
+        historyManager.add(task2);
+        assertTrue(historyManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void checkConcurrentViewsKeepOrderOfEveryThread() throws Exception {
+        final ExecutorService drainer = Executors.newSingleThreadExecutor();
+        final ExecutorService readers = Executors.newFixedThreadPool(THREADS);
+        try {
+            final HistoryManager historyManager = new ConcurrentHistoryManager(drainer);
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final long firstId = (long) thread * TASKS_PER_THREAD + 1;
+                futures.add(readers.submit(() -> {
+                    start.await();
+                    // The second pass moves every task of the thread to the end again in the same order
+                    for (int pass = 0; pass < 2; pass++) {
+                        for (long id = firstId; id < firstId + TASKS_PER_THREAD; id++) {
+                            historyManager.add(Task.createTask(id, "Task" + id, ""));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+
+            final List<AbstractTask> history = historyManager.getHistory();
+            assertEquals(THREADS * TASKS_PER_THREAD, history.size());
+            final long[] lastIds = new long[THREADS];
+            for (AbstractTask task : history) {
+                final int thread = (int) ((task.getId() - 1) / TASKS_PER_THREAD);
+                assertTrue(task.getId() > lastIds[thread]);
+                lastIds[thread] = task.getId();
+            }
+        } finally {
+            readers.shutdownNow();
+            drainer.shutdownNow();
+        }
+    }
+}
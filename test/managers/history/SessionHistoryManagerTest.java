@@ -0,0 +1,113 @@
+package managers.history;
+
+import managers.InMemoryAppManager;
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repositories.tasks.AbstractTasksRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+    private static final int CAPACITY = 3;
+    private static final int MAX_SESSIONS = 2;
+
+    private SessionHistoryManager historyManager;
+    private InMemoryAppManager appManager;
+
+    @BeforeEach
+    void setUp() {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        historyManager = new SessionHistoryManager(CAPACITY, MAX_SESSIONS);
+        appManager = new InMemoryAppManager(historyManager);
+        for (int i = 1; i <= 5; i++) appManager.addTask(Task.createTask("Task" + i));
+    }
+
+    @Test
+    void checkBoundedHistoryEvictsLeastRecentlyViewed() {
+        final BoundedHistoryManager boundedHistoryManager = new BoundedHistoryManager(CAPACITY);
+        for (long id : new long[] {1, 2, 3, 1, 4}) boundedHistoryManager.add(appManager.getTasksRepository().find(id));
+        assertArrayEquals(new long[] {3, 1, 4}, ids(boundedHistoryManager.getHistory()));
+        boundedHistoryManager.remove(1);
+        assertArrayEquals(new long[] {3, 4}, ids(boundedHistoryManager.getHistory()));
+        assertThrows(IllegalArgumentException.class, () -> new BoundedHistoryManager(0));
+    }
+
+    @Test
+    void checkSessionsHaveSeparateHistories() {
+        inSession("first", () -> {
+            appManager.findTask(1);
+            appManager.findTask(2);
+            inSession("second", () -> {
+                appManager.findTask(3);
+                assertArrayEquals(new long[] {3}, ids(appManager.getHistory()));
+            });
+            assertEquals("first", SessionHistoryManager.currentSession());
+            appManager.findTask(4);
+            appManager.findTask(5);
+            assertArrayEquals(new long[] {2, 4, 5}, ids(appManager.getHistory()));
+        });
+        assertNull(SessionHistoryManager.currentSession());
+        // Outside of a session the shared history with the views of every session is seen
+        assertArrayEquals(new long[] {3, 4, 5}, ids(appManager.getHistory()));
+        assertArrayEquals(new long[] {3}, ids(historyManager.getHistory("second")));
+        assertTrue(historyManager.getHistory("unknown").isEmpty());
+    }
+
+    @Test
+    void checkDeletedTaskLeavesEverySession() {
+        inSession("first", () -> appManager.findTask(1));
+        inSession("second", () -> {
+            appManager.findTask(1);
+            appManager.findTask(2);
+        });
+        appManager.deleteTask(1);
+        assertTrue(historyManager.getHistory("first").isEmpty());
+        assertArrayEquals(new long[] {2}, ids(historyManager.getHistory("second")));
+        assertArrayEquals(new long[] {2}, ids(historyManager.getHistory()));
+    }
+
+    @Test
+    void checkLeastRecentlyUsedSessionIsForgotten() {
+        for (String sessionId : new String[] {"first", "second", "first", "third"}) {
+            inSession(sessionId, () -> appManager.findTask(1));
+        }
+        assertEquals(MAX_SESSIONS, historyManager.getSessionsCount());
+        assertTrue(historyManager.getHistory("second").isEmpty());
+        assertArrayEquals(new long[] {1}, ids(historyManager.getHistory("first")));
+        assertArrayEquals(new long[] {1}, ids(historyManager.getHistory("third")));
+    }
+
+    @Test
+    void checkDeletedTaskLeavesSessionsAfterEvictions() {
+        // The task 1 leaves the history of the session and comes back to it
+        inSession("first", () -> {
+            for (long id : new long[] {1, 2, 3, 4, 1}) appManager.findTask(id);
+        });
+        // The session of the first views is forgotten, one with the same name starts over
+        inSession("second", () -> appManager.findTask(1));
+        inSession("third", () -> appManager.findTask(2));
+        inSession("second", () -> appManager.findTask(5));
+        inSession("first", () -> appManager.findTask(1));
+        appManager.deleteTask(1);
+        assertTrue(historyManager.getHistory("first").isEmpty());
+        assertArrayEquals(new long[] {5}, ids(historyManager.getHistory("second")));
+        assertTrue(historyManager.getHistory("third").isEmpty());
+    }
+
+    private static void inSession(String sessionId, Runnable views) {
+        final SessionHistoryManager.Scope scope = SessionHistoryManager.enter(sessionId);
+        try {
+            views.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    private static long[] ids(List<AbstractTask> history) {
+        return history.stream().mapToLong(AbstractTask::getId).toArray();
+    }
+}
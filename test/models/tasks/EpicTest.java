@@ -0,0 +1,102 @@
+package models.tasks;
+
+import models.enums.StateTask;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpicTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+    private final Epic epic = Epic.createEpic(1, "Epic");
+
+    @Test
+    void checkAggregatesOnAddAndRemove() {
+        epic.addStory(story(2, epic, StateTask.NEW, Duration.ofHours(1), START));
+        epic.addStory(story(3, epic, StateTask.DONE, Duration.ofHours(2), START.plusHours(3)));
+        assertAggregates(epic, START, Duration.ofHours(3), START.plusHours(5), StateTask.IN_PROGRESS);
+
+        epic.removeStory(2);
+        assertAggregates(epic, START.plusHours(3), Duration.ofHours(2), START.plusHours(5), StateTask.DONE);
+
+        epic.removeStory(3);
+        assertAggregates(epic, null, null, null, StateTask.NEW);
+    }
+
+    @Test
+    void checkAggregatesOnStoryChanges() {
+        final Story story = epic.addStory(story(2, epic, StateTask.NEW, Duration.ofHours(1), START));
+        story.setDuration(Duration.ofHours(3));
+        story.setStartTime(START.minusHours(1));
+        assertAggregates(epic, START.minusHours(1), Duration.ofHours(3), START.plusHours(2), StateTask.NEW);
+
+        epic.setStatusStory(2, StateTask.DONE);
+        assertEquals(StateTask.DONE, epic.getStateTask());
+
+        epic.updateStory(2, story(0, epic, StateTask.DONE, Duration.ofMinutes(30), START));
+        assertAggregates(epic, START, Duration.ofMinutes(30), START.plusMinutes(30), StateTask.DONE);
+    }
+
+    @Test
+    void checkAggregatesWhenStoryMovesToAnotherEpic() {
+        final Epic other = Epic.createEpic(4, "Other");
+        epic.addStory(story(2, epic, StateTask.NEW, Duration.ofHours(1), START));
+        final Story moved = epic.addStory(story(3, epic, StateTask.DONE, Duration.ofHours(2), START.plusHours(3)));
+
+        epic.removeStory(3);
+        moved.setEpic(other);
+        other.addStory(moved);
+        // The story changes only the epic that holds it now
+        moved.setDuration(Duration.ofHours(4));
+        assertAggregates(epic, START, Duration.ofHours(1), START.plusHours(1), StateTask.NEW);
+        assertAggregates(other, START.plusHours(3), Duration.ofHours(4), START.plusHours(7), StateTask.DONE);
+    }
+
+    @Test
+    void checkAggregatesAfterEpicReplacement() {
+        epic.addStory(story(2, epic, StateTask.NEW, Duration.ofHours(1), START));
+        final Epic fresh = Epic.createEpic(1, "Fresh");
+        final Story story = fresh.addStory(story(3, fresh, StateTask.NEW, Duration.ofHours(1), START));
+
+        epic.setEpic(fresh);
+        assertSame(epic, story.getEpic());
+        story.setDuration(Duration.ofHours(3));
+        story.setStateTask(StateTask.DONE);
+        assertAggregates(epic, START, Duration.ofHours(3), START.plusHours(3), StateTask.DONE);
+
+        epic.removeStory(3);
+        assertAggregates(epic, null, null, null, StateTask.NEW);
+    }
+
+    @Test
+    void checkRenameKeepsTimeOfStories() {
+        epic.addStory(story(2, epic, StateTask.NEW, Duration.ofHours(1), START));
+        epic.setEpic(Epic.createEpic(1, "Renamed"));
+        assertEquals(1, epic.getStories().size());
+        assertAggregates(epic, START, Duration.ofHours(1), START.plusHours(1), StateTask.NEW);
+        assertTrue(epic.toString().contains("duration=PT1H"));
+    }
+
+    @Test
+    void checkEpicCanTakeItsOwnStories() {
+        epic.addStory(story(2, epic, StateTask.DONE, Duration.ofHours(1), START));
+        epic.setIdStoryMap(epic.getStories());
+        assertEquals(1, epic.getStories().size());
+        assertAggregates(epic, START, Duration.ofHours(1), START.plusHours(1), StateTask.DONE);
+    }
+
+    private static Story story(long id, Epic epic, StateTask stateTask, Duration duration, LocalDateTime startTime) {
+        return Story.createStory(id, "Story" + id, "", epic, stateTask, duration, startTime);
+    }
+
+    private static void assertAggregates(Epic epic, LocalDateTime startTime, Duration duration, LocalDateTime endTime,
+                                         StateTask stateTask) {
+        assertEquals(startTime, epic.getStartTime());
+        assertEquals(duration, epic.getDuration());
+        assertEquals(endTime, epic.getEndTime());
+        assertEquals(stateTask, epic.getStateTask());
+    }
+}
@@ -0,0 +1,82 @@
+package repositories.indexes;
+
+import models.enums.StateTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSlotIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 10, 0);
+
+    private final TimeSlotIndex index = new TimeSlotIndex();
+
+    @Test
+    void checkSlotsWithSameStart() {
+        index.add(task(1, 0, 60));
+        index.add(task(2, 0, 180));
+        assertEquals(2, index.size());
+        // Tasks starting at the same time do not intersect each other
+        assertFalse(index.intersects(task(3, 0, 30)));
+        // The slot reaches as far as its longest task
+        assertTrue(index.intersects(task(3, 150, 60)));
+        assertFalse(index.intersects(task(3, 180, 60)));
+        assertTrue(index.intersects(task(3, -30, 60)));
+    }
+
+    @Test
+    void checkTouchingIntervalsDoNotIntersect() {
+        index.add(task(1, 0, 60));
+        assertFalse(index.intersects(task(2, 60, 60)));
+        assertFalse(index.intersects(task(2, -60, 60)));
+        assertTrue(index.intersects(task(2, 59, 60)));
+        assertTrue(index.intersects(task(2, -59, 60)));
+        assertFalse(index.intersects(START.plusHours(1), START.plusHours(2)));
+    }
+
+    @Test
+    void checkRemovalUpdatesMaxEndTime() {
+        index.add(task(1, 0, 60));
+        index.add(task(2, 0, 180));
+        index.add(task(3, 240, 60));
+        assertTrue(index.intersects(task(4, 90, 30)));
+
+        index.remove(2);
+        assertFalse(index.contains(2));
+        assertFalse(index.intersects(task(4, 90, 30)));
+        assertTrue(index.intersects(task(4, 30, 60)));
+
+        index.remove(1);
+        assertEquals(1, index.size());
+        assertFalse(index.intersects(task(4, 0, 240)));
+        assertTrue(index.intersects(task(4, 0, 241)));
+    }
+
+    @Test
+    void checkBatchWithTasksOverlappingEachOther() {
+        assertTrue(index.intersects(List.of(task(1, 0, 60), task(2, 30, 60))));
+        // Out of order, the batch is sorted by start time before the check
+        assertTrue(index.intersects(List.of(task(1, 30, 60), task(2, 0, 60))));
+        assertFalse(index.intersects(List.of(task(1, 60, 60), task(2, 0, 60))));
+        assertFalse(index.intersects(List.of(task(1, 0, 60), task(2, 0, 120))));
+        // A later task starts within the longest task of an earlier slot
+        assertTrue(index.intersects(List.of(task(1, 0, 180), task(2, 0, 60), task(3, 120, 60))));
+        assertFalse(index.intersects(List.of(task(1, 0, 180), task(2, 0, 60), task(3, 180, 60))));
+        // Tasks without a start time occupy no slot
+        assertFalse(index.intersects(List.of(task(1, 0, 60), Task.createTask(2, "Task2", ""))));
+
+        index.add(task(10, 300, 60));
+        assertTrue(index.intersects(List.of(task(1, 0, 60), task(2, 330, 60))));
+        assertFalse(index.intersects(List.of(task(1, 0, 60), task(2, 360, 60))));
+        assertEquals(1, index.size());
+    }
+
+    private static Task task(long id, int startMinutes, int durationMinutes) {
+        return Task.createTask(id, "Task" + id, "", StateTask.NEW, Duration.ofMinutes(durationMinutes),
+                START.plusMinutes(startMinutes));
+    }
+}
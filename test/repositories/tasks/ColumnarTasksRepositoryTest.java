@@ -0,0 +1,87 @@
+package repositories.tasks;
+
+import models.enums.StateTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTasksRepositoryTest {
+    private final ColumnarTasksRepository columnar = new ColumnarTasksRepository();
+    private final TasksRepository tasks = new TasksRepository();
+
+    @BeforeEach
+    void resetCounter() {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+    }
+
+    @Test
+    void checkRepositoryMatchesTasksRepository() {
+        final Random random = new Random(42);
+        final LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            final int action = random.nextInt(4);
+            final long id = 1 + random.nextInt(i + 1);
+            final Task task = Task.createTask(0, "Task" + random.nextInt(100),
+                    random.nextBoolean() ? null : "Описание" + random.nextInt(10),
+                    StateTask.values()[random.nextInt(StateTask.values().length)],
+                    random.nextBoolean() ? null : Duration.ofSeconds(random.nextInt(10_000), random.nextInt(1000)),
+                    random.nextBoolean() ? null : start.plusSeconds(random.nextInt(1_000_000)).withNano(7));
+            if (action < 2) {
+                tasks.restore(Task.createTask(i + 1, task));
+                columnar.restore(Task.createTask(i + 1, task));
+            } else if (action == 2) {
+                assertEquals(tasks.update(id, task) == null, columnar.update(id, task) == null);
+            } else {
+                assertEquals(fields(tasks.delete(id)), fields(columnar.delete(id)));
+            }
+            assertEquals(tasks.size(), columnar.size());
+        }
+        for (Task task : tasks.findAll()) assertEquals(fields(task), fields(columnar.find(task.getId())));
+        final Set<Long> ids = new HashSet<>();
+        for (Task task : columnar.findAll()) assertTrue(ids.add(task.getId()));
+        assertEquals(tasks.size(), ids.size());
+
+        columnar.clear();
+        assertTrue(columnar.isEmpty());
+        assertNull(columnar.find(1));
+    }
+
+    @Test
+    void checkViewsReadRowsInPlace() {
+        final LocalDateTime start = LocalDateTime.of(2022, 1, 1, 10, 0);
+        columnar.add(Task.createTask(0, "Первая", "", StateTask.IN_PROGRESS, Duration.ofMinutes(30), start));
+        columnar.add(Task.createTask(0, "Вторая", null, StateTask.NEW, null, null));
+        final Task third = columnar.add(Task.createTask(0, "Третья", "", StateTask.IN_PROGRESS, null,
+                start.plusHours(1)));
+
+        final List<String> names = new ArrayList<>();
+        columnar.forEach(view -> {
+            if (view.getStateTask() == StateTask.IN_PROGRESS && view.startsBefore(start.plusMinutes(30))) {
+                names.add(view.getName());
+            }
+        });
+        assertEquals(List.of("Первая"), names);
+
+        final ColumnarTasksRepository.View view = columnar.view(third.getId());
+        assertEquals(fields(third), fields(view.toTask()));
+        assertEquals(start.plusHours(1), view.getStartTime());
+        assertNull(view.getDuration());
+        assertNull(columnar.view(42));
+
+        columnar.delete(1);
+        assertThrows(ConcurrentModificationException.class, view::getName);
+        assertEquals(fields(third), fields(columnar.find(third.getId())));
+    }
+
+    private static List<Object> fields(Task task) {
+        if (task == null) return null;
+        return Arrays.asList(task.getId(), task.getName(), task.getDescription(), task.getStateTask(),
+                task.getDuration(), task.getStartTime());
+    }
+}
@@ -0,0 +1,169 @@
+package repositories.tasks;
+
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpicsRepositoryTest {
+    private static final int ALL = Integer.MAX_VALUE;
+
+    @BeforeEach
+    void resetCounter() {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+    }
+
+    private static Stream<Arguments> repositories() {
+        return Stream.of(
+                Arguments.of((Supplier<EpicsRepository>) EpicsRepository::new),
+                Arguments.of((Supplier<EpicsRepository>) EpicsRepository::createConcurrent)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void checkIndexesOnAddAndRemove(Supplier<EpicsRepository> factory) {
+        final EpicsRepository repository = factory.get();
+        final Epic epic = repository.add(Epic.createEpic("Epic")); // id = 1
+        repository.addStory(Story.createStory("Story1", epic), epic); // id = 2
+        repository.addStory(Story.createStory("Story2", epic), epic); // id = 3
+        assertIndexes(repository, Map.of(1L, List.of(2L, 3L)));
+
+        repository.deleteStory(2);
+        assertIndexes(repository, Map.of(1L, List.of(3L)));
+        assertNull(repository.findStory(2));
+        assertNull(repository.findEpicByStory(2));
+
+        repository.clearStories(epic);
+        assertIndexes(repository, Map.of(1L, List.of()));
+        assertNull(repository.findEpicByStory(3));
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void checkIndexesWhenStoryMovesBetweenEpics(Supplier<EpicsRepository> factory) {
+        final EpicsRepository repository = factory.get();
+        final Epic first = repository.add(Epic.createEpic("First")); // id = 1
+        final Epic second = repository.add(Epic.createEpic("Second")); // id = 2
+        repository.addStory(Story.createStory("Story1", first), first); // id = 3
+        repository.addStory(Story.createStory("Story2", first), first); // id = 4
+
+        final Story moved = repository.updateStory(3, Story.createStory(3, "Moved", "", second, StateTask.DONE));
+        assertSame(second, moved.getEpic());
+        assertIndexes(repository, Map.of(1L, List.of(4L), 2L, List.of(3L)));
+
+        // An update within the epic keeps the story where it is
+        repository.updateStory(4, Story.createStory(4, "Renamed", first));
+        assertIndexes(repository, Map.of(1L, List.of(4L), 2L, List.of(3L)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void checkIndexesOnEpicReplacement(Supplier<EpicsRepository> factory) {
+        final EpicsRepository repository = factory.get();
+        final Epic epic = repository.add(Epic.createEpic("Epic")); // id = 1
+        repository.addStory(Story.createStory("Story1", epic), epic); // id = 2
+        repository.addStory(Story.createStory("Story2", epic), epic); // id = 3
+
+        // The update takes the stories of an equal epic, dropping the ones it does not have
+        final Epic replacement = Epic.createEpic(1, "Replacement");
+        replacement.addStory(Story.createStory(3, "Replaced", "", replacement, StateTask.IN_PROGRESS));
+        replacement.addStory(Story.createStory(4, "Added", "", replacement, StateTask.NEW));
+        assertSame(epic, repository.update(1, replacement));
+        assertIndexes(repository, Map.of(1L, List.of(3L, 4L)));
+        assertSame(epic, repository.findStory(4).getEpic());
+
+        // Restoring an epic with the same id replaces the stored object together with its stories
+        final Epic restored = Epic.createEpic(1, "Restored");
+        restored.addStory(Story.createStory(5, "Restored", "", restored, StateTask.DONE));
+        repository.restore(restored);
+        assertSame(restored, repository.find(1));
+        assertIndexes(repository, Map.of(1L, List.of(5L)));
+        assertNull(repository.findStory(3));
+
+        // The replaced epic no longer reaches the indexes
+        epic.addStory(Story.createStory(6, "Stale", "", epic, StateTask.NEW));
+        assertIndexes(repository, Map.of(1L, List.of(5L)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    void checkIndexesOnDeleteAndClear(Supplier<EpicsRepository> factory) {
+        final EpicsRepository repository = factory.get();
+        final Epic first = repository.add(Epic.createEpic("First")); // id = 1
+        final Epic second = repository.add(Epic.createEpic("Second")); // id = 2
+        repository.addStory(Story.createStory("Story1", first), first); // id = 3
+        repository.addStory(Story.createStory("Story2", second), second); // id = 4
+
+        repository.delete(1);
+        assertIndexes(repository, Map.of(2L, List.of(4L)));
+        assertNull(repository.findStoriesPage(1, 0, ALL));
+        assertNull(repository.findStory(3));
+
+        repository.clear();
+        assertIndexes(repository, Map.of());
+        assertNull(repository.findStory(4));
+        assertNull(repository.findEpicByStory(4));
+
+        // A story added to a cleared epic does not reach the indexes
+        second.addStory(Story.createStory(5, "Stale", "", second, StateTask.NEW));
+        assertIndexes(repository, Map.of());
+    }
+
+    // Every index of the repository must hold exactly the given epics with the ids of their stories
+    private static void assertIndexes(EpicsRepository repository, Map<Long, List<Long>> expected) {
+        final List<Long> epicIds = new ArrayList<>(expected.keySet());
+        Collections.sort(epicIds);
+        assertEquals(epicIds, ids(repository.findPage(0, ALL)));
+        assertEquals(expected.size(), repository.size());
+
+        final Map<StateTask, List<Long>> storyIdsByState = new EnumMap<>(StateTask.class);
+        final Map<StateTask, Integer> epicsByState = new EnumMap<>(StateTask.class);
+        for (StateTask stateTask : StateTask.values()) {
+            storyIdsByState.put(stateTask, new ArrayList<>());
+            epicsByState.put(stateTask, 0);
+        }
+        int storiesCount = 0;
+        for (long epicId : epicIds) {
+            final Epic epic = repository.find(epicId);
+            final List<Long> storyIds = new ArrayList<>(expected.get(epicId));
+            Collections.sort(storyIds);
+            assertEquals(storyIds, ids(repository.findStoriesPage(epicId, 0, ALL)));
+            final List<Long> epicStoryIds = ids(new ArrayList<>(epic.getStories()));
+            Collections.sort(epicStoryIds);
+            assertEquals(storyIds, epicStoryIds);
+            for (Story story : epic.getStories()) {
+                assertSame(story, repository.findStory(story.getId()));
+                assertSame(epic, repository.findEpicByStory(story.getId()));
+                assertSame(epic, story.getEpic());
+                storyIdsByState.get(story.getStateTask()).add(story.getId());
+            }
+            epicsByState.merge(epic.getStateTask(), 1, Integer::sum);
+            storiesCount += storyIds.size();
+        }
+        assertEquals(storiesCount, repository.storiesSize());
+        for (StateTask stateTask : StateTask.values()) {
+            final List<Long> storyIds = storyIdsByState.get(stateTask);
+            Collections.sort(storyIds);
+            assertEquals(storyIds, ids(repository.findStoriesPage(stateTask, 0, ALL)));
+            assertEquals(storyIds.size(), repository.storiesSize(stateTask));
+            assertEquals(epicsByState.get(stateTask), repository.size(stateTask));
+        }
+    }
+
+    private static List<Long> ids(List<? extends AbstractTask> tasks) {
+        final List<Long> ids = new ArrayList<>(tasks.size());
+        for (AbstractTask task : tasks) ids.add(task.getId());
+        return ids;
+    }
+}
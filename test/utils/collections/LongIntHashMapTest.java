@@ -0,0 +1,40 @@
+package utils.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void checkMapMatchesHashMap() {
+        final LongIntHashMap map = new LongIntHashMap();
+        final Map<Long, Integer> expected = new HashMap<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Few distinct keys with the same low bits, so the clusters are long and removals shift them
+            final long key = (random.nextInt(2_000) - 1_000) * (1L << 40);
+            if (random.nextBoolean()) {
+                final int value = random.nextInt(Integer.MAX_VALUE);
+                final Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.put(key, value));
+            } else {
+                final Integer previous = expected.remove(key);
+                assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = -1_000; key < 1_000; key++) {
+            final Integer value = expected.get(key * (1L << 40));
+            assertEquals(value == null ? LongIntHashMap.NO_VALUE : value, map.get(key * (1L << 40)));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, LongIntHashMap.NO_VALUE));
+    }
+}
@@ -0,0 +1,55 @@
+package utils.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void checkMapMatchesLinkedHashMap() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        final Map<Long, String> expected = new LinkedHashMap<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Few distinct keys with the same low bits, so the clusters are long and removals leave holes to squeeze
+            final long key = (random.nextInt(2_000) - 1_000) * (1L << 40);
+            if (random.nextBoolean()) {
+                final String value = String.valueOf(random.nextInt());
+                assertEquals(expected.put(key, value), map.put(key, value));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key * (1L << 40)), map.get(key * (1L << 40)));
+        }
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+        assertFalse(map.values().iterator().hasNext());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void checkValuesKeepInsertionOrder() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(1, "A");
+        assertFalse(map.remove(2, "a"));
+        assertTrue(map.remove(2, "b"));
+        map.put(2, "B");
+        assertEquals(List.of("c", "A", "B"), new ArrayList<>(map.values()));
+
+        final Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        map.remove(3);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+}
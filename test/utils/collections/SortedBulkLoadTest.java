@@ -0,0 +1,56 @@
+package utils.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedBulkLoadTest {
+
+    @Test
+    void checkSetIsLoadedInOrderOfItsComparator() {
+        final List<Integer> sorted = new ArrayList<>();
+        for (int i = 1_000; i > 0; i--) sorted.add(i * 2);
+        final TreeSet<Integer> set = new TreeSet<>(Comparator.reverseOrder());
+        SortedBulkLoad.addAllSorted(set, sorted);
+        assertEquals(sorted, new ArrayList<>(set));
+        assertEquals(Integer.valueOf(1_000), set.ceiling(1_001));
+        assertEquals(500, set.headSet(1_000).size());
+
+        // The tree stays a regular one after the load
+        set.add(3);
+        set.remove(2_000);
+        assertEquals(1_000, set.size());
+        assertEquals(Integer.valueOf(3), set.higher(4));
+    }
+
+    @Test
+    void checkMapIsLoadedWithNaturalOrdering() {
+        final List<Map.Entry<String, Integer>> sorted = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) sorted.add(Map.entry(String.format("%04d", i), i));
+        final TreeMap<String, Integer> map = new TreeMap<>();
+        SortedBulkLoad.putAllSorted(map, sorted);
+        assertEquals(1_000, map.size());
+        assertEquals(Integer.valueOf(499), map.lowerEntry("0500").getValue());
+        assertEquals(100, map.subMap("0100", "0200").size());
+    }
+
+    @Test
+    void checkNonEmptyTreeIsMerged() {
+        final TreeSet<Integer> set = new TreeSet<>(List.of(5, 1));
+        SortedBulkLoad.addAllSorted(set, List.of(2, 3, 4));
+        assertEquals(List.of(1, 2, 3, 4, 5), new ArrayList<>(set));
+
+        final TreeMap<Integer, String> map = new TreeMap<>(Map.of(2, "old"));
+        SortedBulkLoad.putAllSorted(map, List.of(Map.entry(1, "a"), Map.entry(2, "b")));
+        assertEquals(Map.of(1, "a", 2, "b"), map);
+    }
+
+    @Test
+    void checkEmptyListLeavesTreeEmpty() {
+        final TreeSet<Integer> set = new TreeSet<>();
+        SortedBulkLoad.addAllSorted(set, List.of());
+        assertTrue(set.isEmpty());
+    }
+}
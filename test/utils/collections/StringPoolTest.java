@@ -0,0 +1,43 @@
+package utils.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void checkStringsAreCountedAndReleased() {
+        final StringPool pool = new StringPool();
+        final Map<String, Integer> references = new HashMap<>();
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> interned = new ArrayList<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            if (interned.isEmpty() || random.nextInt(3) > 0) {
+                final String string = new String("Строка" + random.nextInt(1_000));
+                final int id = pool.intern(string);
+                assertEquals(ids.computeIfAbsent(string, key -> id), id);
+                references.merge(string, 1, Integer::sum);
+                interned.add(string);
+            } else {
+                final String string = interned.remove(random.nextInt(interned.size()));
+                pool.release(ids.get(string));
+                if (references.merge(string, -1, Integer::sum) == 0) {
+                    references.remove(string);
+                    ids.remove(string);
+                }
+            }
+            assertEquals(references.size(), pool.size());
+        }
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            assertEquals(entry.getKey(), pool.get(entry.getValue()));
+        }
+        assertEquals(StringPool.NO_STRING, pool.intern(null));
+        assertNull(pool.get(StringPool.NO_STRING));
+        pool.clear();
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,179 @@
+package web;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import managers.InMemoryAppManager;
+import models.tasks.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repositories.tasks.AbstractTasksRepository;
+import utils.Managers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private InMemoryAppManager manager;
+    private HttpTaskServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        manager = Managers.getDefault();
+        // Added in the reverse order of their start times
+        for (int i = 3; i >= 1; i--) {
+            manager.addTask(Task.builder("Task" + i)
+                    .startTime(START.plusHours(i))
+                    .duration(Duration.ofMinutes(30))
+                    .build());
+        }
+        server = HttpTaskServer.builder(manager).port(0).threads(2).build();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void checkPrioritizedTasksAreReadOnly() throws Exception {
+        final HttpResponse<String> response = send("GET", "/tasks/prioritized");
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(new long[] {3, 2, 1}, ids(response.body()));
+
+        for (String method : new String[] {"DELETE", "POST", "PUT"}) {
+            for (String path : new String[] {"/tasks/prioritized", "/tasks/prioritized/batch"}) {
+                final HttpResponse<String> rejected = send(method, path);
+                assertEquals(405, rejected.statusCode(), method + " " + path);
+                assertEquals("GET", rejected.headers().firstValue("Allow").orElse(null));
+            }
+        }
+        assertEquals(3, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void checkHistoryIsReadOnly() throws Exception {
+        assertEquals(200, send("GET", "/tasks/task?id=2").statusCode());
+        assertEquals(200, send("GET", "/tasks/task?id=1").statusCode());
+        final HttpResponse<String> response = send("GET", "/tasks/history");
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(new long[] {2, 1}, ids(response.body()));
+
+        for (String method : new String[] {"DELETE", "POST", "PUT"}) {
+            for (String path : new String[] {"/tasks/history", "/tasks/history/batch?ids=1"}) {
+                final HttpResponse<String> rejected = send(method, path);
+                assertEquals(405, rejected.statusCode(), method + " " + path);
+                assertEquals("GET", rejected.headers().firstValue("Allow").orElse(null));
+            }
+        }
+        assertArrayEquals(new long[] {2, 1}, ids(send("GET", "/tasks/history").body()));
+    }
+
+    @Test
+    void checkLargeListIsStreamedChunked() throws Exception {
+        // Far more than the buffer of the response writer
+        for (int i = 4; i <= 5_000; i++) manager.addTask(Task.createTask("Task" + i, "Description" + i));
+        final HttpResponse<String> response = send("GET", "/tasks/task");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+
+        final List<Task> tasks = HttpTaskServer.GSON.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        final List<Task> expected = new ArrayList<>(manager.findAllTasks());
+        assertEquals(expected, tasks);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), tasks.get(i).getName());
+            assertEquals(expected.get(i).getDescription(), tasks.get(i).getDescription());
+            assertEquals(expected.get(i).getStartTime(), tasks.get(i).getStartTime());
+        }
+    }
+
+    @Test
+    void checkOverloadedServerAnswers503() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        // The only worker stays inside findAllTasks until released
+        final InMemoryAppManager blockingManager = new InMemoryAppManager() {
+            @Override
+            public Collection<Task> findAllTasks() {
+                entered.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findAllTasks();
+            }
+        };
+        final HttpTaskServer smallServer = HttpTaskServer.builder(blockingManager)
+                .port(0)
+                .threads(1)
+                .queueCapacity(1)
+                .build();
+        smallServer.start();
+        try {
+            final HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + smallServer.getAddress().getPort() + "/tasks/task")).build();
+            final CompletableFuture<HttpResponse<String>> running =
+                    httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            // One of the next two requests takes the only place in the queue, the other one is rejected
+            final List<CompletableFuture<HttpResponse<String>>> waiting = List.of(
+                    httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()),
+                    httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            final HttpResponse<?> rejected = (HttpResponse<?>) CompletableFuture.anyOf(waiting.get(0), waiting.get(1))
+                    .get(10, TimeUnit.SECONDS);
+            assertEquals(503, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(1, smallServer.getRejectedRequests());
+
+            release.countDown();
+            assertEquals(200, running.get(10, TimeUnit.SECONDS).statusCode());
+            int succeeded = 0;
+            for (CompletableFuture<HttpResponse<String>> response : waiting) {
+                if (response.get(10, TimeUnit.SECONDS).statusCode() == 200) succeeded++;
+            }
+            assertEquals(1, succeeded);
+        } finally {
+            release.countDown();
+            smallServer.stop();
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        final URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + path);
+        final HttpRequest.BodyPublisher body = "GET".equals(method) || "DELETE".equals(method)
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString("[]");
+        return httpClient.send(HttpRequest.newBuilder(uri).method(method, body).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long[] ids(String body) {
+        final JsonElement tasks = JsonParser.parseString(body);
+        final long[] ids = new long[tasks.getAsJsonArray().size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.getAsJsonArray().get(i).getAsJsonObject().get("id").getAsLong();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,120 @@
+package web.taskSerializers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSerializerTest {
+    private static final Gson GSON = TaskSerializer.GSON;
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 3, 9, 30);
+
+    @Test
+    void checkTaskRoundTrip() {
+        final Task task = Task.createTask(1, "Task", "Description", StateTask.IN_PROGRESS, Duration.ofMinutes(90),
+                START);
+        final String json = GSON.toJson(task);
+        final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals("TASK", object.get("typeTask").getAsString());
+        assertEquals("PT1H30M", object.get("duration").getAsString());
+        assertEquals("2022-01-03T09:30", object.get("startTime").getAsString());
+
+        final Task read = GSON.fromJson(json, Task.class);
+        assertFields(task, read);
+    }
+
+    @Test
+    void checkEpicWithStoriesRoundTrip() {
+        final Epic epic = Epic.createEpic(1, "Epic", "Description");
+        epic.addStory(Story.createStory(2, "Story2", "", epic, StateTask.DONE, Duration.ofHours(1), START));
+        epic.addStory(Story.createStory(3, "Story3", "", epic, StateTask.NEW, Duration.ofHours(2),
+                START.plusHours(3)));
+        final String json = GSON.toJson(epic);
+        final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        // The stories go as ids, the aggregates of the epic as its own fields
+        assertEquals(2, object.get("stories").getAsJsonArray().get(0).getAsLong());
+        assertEquals(3, object.get("stories").getAsJsonArray().get(1).getAsLong());
+        assertEquals("IN_PROGRESS", object.get("stateTask").getAsString());
+
+        // The stories are skipped on read, so the duration and the start time derived from them are not restored
+        final Epic read = GSON.fromJson(json, Epic.class);
+        assertEquals(epic.getId(), read.getId());
+        assertEquals(epic.getName(), read.getName());
+        assertEquals(epic.getDescription(), read.getDescription());
+        assertEquals(TypeTask.EPIC, read.getTypeTask());
+        assertEquals(StateTask.IN_PROGRESS, read.getStateTask());
+        assertTrue(read.getStories().isEmpty());
+        assertNull(read.getDuration());
+        assertNull(read.getStartTime());
+    }
+
+    @Test
+    void checkStoryWithEpicLinkRoundTrip() {
+        final Epic epic = Epic.createEpic(7, "Epic");
+        final Story story = Story.createStory(8, "Story", "Description", epic, StateTask.DONE, Duration.ofMinutes(15),
+                START);
+        final String json = GSON.toJson(story);
+        assertEquals(7, JsonParser.parseString(json).getAsJsonObject().get("epicId").getAsLong());
+
+        // The read story points to a stub with the id of its epic
+        final Story read = GSON.fromJson(json, Story.class);
+        assertFields(story, read);
+        assertEquals(7, read.getEpic().getId());
+    }
+
+    @Test
+    void checkNullTimeFieldsRoundTrip() {
+        final Task task = Task.createTask(1, "Task", "Description");
+        final String json = GSON.toJson(task);
+        final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        // Null values are left out of the JSON
+        assertFalse(object.has("duration"));
+        assertFalse(object.has("startTime"));
+
+        final Task read = GSON.fromJson(json, Task.class);
+        assertFields(task, read);
+        assertNull(read.getDuration());
+        assertNull(read.getStartTime());
+        // Explicit nulls read the same way
+        final Task readNulls = GSON.fromJson("{\"id\":1,\"name\":\"Task\",\"duration\":null,\"startTime\":null}",
+                Task.class);
+        assertNull(readNulls.getDuration());
+        assertNull(readNulls.getStartTime());
+    }
+
+    @Test
+    void checkListOfMixedTasksIsWrittenByRuntimeType() {
+        final Epic epic = Epic.createEpic(2, "Epic");
+        final List<AbstractTask> tasks = List.of(Task.createTask(1, "Task", ""), epic,
+                Story.createStory(3, "Story", epic));
+        final String json = GSON.toJson(tasks);
+        final String[] types = new String[tasks.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = JsonParser.parseString(json).getAsJsonArray().get(i).getAsJsonObject().get("typeTask")
+                    .getAsString();
+        }
+        assertArrayEquals(new String[] {TypeTask.TASK.name(), TypeTask.EPIC.name(), TypeTask.STORY.name()}, types);
+    }
+
+    private static void assertFields(AbstractTask expected, AbstractTask actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getTypeTask(), actual.getTypeTask());
+        assertEquals(expected.getStateTask(), actual.getStateTask());
+        assertEquals(expected.getDuration(), actual.getDuration());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+    }
+}